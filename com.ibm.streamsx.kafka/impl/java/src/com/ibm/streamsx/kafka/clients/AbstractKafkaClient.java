@@ -13,15 +13,12 @@
  */
 package com.ibm.streamsx.kafka.clients;
 
-import java.io.Serializable;
-import java.util.Base64;
-
 import org.apache.commons.lang3.RandomStringUtils;
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
 import org.apache.kafka.common.serialization.DoubleSerializer;
 import org.apache.kafka.common.serialization.FloatSerializer;
 import org.apache.kafka.common.serialization.IntegerSerializer;
@@ -215,7 +212,8 @@ public abstract class AbstractKafkaClient {
             return FloatDeserializerExt.class.getCanonicalName();
         } else if (serializerClassName.equals(DoubleSerializer.class.getCanonicalName())) {
             return DoubleDeserializerExt.class.getCanonicalName();
-        } else if (serializerClassName.equals(ByteArraySerializer.class.getCanonicalName())) {
+        } else if (serializerClassName.equals(ByteArraySerializer.class.getCanonicalName())
+                || serializerClassName.equals(ByteBufferSerializer.class.getCanonicalName())) {
             return ByteArrayDeserializer.class.getCanonicalName();
         } else if (serializerClassName.equals(IntegerSerializer.class.getCanonicalName())) {
             return IntegerDeserializerExt.class.getCanonicalName();
@@ -252,15 +250,6 @@ public abstract class AbstractKafkaClient {
     }
 
 
-    /**
-     * Serializes a Serializable to a base64 encoded String
-     * @param obj The object to be serialized
-     * @return a base64 encoded String that represents the serialized object
-     */
-    protected static String serializeObject(Serializable obj) {
-        return new String(Base64.getEncoder().encode(SerializationUtils.serialize(obj)));
-    }
-
     /**
      * Creates a random String that can contain an optional prefix.
      * The length of the random part is 17 characters.
@@ -23,6 +23,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.TopicPartition;
@@ -344,6 +346,39 @@ public class OffsetManager implements Serializable {
         return "OffsetManager [managerMap=" + managerMap + "]"; //$NON-NLS-1$ //$NON-NLS-2$
     }
 
+    /**
+     * Creates a snapshot of the mappings from topics and partitions to offsets.
+     * @return a new snapshot
+     */
+    public OffsetSnapshot createSnapshot() {
+        SortedMap<String, OffsetsCodec.TopicOffsets> topics = new TreeMap<>();
+        synchronized (managerMap) {
+            for (TopicManager tm: managerMap.values()) {
+                if (!tm.isEmpty()) topics.put (tm.getTopic(), tm.createTopicOffsets());
+            }
+        }
+        return new OffsetSnapshot (topics);
+    }
+
+    /**
+     * Adds the offsets from the given snapshot replacing potentially existing offsets for topic partitions.
+     * @param snapshot The source snapshot
+     * @see #putOffsets(OffsetManager)
+     */
+    public void putOffsets (OffsetSnapshot snapshot) {
+        Set<TopicPartition> mappedTopicPartitions = this.getMappedTopicPartitions();
+        snapshot.getTopicOffsets().forEach ((topic, t) -> {
+            for (int partition: t.getPartitions()) mappedTopicPartitions.add (new TopicPartition (topic, partition));
+        });
+        this.updateTopics (mappedTopicPartitions);
+        snapshot.getTopicOffsets().forEach ((topic, t) -> {
+            final TopicManager tm = managerMap.get (topic);
+            final int[] partitions = t.getPartitions();
+            final long[] offsets = t.getOffsets();
+            for (int i = 0; i < partitions.length; ++i) tm.setOffset (partitions[i], offsets[i]);
+        });
+    }
+
     /**
      * Adds the offsets from the given OffsetManager replacing potentially existing offsets for topic partitions.
      * @param ofsm The source offset manager
@@ -0,0 +1,230 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+
+import com.ibm.streamsx.kafka.clients.OffsetsCodec.TopicOffsets;
+
+/**
+ * An immutable copy of the offsets of an {@link OffsetManager} held in primitive arrays per topic.
+ * <p>
+ * Snapshots support delta checkpoints: {@link #delta(OffsetSnapshot)} creates a snapshot that contains only the
+ * partitions whose offset differs from a base snapshot, and {@link #apply(OffsetSnapshot)} restores the complete
+ * snapshot from the base and the delta. Partitions that are contained in the base, but not in the current snapshot,
+ * are marked with the offset {@value #REMOVED} in the delta.
+ * <p>
+ * Snapshots are stored in checkpoints and JCP control variables in the versioned encoding of {@link OffsetsCodec}.
+ */
+public class OffsetSnapshot {
+
+    /** the offset that marks a removed partition in a delta */
+    public static final long REMOVED = Long.MIN_VALUE;
+
+    private static final OffsetSnapshot EMPTY = new OffsetSnapshot (Collections.emptySortedMap());
+
+    private final SortedMap<String, TopicOffsets> topics;
+
+    /**
+     * Constructs a new snapshot.
+     * @param topics the offsets by topic
+     */
+    OffsetSnapshot (SortedMap<String, TopicOffsets> topics) {
+        this.topics = topics;
+    }
+
+    /**
+     * @return a snapshot without any offset
+     */
+    public static OffsetSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the offsets by topic. The returned map must not be modified.
+     */
+    public Map<String, TopicOffsets> getTopicOffsets() {
+        return topics;
+    }
+
+    /**
+     * Returns the number of mappings from topics and partitions to offsets.
+     * @return the number of mappings
+     */
+    public int size() {
+        int s = 0;
+        for (TopicOffsets t: topics.values()) s += t.size();
+        return s;
+    }
+
+    /**
+     * Creates the delta of this snapshot to a base snapshot.
+     * @param base the base snapshot
+     * @return a snapshot that contains the partitions with a changed or new offset, and the removed partitions with offset {@value #REMOVED}.
+     */
+    public OffsetSnapshot delta (OffsetSnapshot base) {
+        SortedMap<String, TopicOffsets> result = new TreeMap<>();
+        for (String topic: union (base)) {
+            final TopicOffsets cur = topics.get (topic);
+            final TopicOffsets bas = base.topics.get (topic);
+            final int[] cp = cur == null? new int[0]: cur.getPartitions();
+            final long[] co = cur == null? new long[0]: cur.getOffsets();
+            final int[] bp = bas == null? new int[0]: bas.getPartitions();
+            final long[] bo = bas == null? new long[0]: bas.getOffsets();
+            int[] partitions = new int[cp.length + bp.length];
+            long[] offsets = new long[partitions.length];
+            int n = 0, i = 0, j = 0;
+            while (i < cp.length || j < bp.length) {
+                if (j >= bp.length || (i < cp.length && cp[i] < bp[j])) {
+                    // new partition
+                    partitions[n] = cp[i];
+                    offsets[n++] = co[i++];
+                }
+                else if (i >= cp.length || bp[j] < cp[i]) {
+                    // removed partition
+                    partitions[n] = bp[j++];
+                    offsets[n++] = REMOVED;
+                }
+                else {
+                    if (co[i] != bo[j]) {
+                        partitions[n] = cp[i];
+                        offsets[n++] = co[i];
+                    }
+                    ++i; ++j;
+                }
+            }
+            if (n > 0) {
+                result.put (topic, new TopicOffsets (topic, Arrays.copyOf (partitions, n), Arrays.copyOf (offsets, n)));
+            }
+        }
+        return new OffsetSnapshot (result);
+    }
+
+    /**
+     * Applies a delta, which has been created by {@link #delta(OffsetSnapshot)} with this snapshot as the base.
+     * @param delta the delta
+     * @return a new snapshot
+     */
+    public OffsetSnapshot apply (OffsetSnapshot delta) {
+        SortedMap<String, TopicOffsets> result = new TreeMap<>();
+        for (String topic: union (delta)) {
+            final TopicOffsets bas = topics.get (topic);
+            final TopicOffsets del = delta.topics.get (topic);
+            final int[] bp = bas == null? new int[0]: bas.getPartitions();
+            final long[] bo = bas == null? new long[0]: bas.getOffsets();
+            final int[] dp = del == null? new int[0]: del.getPartitions();
+            final long[] dO = del == null? new long[0]: del.getOffsets();
+            int[] partitions = new int[bp.length + dp.length];
+            long[] offsets = new long[partitions.length];
+            int n = 0, i = 0, j = 0;
+            while (i < bp.length || j < dp.length) {
+                if (j >= dp.length || (i < bp.length && bp[i] < dp[j])) {
+                    partitions[n] = bp[i];
+                    offsets[n++] = bo[i++];
+                }
+                else {
+                    if (dO[j] != REMOVED) {
+                        partitions[n] = dp[j];
+                        offsets[n++] = dO[j];
+                    }
+                    if (i < bp.length && bp[i] == dp[j]) ++i;
+                    ++j;
+                }
+            }
+            if (n > 0) {
+                result.put (topic, new TopicOffsets (topic, Arrays.copyOf (partitions, n), Arrays.copyOf (offsets, n)));
+            }
+        }
+        return new OffsetSnapshot (result);
+    }
+
+    /**
+     * Encodes the snapshot with {@link OffsetsCodec}.
+     * @return the encoded snapshot
+     */
+    public byte[] encode() {
+        return OffsetsCodec.encodeTopics (topics.values());
+    }
+
+    /**
+     * Decodes a snapshot that has been encoded with {@link #encode()}.
+     * @param data the encoded data
+     * @return the snapshot
+     * @throws IOException the data cannot be decoded
+     */
+    public static OffsetSnapshot decode (byte[] data) throws IOException {
+        SortedMap<String, TopicOffsets> topics = new TreeMap<>();
+        for (TopicOffsets t: OffsetsCodec.decodeTopics (data)) {
+            topics.put (t.getTopic(), t);
+        }
+        return new OffsetSnapshot (topics);
+    }
+
+    /**
+     * Encodes the snapshot for a JCP string control variable.
+     * @return the Base64 encoded snapshot
+     * @see #fromControlVariableValue(String)
+     */
+    public String toControlVariableValue() {
+        return Base64.getEncoder().encodeToString (encode());
+    }
+
+    /**
+     * Decodes the value of a JCP string control variable.
+     * Besides the encoding of {@link #toControlVariableValue()}, the legacy format, which is
+     * a Base64 encoded Java serialized {@link OffsetManager}, is accepted.
+     * @param value the value of the control variable
+     * @return the snapshot
+     * @throws IOException the value cannot be decoded
+     */
+    public static OffsetSnapshot fromControlVariableValue (String value) throws IOException {
+        final byte[] data;
+        try {
+            data = Base64.getDecoder().decode (value);
+        } catch (IllegalArgumentException e) {
+            throw new IOException ("invalid control variable value: " + e.getMessage(), e);
+        }
+        if (OffsetsCodec.isEncoded (data)) {
+            return decode (data);
+        }
+        try {
+            final OffsetManager legacy = SerializationUtils.deserialize (data);
+            return legacy.createSnapshot();
+        } catch (SerializationException | ClassCastException e) {
+            throw new IOException ("invalid control variable value: " + e.getMessage(), e);
+        }
+    }
+
+    private Set<String> union (OffsetSnapshot other) {
+        Set<String> s = new TreeSet<> (topics.keySet());
+        s.addAll (other.topics.keySet());
+        return s;
+    }
+
+    @Override
+    public String toString() {
+        return "OffsetSnapshot " + topics.values(); //$NON-NLS-1$
+    }
+}
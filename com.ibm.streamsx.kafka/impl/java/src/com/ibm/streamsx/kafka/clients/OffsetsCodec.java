@@ -0,0 +1,325 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compact binary encoding of topic partition to offset mappings.
+ * <p>
+ * The partitions of a topic are encoded in ascending order. Partition numbers are encoded as the difference
+ * to the previous partition number, offsets as the zig-zag encoded difference to the previous offset.
+ * All numbers are written as variable-length integers, so that a typical mapping needs only a few bytes.
+ * <p>
+ * This class depends only on the Java runtime, so that it can be used within the JCP.
+ * The layout is:
+ * <pre>
+ * magic (1 byte), version (1 byte), nTopics (varint),
+ * nTopics times: topicNameLength (varint), topicName (UTF-8), nPartitions (varint),
+ *                nPartitions times: partitionDelta (varint), offsetDelta (zig-zag varint)
+ * </pre>
+ */
+public class OffsetsCodec {
+
+    /** first byte of encoded data */
+    public static final byte MAGIC = (byte) 0xC5;
+    /** the format version */
+    public static final byte VERSION = 1;
+
+    private OffsetsCodec() {
+    }
+
+    /**
+     * Encodes topic partitions without offsets, for example to request offsets for a set of partitions.
+     * The offsets in the encoded data are 0.
+     * @param partitions the partition numbers by topic
+     * @return the encoded data
+     */
+    public static byte[] encodePartitions (Map<String, ? extends Collection<Integer>> partitions) {
+        Map<String, Map<Integer, Long>> offsets = new HashMap<>();
+        partitions.forEach ((topic, partitionNumbers) -> {
+            Map<Integer, Long> m = new HashMap<>();
+            for (Integer p: partitionNumbers) m.put (p, 0L);
+            offsets.put (topic, m);
+        });
+        return encode (offsets);
+    }
+
+    /**
+     * Encodes offsets of topic partitions.
+     * @param offsets the offsets by topic and partition number
+     * @return the encoded data
+     */
+    public static byte[] encode (Map<String, ? extends Map<Integer, Long>> offsets) {
+        List<TopicOffsets> topics = new ArrayList<> (offsets.size());
+        for (String topic: new TreeSet<> (offsets.keySet())) {
+            topics.add (TopicOffsets.of (topic, offsets.get (topic)));
+        }
+        return encodeTopics (topics);
+    }
+
+    /**
+     * Encodes offsets of topic partitions given as primitive arrays per topic.
+     * @param topics the offsets of the topics
+     * @return the encoded data
+     */
+    public static byte[] encodeTopics (Collection<TopicOffsets> topics) {
+        int nPartitions = 0;
+        for (TopicOffsets t: topics) nPartitions += t.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream (16 + 16 * topics.size() + 4 * nPartitions);
+        out.write (MAGIC);
+        out.write (VERSION);
+        writeVarLong (out, topics.size());
+        for (TopicOffsets t: topics) {
+            final byte[] topicBytes = t.getTopic().getBytes (StandardCharsets.UTF_8);
+            writeVarLong (out, topicBytes.length);
+            out.write (topicBytes, 0, topicBytes.length);
+            final int[] partitions = t.getPartitions();
+            final long[] offsets = t.getOffsets();
+            writeVarLong (out, partitions.length);
+            int previousPartition = 0;
+            long previousOffset = 0L;
+            for (int i = 0; i < partitions.length; ++i) {
+                writeVarLong (out, partitions[i] - previousPartition);
+                writeZigZagLong (out, offsets[i] - previousOffset);
+                previousPartition = partitions[i];
+                previousOffset = offsets[i];
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes data that has been encoded with {@link #encode(Map)} or {@link #encodePartitions(Map)}.
+     * @param data the encoded data
+     * @return the offsets by topic and partition number
+     * @throws IOException the data is not valid or has an unsupported version
+     */
+    public static Map<String, Map<Integer, Long>> decode (byte[] data) throws IOException {
+        List<TopicOffsets> topics = decodeTopics (data);
+        Map<String, Map<Integer, Long>> offsets = new HashMap<> (topics.size() * 2);
+        for (TopicOffsets t: topics) {
+            offsets.put (t.getTopic(), t.toMap());
+        }
+        return offsets;
+    }
+
+    /**
+     * Decodes data that has been encoded with {@link #encodeTopics(Collection)} or {@link #encode(Map)} into primitive arrays per topic.
+     * @param data the encoded data
+     * @return the offsets of the topics in the order they have been encoded
+     * @throws IOException the data is not valid or has an unsupported version
+     */
+    public static List<TopicOffsets> decodeTopics (byte[] data) throws IOException {
+        Reader in = new Reader (data);
+        if (in.readByte() != MAGIC) {
+            throw new IOException ("invalid encoded offsets: magic byte mismatch");
+        }
+        final byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException ("unsupported version of encoded offsets: " + version);
+        }
+        final int nTopics = in.readVarInt();
+        List<TopicOffsets> topics = new ArrayList<> (nTopics);
+        for (int t = 0; t < nTopics; ++t) {
+            final String topic = in.readString();
+            final int nPartitions = in.readVarInt();
+            // every partition needs at least two bytes
+            if (nPartitions > data.length) throw new IOException ("invalid number of partitions in encoded offsets: " + nPartitions);
+            int[] partitions = new int[nPartitions];
+            long[] offsets = new long[nPartitions];
+            int partition = 0;
+            long offset = 0L;
+            for (int i = 0; i < nPartitions; ++i) {
+                partition += in.readVarInt();
+                offset += in.readZigZagLong();
+                partitions[i] = partition;
+                offsets[i] = offset;
+            }
+            topics.add (new TopicOffsets (topic, partitions, offsets));
+        }
+        return topics;
+    }
+
+    /**
+     * Tests whether data starts with the magic byte of encoded offsets.
+     * @param data the data
+     * @return true, if the data can be decoded by this class, false otherwise
+     */
+    public static boolean isEncoded (byte[] data) {
+        return data != null && data.length >= 2 && data[0] == MAGIC;
+    }
+
+    /**
+     * Writes a non-negative long as variable-length integer with 7 bits per byte.
+     * @param out the output
+     * @param value the value
+     */
+    static void writeVarLong (ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0L) {
+            out.write ((int) ((value & 0x7FL) | 0x80L));
+            value >>>= 7;
+        }
+        out.write ((int) value);
+    }
+
+    /**
+     * Writes a signed long as zig-zag encoded variable-length integer.
+     * @param out the output
+     * @param value the value
+     */
+    static void writeZigZagLong (ByteArrayOutputStream out, long value) {
+        writeVarLong (out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * The offsets of the partitions of a single topic as primitive arrays, ordered by partition number.
+     */
+    public static class TopicOffsets {
+        private final String topic;
+        private final int[] partitions;
+        private final long[] offsets;
+
+        /**
+         * Constructs a new instance. The arrays are not copied.
+         * @param topic the topic
+         * @param partitions the partition numbers in ascending order
+         * @param offsets the offsets; offsets[i] is the offset of partitions[i]
+         */
+        public TopicOffsets (String topic, int[] partitions, long[] offsets) {
+            if (partitions.length != offsets.length) throw new IllegalArgumentException ("partitions and offsets differ in length");
+            this.topic = topic;
+            this.partitions = partitions;
+            this.offsets = offsets;
+        }
+
+        /**
+         * Creates an instance from a mapping of partition numbers to offsets.
+         * @param topic the topic
+         * @param partitionOffsets the offsets by partition number
+         * @return a new instance
+         */
+        public static TopicOffsets of (String topic, Map<Integer, Long> partitionOffsets) {
+            int[] partitions = new int[partitionOffsets.size()];
+            int i = 0;
+            for (Integer p: partitionOffsets.keySet()) partitions[i++] = p.intValue();
+            Arrays.sort (partitions);
+            long[] offsets = new long[partitions.length];
+            for (i = 0; i < partitions.length; ++i) offsets[i] = partitionOffsets.get (partitions[i]).longValue();
+            return new TopicOffsets (topic, partitions, offsets);
+        }
+
+        /**
+         * @return the topic
+         */
+        public String getTopic() {
+            return topic;
+        }
+
+        /**
+         * @return the partition numbers in ascending order. The array must not be modified.
+         */
+        public int[] getPartitions() {
+            return partitions;
+        }
+
+        /**
+         * @return the offsets in the order of the partition numbers. The array must not be modified.
+         */
+        public long[] getOffsets() {
+            return offsets;
+        }
+
+        /**
+         * @return the number of partitions
+         */
+        public int size() {
+            return partitions.length;
+        }
+
+        /**
+         * @return a new mutable map from partition number to offset
+         */
+        public Map<Integer, Long> toMap() {
+            Map<Integer, Long> m = new HashMap<> (partitions.length * 2);
+            for (int i = 0; i < partitions.length; ++i) m.put (partitions[i], offsets[i]);
+            return m;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder (topic).append ('{');
+            for (int i = 0; i < partitions.length; ++i) {
+                if (i > 0) sb.append (", ");
+                sb.append (partitions[i]).append ('=').append (offsets[i]);
+            }
+            return sb.append ('}').toString();
+        }
+    }
+
+    /**
+     * Reader for encoded data.
+     */
+    static class Reader {
+        private final byte[] data;
+        private int pos = 0;
+
+        Reader (byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() throws IOException {
+            if (pos >= data.length) throw new IOException ("unexpected end of encoded offsets");
+            return data[pos++];
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0L;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException ("malformed variable-length integer in encoded offsets");
+        }
+
+        int readVarInt() throws IOException {
+            final long value = readVarLong();
+            if (value > Integer.MAX_VALUE || value < 0L) throw new IOException ("integer out of range in encoded offsets: " + value);
+            return (int) value;
+        }
+
+        long readZigZagLong() throws IOException {
+            final long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1L);
+        }
+
+        String readString() throws IOException {
+            final int len = readVarInt();
+            if (len > data.length - pos) throw new IOException ("unexpected end of encoded offsets");
+            final String s = new String (data, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * This class tracks the offsets of submitted records per topic partition with low overhead.
+ * For every topic, a dense array indexed by the partition number holds one slot per registered partition.
+ * Setting an offset for a registered partition is a single ordered store into the slot without locking.
+ * 
+ * The tracked offsets are not a complete view of the offsets. They are pending updates, which are transferred
+ * into an {@link OffsetManager} with {@link #transferTo(OffsetManager)}, for example before offsets are committed
+ * or checkpointed.
+ * 
+ * Offsets of one partition must not be set concurrently by multiple threads. Offsets of different partitions can be set concurrently.
+ */
+public class PartitionOffsetTracker {
+
+    private static final long NO_OFFSET = -1l;
+
+    /**
+     * The slot for the offset of one partition.
+     * Slots are shared between the old and new partition array of a topic when the array is re-created,
+     * so that an offset stored by a thread that still uses the old array is not lost.
+     */
+    private static final class Slot {
+        volatile long offset = NO_OFFSET;
+    }
+
+    private static final AtomicLongFieldUpdater<Slot> OFFSET = AtomicLongFieldUpdater.newUpdater (Slot.class, "offset");
+
+    /** topic to slots mapping. The map is never modified; it is replaced under the lock (copy on write). */
+    private volatile Map<String, Slot[]> topicSlots = Collections.emptyMap();
+    private final Object lock = new Object();
+    private final boolean autoRegister;
+
+    /**
+     * Constructs a new tracker.
+     * @param autoRegister when true, unknown topic partitions are registered when an offset is set for them the first time. 
+     *                     When false, offsets for unregistered partitions are not tracked.
+     */
+    public PartitionOffsetTracker (boolean autoRegister) {
+        this.autoRegister = autoRegister;
+    }
+
+    /**
+     * Sets the offset for a topic partition. This is the hot path, which does not allocate memory for registered partitions.
+     * @param topic     the topic
+     * @param partition the partition number
+     * @param offset    the offset, typically the offset of the next record to be consumed
+     * @return true, if the offset has been set, false, if the partition is not registered and automatic registration is disabled.
+     */
+    public boolean set (String topic, int partition, long offset) {
+        final Slot[] slots = topicSlots.get (topic);
+        if (slots != null && partition < slots.length) {
+            final Slot s = slots[partition];
+            if (s != null) {
+                OFFSET.lazySet (s, offset);
+                return true;
+            }
+        }
+        if (!autoRegister) return false;
+        OFFSET.lazySet (registerSlot (topic, partition), offset);
+        return true;
+    }
+
+    /**
+     * Registers topic partitions. Already registered partitions keep their pending offsets.
+     * @param partitions the topic partitions
+     */
+    public void register (Collection<TopicPartition> partitions) {
+        synchronized (lock) {
+            for (TopicPartition tp: partitions) {
+                registerSlot (tp.topic(), tp.partition());
+            }
+        }
+    }
+
+    /**
+     * Unregisters topic partitions. Pending offsets for these partitions are discarded.
+     * @param partitions the topic partitions
+     */
+    public void unregister (Collection<TopicPartition> partitions) {
+        synchronized (lock) {
+            Map<String, Slot[]> newMap = new HashMap<> (topicSlots);
+            for (TopicPartition tp: partitions) {
+                final Slot[] slots = newMap.get (tp.topic());
+                if (slots == null || tp.partition() >= slots.length || slots[tp.partition()] == null) continue;
+                final Slot[] newSlots = slots.clone();
+                newSlots[tp.partition()] = null;
+                newMap.put (tp.topic(), newSlots);
+            }
+            topicSlots = newMap;
+        }
+    }
+
+    /**
+     * Unregisters all topic partitions and discards all pending offsets.
+     */
+    public void clear() {
+        synchronized (lock) {
+            topicSlots = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Transfers all pending offsets into the given offset manager. The offsets are removed from this tracker.
+     * Topics and partitions are created in the offset manager if they do not exist.
+     * @param offsetManager the offset manager
+     */
+    public void transferTo (OffsetManager offsetManager) {
+        final Map<String, Slot[]> map = topicSlots;
+        synchronized (offsetManager) {
+            for (Map.Entry<String, Slot[]> entry: map.entrySet()) {
+                final String topic = entry.getKey();
+                final Slot[] slots = entry.getValue();
+                for (int partition = 0; partition < slots.length; ++partition) {
+                    final Slot s = slots[partition];
+                    if (s == null || s.offset == NO_OFFSET) continue;
+                    final long offset = OFFSET.getAndSet (s, NO_OFFSET);
+                    if (offset == NO_OFFSET) continue;
+                    try {
+                        offsetManager.savePosition (topic, partition, offset, /*autoCreateTopic=*/true);
+                    } catch (Exception e) {
+                        // not thrown when autoCreateTopic is true
+                        throw new RuntimeException (e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets or creates the slot for a topic partition.
+     * @param topic     the topic
+     * @param partition the partition number
+     * @return the slot
+     */
+    private Slot registerSlot (String topic, int partition) {
+        synchronized (lock) {
+            Slot[] slots = topicSlots.get (topic);
+            if (slots != null && partition < slots.length && slots[partition] != null) {
+                return slots[partition];
+            }
+            final Slot[] newSlots = new Slot[slots == null? partition +1: Math.max (slots.length, partition +1)];
+            if (slots != null) System.arraycopy (slots, 0, newSlots, 0, slots.length);
+            final Slot s = new Slot();
+            newSlots[partition] = s;
+            Map<String, Slot[]> newMap = new HashMap<> (topicSlots);
+            newMap.put (topic, newSlots);
+            topicSlots = newMap;
+            return s;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder ("PartitionOffsetTracker [");
+        topicSlots.forEach ((topic, slots) -> {
+            for (int p = 0; p < slots.length; ++p) {
+                if (slots[p] != null) sb.append (topic).append ('-').append (p).append ('=').append (slots[p].offset).append (' ');
+            }
+        });
+        return sb.append (']').toString();
+    }
+}
@@ -192,6 +192,14 @@ public class TopicManager implements Serializable {
         return offsetMap.remove(partition) != null;
     }
 
+    /**
+     * Creates a copy of the mappings from partition number to offset in primitive arrays.
+     * @return the offsets of this topic
+     */
+    public OffsetsCodec.TopicOffsets createTopicOffsets() {
+        return OffsetsCodec.TopicOffsets.of (topic, offsetMap);
+    }
+
     @Override
     public String toString() {
         return "TopicManager [topic=" + topic + "-" + partitions + ", offsetMap=" + offsetMap + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.log4j.Logger;
+
+/**
+ * Exchanges consumer group offsets between consumer and transactional producer clients of the same consistent region,
+ * so that the producer can commit the offsets within its Kafka transaction with
+ * {@link org.apache.kafka.clients.producer.KafkaProducer#sendOffsetsToTransaction(Map, String)}.
+ * <p>
+ * The exchange is a registry within the Java VM. Offsets can therefore only be exchanged between operators that are fused into the same PE.
+ * A consumer publishes its offsets on drain when a transactional producer is registered for the same consistent region.
+ * The producer claims all published offsets of the region when it commits its transaction at checkpoint.
+ * Offsets that have not been claimed can be withdrawn by the consumer, which commits them then by itself.
+ * <p>
+ * As the offsets of a region are not assigned to a particular producer, offsets are only exchanged when exactly one
+ * transactional producer is registered for the consistent region. With more producers, the consumers commit their offsets by themselves.
+ */
+public class TransactionOffsetsExchange {
+
+    private static final Logger trace = Logger.getLogger (TransactionOffsetsExchange.class);
+
+    /** number of registered producers by consistent region index */
+    private static final Map<Integer, Integer> producers = new HashMap<>();
+    /** published offsets by consistent region index and group-ID */
+    private static final Map<Integer, Map<String, Map<TopicPartition, OffsetAndMetadata>>> offsets = new HashMap<>();
+
+    private TransactionOffsetsExchange() {
+    }
+
+    /**
+     * Registers a transactional producer for a consistent region.
+     * @param crIndex the index of the consistent region
+     */
+    public static synchronized void registerProducer (int crIndex) {
+        producers.merge (crIndex, 1, Integer::sum);
+        trace.info ("transactional producer registered for consistent region " + crIndex);
+    }
+
+    /**
+     * Unregisters a transactional producer for a consistent region.
+     * When the last producer of a region is unregistered, unclaimed offsets of the region remain available for withdrawal.
+     * @param crIndex the index of the consistent region
+     */
+    public static synchronized void unregisterProducer (int crIndex) {
+        Integer n = producers.get (crIndex);
+        if (n == null) return;
+        if (n.intValue() <= 1) producers.remove (crIndex);
+        else producers.put (crIndex, n - 1);
+    }
+
+    /**
+     * Gets the number of transactional producers registered for a consistent region.
+     * Offsets should only be published when exactly one producer is registered.
+     * @param crIndex the index of the consistent region
+     * @return the number of registered producers
+     */
+    public static synchronized int getNumProducers (int crIndex) {
+        return producers.getOrDefault (crIndex, 0);
+    }
+
+    /**
+     * Publishes the offsets of a consumer group for a consistent region.
+     * Offsets, which have been published before for the same group and have not yet been claimed, are replaced.
+     * @param crIndex the index of the consistent region
+     * @param groupId the consumer group ID
+     * @param groupOffsets the offsets. A copy of the map is stored.
+     */
+    public static synchronized void publish (int crIndex, String groupId, Map<TopicPartition, OffsetAndMetadata> groupOffsets) {
+        offsets.computeIfAbsent (crIndex, k -> new HashMap<>()).put (groupId, new HashMap<> (groupOffsets));
+    }
+
+    /**
+     * Claims and removes all published offsets of a consistent region.
+     * When more than one producer is registered for the region, nothing is claimed, so that the consumers withdraw and commit their offsets.
+     * @param crIndex the index of the consistent region
+     * @return the offsets by group-ID; the map is empty when no offsets have been published or more than one producer is registered.
+     */
+    public static synchronized Map<String, Map<TopicPartition, OffsetAndMetadata>> claim (int crIndex) {
+        if (producers.getOrDefault (crIndex, 0) > 1) {
+            trace.warn ("more than one transactional producer registered for consistent region " + crIndex + "; consumer offsets not claimed");
+            return new HashMap<>();
+        }
+        Map<String, Map<TopicPartition, OffsetAndMetadata>> claimed = offsets.remove (crIndex);
+        return claimed == null? new HashMap<>(): claimed;
+    }
+
+    /**
+     * Withdraws the published offsets of a consumer group, which have not yet been claimed by a producer.
+     * @param crIndex the index of the consistent region
+     * @param groupId the consumer group ID
+     * @return the unclaimed offsets or null, if no offsets have been published or the offsets have been claimed.
+     */
+    public static synchronized Map<TopicPartition, OffsetAndMetadata> withdraw (int crIndex, String groupId) {
+        Map<String, Map<TopicPartition, OffsetAndMetadata>> regionOffsets = offsets.get (crIndex);
+        if (regionOffsets == null) return null;
+        Map<TopicPartition, OffsetAndMetadata> groupOffsets = regionOffsets.remove (groupId);
+        if (regionOffsets.isEmpty()) offsets.remove (crIndex);
+        return groupOffsets;
+    }
+}
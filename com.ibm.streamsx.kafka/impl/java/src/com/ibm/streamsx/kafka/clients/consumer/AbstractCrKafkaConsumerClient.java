@@ -25,6 +25,8 @@ import com.ibm.streams.operator.state.Checkpoint;
 import com.ibm.streams.operator.state.ConsistentRegionContext;
 import com.ibm.streamsx.kafka.KafkaClientInitializationException;
 import com.ibm.streamsx.kafka.KafkaConfigurationException;
+import com.ibm.streamsx.kafka.MsgFormatter;
+import com.ibm.streamsx.kafka.clients.TransactionOffsetsExchange;
 import com.ibm.streamsx.kafka.clients.consumer.Event.EventType;
 import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
 
@@ -33,11 +35,12 @@ import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
  */
 public abstract class AbstractCrKafkaConsumerClient extends AbstractKafkaConsumerClient {
 
-    @SuppressWarnings("unused")
     private static final Logger tracer = Logger.getLogger(AbstractCrKafkaConsumerClient.class);
     private static final int MESSAGE_QUEUE_SIZE_MULTIPLIER = 100;
 
     private final ConsistentRegionContext crContext;
+    private boolean commitInProducerTransaction = false;
+    private boolean multipleProducersWarned = false;
 
     /**
      * Constructs a new AbstractCrKafkaConsumerClient and adjusts the Kafka properties for use in a consistent region.
@@ -76,6 +79,70 @@ public abstract class AbstractCrKafkaConsumerClient extends AbstractKafkaConsume
         return crContext;
     }
 
+    /**
+     * Enables or disables committing the offsets within the transaction of a transactional producer
+     * in the same consistent region.
+     * @param commitInProducerTransaction true enables, false disables the commit within the producer transaction
+     */
+    public void setCommitInProducerTransaction (boolean commitInProducerTransaction) {
+        this.commitInProducerTransaction = commitInProducerTransaction;
+    }
+
+    /**
+     * Commits the offsets on drain of the consistent region.
+     * When committing within a producer transaction is enabled and exactly one transactional producer of the same
+     * consistent region is fused into the same PE, the offsets are published to the producer, which commits them
+     * within its transaction. Otherwise, a commit event is sent to the event thread.
+     * @param offsets the offsets to commit
+     * @throws InterruptedException The thread waiting for finished condition has been interrupted.
+     * @see TransactionOffsetsExchange
+     */
+    protected void commitOffsetsOnDrain (CommitInfo offsets) throws InterruptedException {
+        final int nProducers = commitInProducerTransaction? TransactionOffsetsExchange.getNumProducers (crContext.getIndex()): 0;
+        if (nProducers == 1) {
+            tracer.log (DEBUG_LEVEL, "onDrain(): offsets published for commit within producer transaction");
+            TransactionOffsetsExchange.publish (crContext.getIndex(), getGroupId(), offsets.getMap());
+        }
+        else {
+            if (nProducers > 1 && !multipleProducersWarned) {
+                tracer.warn (MsgFormatter.format ("{0} transactional producers fused in consistent region {1}; offsets are not committed within a producer transaction",
+                        nProducers, crContext.getIndex()));
+                multipleProducersWarned = true;
+            }
+            sendCommitEvent (offsets);
+        }
+    }
+
+    /**
+     * Commits the offsets, which have been published on drain but have not been claimed by a transactional producer.
+     * This can happen when the producer has been closed before its checkpoint.
+     * The offsets are committed asynchronously.
+     */
+    protected void commitUnclaimedOffsets() {
+        if (!commitInProducerTransaction) return;
+        final Map<TopicPartition, OffsetAndMetadata> unclaimed = TransactionOffsetsExchange.withdraw (crContext.getIndex(), getGroupId());
+        if (unclaimed == null || unclaimed.isEmpty()) return;
+        tracer.warn (MsgFormatter.format ("offsets of {0} partitions not committed within a producer transaction; committing them now", unclaimed.size()));
+        CommitInfo offsets = new CommitInfo (false, false);
+        unclaimed.forEach ((tp, om) -> offsets.put (tp, om.offset()));
+        try {
+            sendCommitEvent (offsets);
+        } catch (InterruptedException e) {
+            tracer.log (DEBUG_LEVEL, "Interrupted committing offsets");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Discards the offsets, which have been published on drain but have not been claimed by a transactional producer.
+     * Subclasses that override {@link #onReset(Checkpoint)} or {@link #onResetToInitialState()} must call this method.
+     */
+    protected void discardUnclaimedOffsets() {
+        if (commitInProducerTransaction) {
+            TransactionOffsetsExchange.withdraw (crContext.getIndex(), getGroupId());
+        }
+    }
+
 
     /**
      * Starts the consumer and event thread for controlling the consistent region.
@@ -149,6 +216,7 @@ public abstract class AbstractCrKafkaConsumerClient extends AbstractKafkaConsume
      */
     @Override
     public void onReset (final Checkpoint checkpoint) throws InterruptedException {
+        discardUnclaimedOffsets();
         resetPrepareDataBeforeStopPolling (checkpoint);
         sendStopPollingEvent();
         resetPrepareDataAfterStopPolling (checkpoint);
@@ -166,6 +234,7 @@ public abstract class AbstractCrKafkaConsumerClient extends AbstractKafkaConsume
      */
     @Override
     public void onResetToInitialState() throws InterruptedException {
+        discardUnclaimedOffsets();
         sendStopPollingEvent();
         Event event = new Event(EventType.RESET_TO_INIT, true);
         sendEvent (event);
@@ -28,6 +28,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
@@ -36,6 +37,7 @@ import org.apache.kafka.clients.consumer.CommitFailedException;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
@@ -45,6 +47,7 @@ import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.RetriableException;
 import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.WakeupException;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
@@ -95,12 +98,24 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
     private KafkaConsumer<?, ?> consumer;
     private KafkaOperatorProperties kafkaProperties;
     private BlockingQueue<Event> eventQueue;
-    private BlockingQueue<ConsumerRecord<?, ?>> messageQueue;
+    private RecordBatchQueue messageQueue;
     private List <ConsumerRecord<?, ?>> drainBuffer;
     private final String groupId;
     private final boolean groupIdGenerated;
     private long pollTimeout = DEFAULT_CONSUMER_POLL_TIMEOUT_MS;
     private Object throttledPollWaitMonitor = new Object();
+    /** guards {@link #inPoll} and {@link #wakeupIssued} */
+    private final Object wakeupMonitor = new Object();
+    /** true while the polling thread is within {@link #pollAndEnqueue(long, boolean)} */
+    private boolean inPoll = false;
+    /** true when {@link KafkaConsumer#wakeup()} has been called for the current poll */
+    private boolean wakeupIssued = false;
+    /** the thread that runs the event loop and polls for records */
+    private Thread eventThread;
+    /** when not null, the polling thread submits the fetched records */
+    private RecordSubmitter directSubmitter = null;
+    /** offsets that the polling thread commits asynchronously before its next poll; newer offsets replace older ones */
+    private final AtomicReference<CommitInfo> pendingAsyncCommit = new AtomicReference<>();
     private int maxPollRecords;
     private long maxPollIntervalMs;
     private long lastPollTimestamp = 0;
@@ -108,6 +123,12 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
     private final long minAllocatableMemoryInitial;
     private long minAllocatableMemoryAdjusted;
     private final int memChkThresholdBatchSzMultiplier;
+    /** the byte budget of the message queue; 0 when the queue is bounded by the number of records and the free memory */
+    private long maxQueuedBytes = 0L;
+    /** fetching resumes when the queued bytes fall below this value */
+    private long queuedBytesLowWatermark = 0L;
+    /** partitions, for which fetching is paused because they occupy more than their share of the message queue */
+    private final Set<TopicPartition> partitionsPausedByShare = new HashSet<>();
 
     private AtomicBoolean processing;
     private Set<TopicPartition> assignedPartitions = new HashSet<>();
@@ -210,7 +231,7 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
         this.memChkThresholdBatchSzMultiplier = SystemProperties.getMemoryCheckThresholdMultiplier (0);
         eventQueue = new LinkedBlockingQueue<Event>();
         processing = new AtomicBoolean (false);
-        messageQueue = new LinkedBlockingQueue<ConsumerRecord<?, ?>> (getMessageQueueSizeMultiplier() * getMaxPollRecords());
+        messageQueue = new RecordBatchQueue (getMessageQueueSizeMultiplier() * getMaxPollRecords());
         drainBuffer = new ArrayList<ConsumerRecord<?, ?>> (messageQueue.remainingCapacity());
         this.nPendingMessages = operatorContext.getMetrics().getCustomMetric ("nPendingMessages");
         this.nLowMemoryPause = operatorContext.getMetrics().getCustomMetric ("nLowMemoryPause");
@@ -329,7 +350,7 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
             throw new KafkaClientInitializationException (e.getLocalizedMessage(), e);
         }
         consumerInitLatch = new CountDownLatch(1);
-        Thread eventThread = getOperatorContext().getThreadFactory().newThread(new Runnable() {
+        eventThread = getOperatorContext().getThreadFactory().newThread(new Runnable() {
 
             @Override
             public void run() {
@@ -416,6 +437,8 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
     private void runEventLoop() throws InterruptedException {
         logger.debug("Event loop started"); //$NON-NLS-1$
         while (processing.get()) {
+            // offsets handed over while polling was stopped
+            commitPendingAsyncOffsets();
             if (logger.isDebugEnabled()) {
                 logger.debug ("Checking event queue for control message ..."); //$NON-NLS-1$
             }
@@ -424,67 +447,78 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
             if (event == null) {
                 continue;
             }
-            logger.log (DEBUG_LEVEL, MsgFormatter.format ("runEventLoop() - processing event: {0}", event.getEventType().name()));
-            switch (event.getEventType()) {
-            case START_POLLING:
-                if (isSubscribedOrAssigned()) {
-                    StartPollingEventParameters p = (StartPollingEventParameters) event.getData();
-                    runPollLoop (p.getPollTimeoutMs(), p.getThrottlePauseMs());
-                }
-                break;
-            case STOP_POLLING:
-                event.countDownLatch();  // indicates that polling has stopped
-                break;
-            case CONTROLPORT_EVENT:
-                final ControlPortAction data = (ControlPortAction) event.getData();
-                try {
-                    processControlPortActionEvent (data);
-                } catch (Exception e) {
-                    nFailedControlTuples.increment();
-                    logger.error("The control processing '" + data + "' failed: " + e.getLocalizedMessage());
-                } finally {
-                    event.countDownLatch();
-                }
-                break;
-            case CHECKPOINT:
-                try {
-                    processCheckpointEvent ((Checkpoint) event.getData());
-                } finally {
-                    event.countDownLatch();
-                }
-                break;
-            case RESET:
-                try {
-                    processResetEvent ((Checkpoint) event.getData());
-                } finally {
-                    event.countDownLatch();
-                }
-                break;
-            case RESET_TO_INIT:
-                try {
-                    processResetToInitEvent();
-                } finally {
-                    event.countDownLatch();
-                }
-                break;
-            case SHUTDOWN:
-                try {
-                    shutdown();
-                } finally {
-                    event.countDownLatch();
-                }
-                break;
-            case COMMIT_OFFSETS:
-                try {
-                    commitOffsets ((CommitInfo) event.getData());
-                } finally {
-                    event.countDownLatch();
-                }
-                break;
-            default:
-                logger.error("runEventLoop(): Unexpected event received: " + event.getEventType());
-                break;
+            processEvent (event);
+        }
+    }
+
+    /**
+     * Processes an event. This method must be called by the event thread.
+     * Events that are inline capable can also be processed within the poll loop.
+     * @param event the event
+     * @throws InterruptedException the thread has been interrupted
+     * @see Event#isInlineCapable()
+     */
+    private void processEvent (Event event) throws InterruptedException {
+        logger.log (DEBUG_LEVEL, MsgFormatter.format ("processEvent() - processing event: {0}", event.getEventType().name()));
+        switch (event.getEventType()) {
+        case START_POLLING:
+            if (isSubscribedOrAssigned()) {
+                StartPollingEventParameters p = (StartPollingEventParameters) event.getData();
+                runPollLoop (p.getPollTimeoutMs(), p.getThrottlePauseMs());
+            }
+            break;
+        case STOP_POLLING:
+            event.countDownLatch();  // indicates that polling has stopped
+            break;
+        case CONTROLPORT_EVENT:
+            final ControlPortAction data = (ControlPortAction) event.getData();
+            try {
+                processControlPortActionEvent (data);
+            } catch (Exception e) {
+                nFailedControlTuples.increment();
+                logger.error("The control processing '" + data + "' failed: " + e.getLocalizedMessage());
+            } finally {
+                event.countDownLatch();
+            }
+            break;
+        case CHECKPOINT:
+            try {
+                processCheckpointEvent ((Checkpoint) event.getData());
+            } finally {
+                event.countDownLatch();
+            }
+            break;
+        case RESET:
+            try {
+                processResetEvent ((Checkpoint) event.getData());
+            } finally {
+                event.countDownLatch();
             }
+            break;
+        case RESET_TO_INIT:
+            try {
+                processResetToInitEvent();
+            } finally {
+                event.countDownLatch();
+            }
+            break;
+        case SHUTDOWN:
+            try {
+                shutdown();
+            } finally {
+                event.countDownLatch();
+            }
+            break;
+        case COMMIT_OFFSETS:
+            try {
+                commitOffsets ((CommitInfo) event.getData());
+            } finally {
+                event.countDownLatch();
+            }
+            break;
+        default:
+            logger.error("processEvent(): Unexpected event received: " + event.getEventType());
+            break;
         }
     }
 
@@ -573,6 +607,58 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
     }
 
 
+    /**
+     * Hands over offsets to the thread that polls for messages. This thread commits the offsets asynchronously
+     * before its next `poll`, without stopping the poll loop. When offsets are handed over before previous offsets have been committed,
+     * the previous offsets are replaced, so that only the most recent offsets are committed.
+     * The offsets should be committed all together with one server request, i.e. `offsets.isCommitPartitionWise()` should be false.
+     * When polling is stopped, the offsets are committed by the event thread before it processes the next event.
+     * 
+     * @param offsets the offsets to commit. The offsets must be the last processed offsets +1. 
+     *                The flag for synchronous commit is ignored.
+     */
+    public void commitAsyncBetweenPolls (CommitInfo offsets) {
+        final CommitInfo previous = pendingAsyncCommit.getAndSet (offsets);
+        if (previous != null && logger.isEnabledFor (DEBUG_LEVEL)) {
+            logger.log (DEBUG_LEVEL, "not yet committed offsets replaced by more recent offsets: " + previous);
+        }
+    }
+
+    /**
+     * Discards the offsets, which have been handed over by {@link #commitAsyncBetweenPolls(CommitInfo)}, but are not yet committed.
+     * This method must be invoked when the offsets become invalid, for example when partitions are revoked,
+     * so that outdated offsets are not committed after a later partition assignment.
+     */
+    protected void discardPendingAsyncCommit() {
+        final CommitInfo discarded = pendingAsyncCommit.getAndSet (null);
+        if (discarded != null && logger.isEnabledFor (DEBUG_LEVEL)) {
+            logger.log (DEBUG_LEVEL, "not yet committed offsets discarded: " + discarded);
+        }
+    }
+
+    /**
+     * Commits the offsets, which have been handed over by {@link #commitAsyncBetweenPolls(CommitInfo)}, asynchronously.
+     * This method must only be invoked by the thread that runs the poll loop.
+     */
+    private void commitPendingAsyncOffsets() {
+        final CommitInfo offsets = pendingAsyncCommit.getAndSet (null);
+        if (offsets == null) return;
+        final Map<TopicPartition, OffsetAndMetadata> map = new HashMap<> (offsets.getMap().size());
+        final Set <TopicPartition> currentAssignment = getConsumer().assignment();
+        offsets.getMap().forEach ((tp, offsMeta) -> {
+            // we can only commit assigned partitions
+            if (currentAssignment.contains (tp)) map.put (tp, offsMeta);
+        });
+        if (map.isEmpty()) {
+            logger.log (DEBUG_LEVEL, "no offsets to commit ... (partitions not assigned)");
+            return;
+        }
+        if (logger.isEnabledFor (DEBUG_LEVEL)) {
+            logger.log (DEBUG_LEVEL, "committing offsets between polls: " + map);
+        }
+        consumer.commitAsync (map, this);
+    }
+
     /**
      * This method is a hook which is called <b>after <i>successful</i> commit</b> of offsets.
      * When offsets are committed synchronous, the hook is called within the thread that committed the offsets,
@@ -692,6 +778,55 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
     }
 
 
+    /**
+     * Gets the next batch of consumer records that have been received. If there are no records, the method waits the specified timeout.
+     * A batch contains typically the records of one `poll`. The batch is taken from the message queue with one single lock acquisition.
+     * While the records of the batch are submitted, the caller must check {@link #isBatchValid()} before each record.
+     * @param timeout    the timeout to wait for records
+     * @param timeUnit   the unit of time for the timeout
+     * @return the next batch of consumer records or `null` if there were no records within the timeout.
+     * @throws InterruptedException The thread waiting for records has been interrupted.
+     *
+     * @see com.ibm.streamsx.kafka.clients.consumer.ConsumerClient#getNextBatch(long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public List<ConsumerRecord<?, ?>> getNextBatch (long timeout, TimeUnit timeUnit) throws InterruptedException {
+        preDeQueueForSubmit();
+        // when we are here, the previous batch has been processed completely or has been abandoned
+        if (messageQueue.isEmpty()) {
+            msgQueueLock.lock();
+            msgQueueProcessed.set (true);
+            msgQueueEmptyCondition.signalAll();
+            msgQueueLock.unlock();
+        }
+        else {
+            msgQueueProcessed.set (false);
+        }
+        List<ConsumerRecord<?, ?>> batch = messageQueue.pollBatch (timeout, timeUnit);
+        if (batch == null) {
+            if (logger.isTraceEnabled()) logger.trace("getNextBatch(): message queue is empty");
+            nPendingMessages.setValue (messageQueue.size());
+            msgQueueProcessed.set (true);
+        }
+        else {
+            msgQueueProcessed.set (false);
+        }
+        return batch;
+    }
+
+
+    /**
+     * Tests whether the records of the batch, which has been returned by the last call of {@link #getNextBatch(long, TimeUnit)},
+     * can still be submitted. A batch becomes invalid when the message queue is cleared, for example on partition revocation or reset.
+     * @return true, if the message queue has not been cleared since the batch has been taken, false otherwise.
+     * @see com.ibm.streamsx.kafka.clients.consumer.ConsumerClient#isBatchValid()
+     */
+    @Override
+    public boolean isBatchValid() {
+        return messageQueue.isTakenBatchValid();
+    }
+
+
     /**
      * drains the message queue into a buffer.
      * The content of the buffer is enqueued when polling for records is initiated, before records are read from Kafka.
@@ -732,11 +867,16 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
 
     /**
      * Waits that the message queue becomes empty and has been processed by the tuple producer thread.
+     * When the polling thread submits the records, the records are submitted when this method is called by the polling thread.
      * This method should not be called, when filling the queue with new messages has not been stopped before.
      * @throws InterruptedException The waiting thread has been interrupted waiting
      */
     protected void awaitMessageQueueProcessed() throws InterruptedException {
         final long start = System.nanoTime(); 
+        if (directSubmitter != null && Thread.currentThread() == eventThread) {
+            // nobody else submits the queued records; submit all of them, also when events are pending
+            submitQueuedRecords (Long.MAX_VALUE);
+        }
         msgQueueLock.lock();
         try {
             while (!(messageQueue.isEmpty() && msgQueueProcessed.get())) {
@@ -755,7 +895,7 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
      * Gets a reference to the message queue for received Kafka messages.
      * @return the messageQueue
      */
-    public BlockingQueue<ConsumerRecord<?, ?>> getMessageQueue() {
+    public RecordBatchQueue getMessageQueue() {
         return messageQueue;
     }
 
@@ -791,11 +931,14 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
                 logger.log (DEBUG_LEVEL, MsgFormatter.format ("runPollLoop(): {0,number,#} consumer records added from drain buffer to the message queue. Message queue size is {1,number,#} now.", bufSz, qSize));
             }
         }
-        // continue polling for messages until a new event
-        // arrives in the event queue
-        fetchPaused = consumer.paused().size() > 0;
+        // continue polling for messages until an event arrives in the event queue
+        // that cannot be processed between two polls
+        fetchPaused = isFetchPausedForAll();
         logger.log (DEBUG_LEVEL, "previously paused partitions: " + consumer.paused());
-        while (eventQueue.isEmpty()) {
+        while (true) {
+            if (!processInlineEvents (pollTimeout, throttleSleepMillis)) {
+                break;
+            }
             boolean doPoll = true;
             // can wait for 100 ms; throws InterruptedException:
             try {
@@ -808,6 +951,7 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
             }
             if (doPoll) {
                 try {
+                    commitPendingAsyncOffsets();
                     final long now = System.currentTimeMillis();
                     final long timeBetweenPolls = now -lastPollTimestamp;
                     if (lastPollTimestamp > 0) {
@@ -820,7 +964,18 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
                         }
                     }
                     lastPollTimestamp = System.currentTimeMillis();
-                    EnqueResult r = pollAndEnqueue (pollTimeout, throttleSleepMillis > 0l);
+                    final EnqueResult r;
+                    boolean wokenUp = false;
+                    try {
+                        beginPoll();
+                        r = pollAndEnqueue (pollTimeout, throttleSleepMillis > 0l);
+                    } catch (WakeupException e) {
+                        // an event has been sent while polling; no records have been fetched
+                        wokenUp = true;
+                        continue;
+                    } finally {
+                        endPoll (wokenUp);
+                    }
                     final int nMessages = r.getNumRecords();
                     if (nMessages > 0) {
                         pollExcFilter.reset();
@@ -832,7 +987,9 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
                         logger.log (l, MsgFormatter.format ("{0,number,#} records with total {1,number,#}/{2,number,#}/{3,number,#} bytes (key/value/sum) fetched and enqueued",
                                 nMessages, r.getSumKeySize(), r.getSumValueSize(), nQueuedBytes));
                     }
-                    tryAdjustMinFreeMemory (nQueuedBytes, nMessages);
+                    if (maxQueuedBytes <= 0L) {
+                        tryAdjustMinFreeMemory (nQueuedBytes, nMessages);
+                    }
                     nPendingMessages.setValue (messageQueue.size());
                     if (throttleSleepMillis > 0l) {
                         synchronized (throttledPollWaitMonitor) {
@@ -859,8 +1016,116 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
                     }
                 }
             }
+            if (directSubmitter != null) {
+                // leave enough time for the next poll within max.poll.interval.ms
+                final long deadline = (lastPollTimestamp > 0? lastPollTimestamp: System.currentTimeMillis()) + maxPollIntervalMs / 2;
+                submitQueuedRecords (deadline);
+            }
+        }
+        logger.debug("Stop polling. Message in event queue: " + eventQueue.peek()); //$NON-NLS-1$
+    }
+
+    /**
+     * Submits the records from the message queue by the calling thread using the direct submitter.
+     * Submission stops when the deadline has passed or when an event has been sent. Remaining records stay queued.
+     * With a deadline of Long.MAX_VALUE, the message queue is submitted completely and pending events are ignored.
+     * The offset commit policy is applied as when the records are de-queued by the tuple producer thread.
+     * @param deadline the time in milliseconds since epoch after which no further batch is submitted.
+     * @throws InterruptedException the thread has been interrupted
+     */
+    private void submitQueuedRecords (long deadline) throws InterruptedException {
+        List<ConsumerRecord<?, ?>> batch;
+        while ((batch = getNextBatch (0l, TimeUnit.MILLISECONDS)) != null) {
+            try {
+                directSubmitter.submit (this, batch);
+            } catch (InterruptedException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new KafkaOperatorRuntimeException ("tuple submission failed: " + e, e);
+            }
+            if (deadline == Long.MAX_VALUE) {
+                continue;
+            }
+            if (System.currentTimeMillis() >= deadline || !eventQueue.isEmpty()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Processes the events at the head of the event queue that can be processed between two polls.
+     * A START_POLLING event with the parameters of the running poll loop is also consumed.
+     * This method must be called by the event thread within the poll loop.
+     * @param pollTimeout          the poll timeout of the running poll loop
+     * @param throttleSleepMillis  the throttle sleep time of the running poll loop
+     * @return true, if the poll loop can continue, false if the poll loop must be left.
+     * @throws InterruptedException the thread has been interrupted
+     */
+    private boolean processInlineEvents (long pollTimeout, long throttleSleepMillis) throws InterruptedException {
+        Event event;
+        boolean processed = false;
+        while ((event = eventQueue.peek()) != null) {
+            if (event.getEventType() == EventType.START_POLLING && ((StartPollingEventParameters) event.getData()).matches (pollTimeout, throttleSleepMillis)) {
+                // already polling with the same parameters
+                eventQueue.remove();
+                continue;
+            }
+            if (!event.isInlineCapable()) {
+                return false;
+            }
+            eventQueue.remove();
+            processEvent (event);
+            processed = true;
+        }
+        return !processed || isSubscribedOrAssigned();
+    }
+
+    /**
+     * Marks the begin of a poll. From now on, sending an event wakes up the consumer when wakeup is enabled.
+     */
+    private void beginPoll() {
+        synchronized (wakeupMonitor) {
+            inPoll = true;
+            wakeupIssued = false;
         }
-        logger.debug("Stop polling. Message in event queue: " + eventQueue.peek().getEventType()); //$NON-NLS-1$
+    }
+
+    /**
+     * Marks the end of a poll.
+     * When {@link KafkaConsumer#wakeup()} has been called, but the poll returned before the wakeup became effective,
+     * the pending wakeup is consumed, so that it cannot interrupt a subsequent blocking consumer operation, like commitSync().
+     * @param wakeupConsumed true, if the poll has been terminated by a {@link WakeupException}
+     */
+    private void endPoll (boolean wakeupConsumed) {
+        final boolean wakeupPending;
+        synchronized (wakeupMonitor) {
+            inPoll = false;
+            wakeupPending = wakeupIssued && !wakeupConsumed;
+            wakeupIssued = false;
+        }
+        if (!wakeupPending) return;
+        try {
+            // a pending wakeup is triggered before anything is fetched
+            ConsumerRecords<?, ?> records = consumer.poll (Duration.ZERO);
+            // no pending wakeup; this should not happen. Rewind to not lose the records.
+            for (TopicPartition tp: records.partitions()) {
+                final long offset = records.records (tp).get (0).offset();
+                logger.warn (MsgFormatter.format ("endPoll(): rewinding {0} to offset {1,number,#}", tp, offset));
+                consumer.seek (tp, offset);
+            }
+        } catch (WakeupException e) {
+            logger.trace ("endPoll(): pending wakeup consumed");
+        }
+    }
+
+    /**
+     * Tests whether the consumer can be woken up from a blocking poll when an event is sent.
+     * Clients that run blocking consumer operations within a {@link ConsumerRebalanceListener}
+     * must not be woken up as the wakeup would interrupt the rebalance callback.
+     * @return true. Subclasses override this method to return false.
+     */
+    protected boolean isWakeupOnEventEnabled() {
+        return true;
     }
 
     /**
@@ -910,7 +1175,7 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
      */
     protected void checkSpaceInMessageQueueAndPauseFetching (boolean resetPausedState) throws IllegalStateException, InterruptedException {
         if (resetPausedState) {
-            fetchPaused = consumer.paused().size() > 0;
+            fetchPaused = isFetchPausedForAll();
         }
         if (!isSpaceInMsgQueueWait()) {
             if (!fetchPaused) {
@@ -924,7 +1189,14 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
             if (fetchPaused) {
                 try {
                     // when not paused, 'resumed' is a no-op
-                    consumer.resume (assignedPartitions);
+                    if (partitionsPausedByShare.isEmpty()) {
+                        consumer.resume (assignedPartitions);
+                    }
+                    else {
+                        final Set<TopicPartition> resume = new HashSet<> (assignedPartitions);
+                        resume.removeAll (partitionsPausedByShare);
+                        consumer.resume (resume);
+                    }
                     if (logger.isEnabledFor (DEBUG_LEVEL)) logger.log (DEBUG_LEVEL, "runPollLoop() - fetching resumed");
                     fetchPaused = false;
                 }
@@ -932,6 +1204,69 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
                     logger.warn ("runPollLoop(): " + e.getLocalizedMessage());
                 }
             }
+            if (!fetchPaused && assignedPartitions.size() > 1) {
+                pauseOrResumePartitionsByShare();
+            }
+        }
+    }
+
+    /**
+     * Tests whether fetching is paused for all partitions, not only for partitions that exceed their share of the message queue.
+     * Partitions that are not paused any more, for example after a rebalance, are removed from {@link #partitionsPausedByShare}.
+     * @return true, if there are paused partitions, which are not paused because of exceeding their share, false otherwise.
+     */
+    private boolean isFetchPausedForAll() {
+        final Set<TopicPartition> paused = consumer.paused();
+        partitionsPausedByShare.retainAll (paused);
+        return paused.size() > partitionsPausedByShare.size();
+    }
+
+    /**
+     * Pauses fetching for single partitions, which occupy more than their share of the message queue, and resumes fetching
+     * for them when they occupy less than half of their share. The share of a partition is the capacity of the queue,
+     * or the byte budget, divided by the number of assigned partitions. Partitions are paused only when the queue is filled by half or more,
+     * so that a single partition can use the whole queue as long as the other partitions have nothing to fetch.
+     */
+    private void pauseOrResumePartitionsByShare() {
+        final boolean inBytes = maxQueuedBytes > 0L;
+        final long limit = inBytes? maxQueuedBytes: messageQueue.getCapacity();
+        final long queued = inBytes? messageQueue.sizeInBytes(): messageQueue.size();
+        partitionsPausedByShare.retainAll (assignedPartitions);
+        if (queued < limit / 2L && partitionsPausedByShare.isEmpty()) {
+            return;
+        }
+        final long share = limit / assignedPartitions.size();
+        final Map<TopicPartition, Long> partitionSizes = messageQueue.getPartitionSizes (inBytes);
+        List<TopicPartition> pause = null;
+        List<TopicPartition> resume = null;
+        for (TopicPartition tp: assignedPartitions) {
+            final Long n = partitionSizes.get (tp);
+            final long partitionQueued = n == null? 0L: n.longValue();
+            if (partitionsPausedByShare.contains (tp)) {
+                if (partitionQueued < share / 2L) {
+                    if (resume == null) resume = new ArrayList<>();
+                    resume.add (tp);
+                }
+            }
+            else if (queued >= limit / 2L && partitionQueued >= share) {
+                if (pause == null) pause = new ArrayList<>();
+                pause.add (tp);
+            }
+        }
+        try {
+            if (pause != null) {
+                consumer.pause (pause);
+                partitionsPausedByShare.addAll (pause);
+                if (logger.isEnabledFor (DEBUG_LEVEL)) logger.log (DEBUG_LEVEL, "runPollLoop() - fetching paused for partitions exceeding their share: " + pause);
+            }
+            if (resume != null) {
+                consumer.resume (resume);
+                partitionsPausedByShare.removeAll (resume);
+                if (logger.isEnabledFor (DEBUG_LEVEL)) logger.log (DEBUG_LEVEL, "runPollLoop() - fetching resumed for partitions: " + resume);
+            }
+        }
+        catch (IllegalStateException e) {
+            logger.warn ("runPollLoop(): " + e.getLocalizedMessage());
         }
     }
 
@@ -943,6 +1278,9 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
      * @throws InterruptedException Thread interrupted while waiting.
      */
     private boolean isSpaceInMsgQueueWait() throws InterruptedException {
+        if (maxQueuedBytes > 0L) {
+            return isSpaceInByteBudgetWait();
+        }
         final int mqSize = messageQueue.size();
         // assume, N batches go always into the queue without memory check;
         // N can be tweaked with a java property, and can also be 0
@@ -983,6 +1321,36 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
         return space;
     }
 
+    /**
+     * Checks the byte budget of the message queue and waits up to 100 ms if the budget is exhausted.
+     * When fetching is paused, there is space again when the queued bytes fall below the low watermark.
+     * The free memory of the JVM is not considered.
+     * Maintains the metrics `nPendingMessages` and `nQueueFullPause`.
+     * 
+     * @throws InterruptedException Thread interrupted while waiting.
+     */
+    private boolean isSpaceInByteBudgetWait() throws InterruptedException {
+        final int mqSize = messageQueue.size();
+        final long queuedBytes = messageQueue.sizeInBytes();
+        final boolean hasCapacity = messageQueue.remainingCapacity() >= maxPollRecords;
+        final boolean space = hasCapacity && queuedBytes < (fetchPaused? queuedBytesLowWatermark: maxQueuedBytes);
+        if (!space) {
+            if (logger.isEnabledFor (DEBUG_LEVEL)) {
+                logger.log (DEBUG_LEVEL, MsgFormatter.format ("message queue: {0,number,#} records with {1,number,#} bytes queued; byte budget = {2,number,#}; low watermark = {3,number,#}",
+                        mqSize, queuedBytes, maxQueuedBytes, queuedBytesLowWatermark));
+            }
+            nPendingMessages.setValue (mqSize);
+            nQueueFullPause.increment();
+            try {
+                msgQueueLock.lock();
+                msgQueueEmptyCondition.await (100, TimeUnit.MILLISECONDS);
+            } finally {
+                msgQueueLock.unlock();
+            }
+        }
+        return space;
+    }
+
     /**
      * @return the timeout for polling for Kafka messages in milliseconds. The default value is {@value #DEFAULT_CONSUMER_POLL_TIMEOUT_MS}.
      */
@@ -997,6 +1365,40 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
         this.pollTimeout = pollTimeout;
     }
 
+    /**
+     * Sets a byte budget for the message queue. Fetching is paused when the serialized key and value sizes
+     * of the queued records reach the budget, and resumed when they fall below half of the budget.
+     * As the budget is checked before each poll, one poll can exceed the budget by up to `fetch.max.bytes`.
+     * @param maxQueuedBytes the budget in bytes. 0 disables the byte budget; the queue is then bounded by the number
+     *                       of records and the free memory of the JVM.
+     */
+    public void setMaxQueuedBytes (long maxQueuedBytes) {
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.queuedBytesLowWatermark = maxQueuedBytes / 2L;
+    }
+
+    /**
+     * Enables or disables fair submission of the records of different partitions.
+     * When enabled, the records are taken round-robin from the partitions for tuple submission,
+     * otherwise in the order they have been fetched.
+     * This method must be called before {@link #startConsumer()}.
+     * @param fair true enables fair submission
+     */
+    public void setFairPartitionSubmission (boolean fair) {
+        if (fair != messageQueue.isFair()) {
+            messageQueue = new RecordBatchQueue (messageQueue.getCapacity(), fair? getMaxPollRecords(): 0);
+        }
+    }
+
+    /**
+     * Sets the submitter that the polling thread uses to submit the fetched records.
+     * When not set, the records are de-queued by the tuple producer thread via {@link #getNextBatch(long, TimeUnit)}.
+     * @param submitter the submitter or null
+     */
+    public void setDirectSubmitter (RecordSubmitter submitter) {
+        this.directSubmitter = submitter;
+    }
+
     /**
      * @return the consumer object. This method must not be called before {@link #startConsumer()} succeeded.
      */
@@ -1043,9 +1445,28 @@ public abstract class AbstractKafkaConsumerClient extends AbstractKafkaClient im
      * @param event the event
      */
     protected void sendEvent (Event event) {
+        if (Thread.currentThread() == eventThread && event.isInlineCapable()) {
+            // sent while the polling thread submits tuples, for example from a control port fed within the PE.
+            // Waiting for the event would block forever.
+            logger.debug (MsgFormatter.format("Processing event sent by the event thread: {0}", event));
+            try {
+                processEvent (event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
         logger.debug (MsgFormatter.format("Sending event: {0}", event));
         eventQueue.add (event);
         logger.debug(MsgFormatter.format("Event {0} inserted into queue, q={1}", event, eventQueue));
+        if (isWakeupOnEventEnabled()) {
+            synchronized (wakeupMonitor) {
+                if (inPoll && !wakeupIssued) {
+                    consumer.wakeup();
+                    wakeupIssued = true;
+                }
+            }
+        }
         synchronized (throttledPollWaitMonitor) {
             throttledPollWaitMonitor.notifyAll();
         }
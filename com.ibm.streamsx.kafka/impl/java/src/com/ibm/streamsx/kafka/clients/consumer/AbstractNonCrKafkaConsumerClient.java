@@ -16,12 +16,15 @@ package com.ibm.streamsx.kafka.clients.consumer;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanServerConnection;
@@ -45,6 +48,7 @@ import com.ibm.streamsx.kafka.KafkaConfigurationException;
 import com.ibm.streamsx.kafka.MissingJobControlPlaneException;
 import com.ibm.streamsx.kafka.MsgFormatter;
 import com.ibm.streamsx.kafka.clients.OffsetManager;
+import com.ibm.streamsx.kafka.clients.PartitionOffsetTracker;
 import com.ibm.streamsx.kafka.i18n.Messages;
 import com.ibm.streamsx.kafka.operators.AbstractKafkaConsumerOperator;
 import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
@@ -62,9 +66,12 @@ public abstract class AbstractNonCrKafkaConsumerClient extends AbstractKafkaCons
     private CommitMode commitMode;
     private long commitPeriodMillis = 10000;
     private long commitCount = 2000l; 
-    private long nSubmittedRecords = 0l;
+    private boolean commitCoalesced = false;
+    private final LongAdder nSubmittedRecords = new LongAdder();
     private long nextCommitTime = 0l;
     private OffsetManager offsetManager = null;
+    /** offsets of submitted records, which are not yet transferred into the offsetManager */
+    private final PartitionOffsetTracker submittedOffsets = new PartitionOffsetTracker (/*autoRegister=*/true);
     /** Start position where each subscribed topic is consumed from */
     private StartPosition initialStartPosition = StartPosition.Default;
     private final CheckpointContext chkptContext;
@@ -213,13 +220,24 @@ public abstract class AbstractNonCrKafkaConsumerClient extends AbstractKafkaCons
     }
 
     /**
-     * Get the offsetManager instance
+     * Get the offsetManager instance. The offsets of submitted records are transferred into the offset manager before it is returned.
      * @return the offsetManager
      */
     protected OffsetManager getOffsetManager() {
+        submittedOffsets.transferTo (offsetManager);
         return offsetManager;
     }
 
+    /**
+     * Removes all mappings from the offsetManager and discards the offsets of submitted records, which are not yet transferred into the offset manager.
+     * Offsets, which have been handed over for an asynchronous commit between polls, are discarded, too.
+     */
+    protected void clearOffsetManager() {
+        submittedOffsets.clear();
+        offsetManager.clear();
+        discardPendingAsyncCommit();
+    }
+
     /**
      * Resets the commit period, either tuple counter or next time period due time.
      * @param now current time
@@ -236,7 +254,7 @@ public abstract class AbstractNonCrKafkaConsumerClient extends AbstractKafkaCons
             ;
             //ignore
         }
-        this.nSubmittedRecords = 0l;
+        this.nSubmittedRecords.reset();
     }
 
     /**
@@ -271,6 +289,15 @@ public abstract class AbstractNonCrKafkaConsumerClient extends AbstractKafkaCons
         this.commitPeriodMillis = period;
     }
 
+    /**
+     * @param coalesced when true, the offsets of all partitions are committed with a single asynchronous server request
+     *                  by the polling thread between two polls. When false, offsets are committed partition by partition, 
+     *                  and the poll loop is stopped for committing.
+     */
+    public void setCommitCoalesced (boolean coalesced) {
+        this.commitCoalesced = coalesced;
+    }
+
     /**
      * @param mode the commit mode to set
      */
@@ -320,7 +347,7 @@ public abstract class AbstractNonCrKafkaConsumerClient extends AbstractKafkaCons
             }
             break;
         case TupleCount:
-            doCommit = nSubmittedRecords  >= commitCount;
+            doCommit = nSubmittedRecords.sum() >= commitCount;
             if (doCommit && trace.isDebugEnabled()) {
                 trace.log (DEBUG_LEVEL, "commitCount (" + commitCount + ") reached. Preparing to commit offsets ...");
             }
@@ -329,28 +356,34 @@ public abstract class AbstractNonCrKafkaConsumerClient extends AbstractKafkaCons
             doCommit = false;
         }
         if (doCommit) {
-            // commit asynchronous, partition by partition.
+            // commit asynchronous, partition by partition, or all partitions together when coalesced.
             // asynchronous commit implies that the operator is not restarted when commit fails.
             final boolean commitSync = false;
-            final boolean commitPartitionWise = true;
+            final boolean commitPartitionWise = !commitCoalesced;
             CommitInfo offsets = new CommitInfo (commitSync, commitPartitionWise);
 
+            submittedOffsets.transferTo (offsetManager);
             synchronized (offsetManager) {
                 for (TopicPartition tp: offsetManager.getMappedTopicPartitions()) {
                     offsets.put (tp, offsetManager.getOffset(tp.topic(), tp.partition()));
                 }
             }
+            if (commitCoalesced) {
+                // the polling thread commits with one request before its next poll; polling continues.
+                if (!offsets.isEmpty()) {
+                    commitAsyncBetweenPolls (offsets);
+                }
+                resetCommitPeriod (now);
+                return;
+            }
             try {
                 if (!offsets.isEmpty()) {
-                    // sendCommitEvent terminates the poll loop, throws InterruptedException:
+                    // the commit is processed between two polls; polling continues. throws InterruptedException:
                     sendCommitEvent (offsets);
                     // when committing offsets for one partition fails, the reason can be that we are not 
                     // assigned to the partition any more when building a consumer group.
                     // Then a different (or the same) consumer starts reading the records again creating duplicates within the application.
                     // This is normal Kafka methodology.
-                    if (isSubscribedOrAssigned()) {
-                        sendStartPollingEvent();
-                    }
                 }
             } catch (InterruptedException e) {
                 // is not thrown when asynchronously committed; can be silently ignored.
@@ -363,25 +396,17 @@ public abstract class AbstractNonCrKafkaConsumerClient extends AbstractKafkaCons
     }
 
     /**
-     * This implementation counts submitted tuples (for commit) and stores the offsets of submitted tuples in the 'offsetManager'. 
+     * This implementation counts submitted tuples (for commit) and tracks the offsets of submitted tuples.
+     * The offsets are transferred into the 'offsetManager' when they are needed. 
+     * This method is thread-safe for records of different topic partitions.
      * @see com.ibm.streamsx.kafka.clients.consumer.ConsumerClient#postSubmit(org.apache.kafka.clients.consumer.ConsumerRecord)
      */
     @Override
     public void postSubmit (ConsumerRecord<?, ?> submittedRecord) {
-        ++nSubmittedRecords;
         // collect submitted offsets per topic partition for periodic commit.
-        try {
-            synchronized (offsetManager) {
-                final String topic = submittedRecord.topic();
-                final int partition = submittedRecord.partition();
-                offsetManager.savePosition (topic, partition, submittedRecord.offset() +1l, /*autoCreateTopci=*/true);
-            }
-        } catch (Exception e) {
-            // is not caught when autoCreateTopic is 'true'
-            trace.error(e.getLocalizedMessage());
-            e.printStackTrace();
-            throw new RuntimeException (e);
-        }
+        // postSubmit can be called by multiple tuple submitter threads for different partitions.
+        nSubmittedRecords.increment();
+        submittedOffsets.set (submittedRecord.topic(), submittedRecord.partition(), submittedRecord.offset() +1l);
     }
 
 
@@ -396,6 +421,7 @@ public abstract class AbstractNonCrKafkaConsumerClient extends AbstractKafkaCons
         if (trace.isTraceEnabled() && numRecords == 0) trace.trace("# polled records: " + (records == null? "0 (records == null)": "0"));
         EnqueResult r = new EnqueResult (numRecords);
         if (numRecords > 0) {
+            final List<ConsumerRecord<?, ?>> batch = new ArrayList<> (numRecords);
             records.forEach(cr -> {
                 if (trace.isTraceEnabled()) {
                     trace.trace (cr.topic() + "-" + cr.partition() + " key=" + cr.key() + " - offset=" + cr.offset()); //$NON-NLS-1$
@@ -404,8 +430,9 @@ public abstract class AbstractNonCrKafkaConsumerClient extends AbstractKafkaCons
                 final int ksz = cr.serializedKeySize();
                 if (vsz > 0) r.incrementSumValueSize (vsz);
                 if (ksz > 0) r.incrementSumKeySize (ksz);
-                getMessageQueue().add (cr);
+                batch.add (cr);
             });
+            getMessageQueue().addBatch (batch);
         }
         return r;
     }
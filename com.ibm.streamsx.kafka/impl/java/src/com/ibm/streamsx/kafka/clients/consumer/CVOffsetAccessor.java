@@ -16,7 +16,9 @@ package com.ibm.streamsx.kafka.clients.consumer;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.kafka.common.TopicPartition;
 import org.apache.log4j.Logger;
@@ -48,6 +50,8 @@ public class CVOffsetAccessor {
 
     private Map <TopicPartition, ControlVariableAccessor <Long>> cvMap = new HashMap<>();
     private Map <TopicPartition, Long> cache = new HashMap<>();
+    /** partitions read without valid offset by the last {@link #createOffsetMap(Collection)}; consumed by {@link #saveOffsets(Map)} */
+    private Set <TopicPartition> readWithoutOffset = new HashSet<>();
 
     /**
      * Constructs a new CVOffsetAccessor instance
@@ -147,6 +151,49 @@ public class CVOffsetAccessor {
         return previousVal;
     }
 
+    /**
+     * Saves the offsets for multiple topic partitions in control variables.
+     * Valid offsets, which exist already, are never overwritten. Control variables, which have been read without a valid offset
+     * by the last call of {@link #createOffsetMap(Collection)}, are written without syncing them again,
+     * so that only one JCP request per partition is required. For all other partitions, {@link #saveOffset(TopicPartition, long, boolean)}
+     * is used with `overwriteValidOffset` set to `false`, which syncs the control variable before it is written, as
+     * another consumer may have saved an offset since the partition has been read.
+     * After this call, all partitions must be read again by {@link #createOffsetMap(Collection)} to be written without sync.
+     *
+     * @param offsets the offsets by topic partition
+     * @throws InterruptedException Thread interrupted syncing a CV
+     * @throws IOException Setting the value in a CV failed
+     * @throws IllegalArgumentException an offset is < 0
+     */
+    public synchronized void saveOffsets (final Map<TopicPartition, Long> offsets) throws InterruptedException, IOException {
+        trace.info (MsgFormatter.format ("saveOffsets: {0} partitions", offsets.size()));
+        try {
+            for (Map.Entry<TopicPartition, Long> e: offsets.entrySet()) {
+                final TopicPartition tp = e.getKey();
+                final long offset = e.getValue().longValue();
+                if (offset < 0) throw new IllegalArgumentException ("offset == " + offset);
+                final Long cached = cache.get (tp);
+                final ControlVariableAccessor <Long> cv = cvMap.get (tp);
+                if (cached != null && cached.longValue() != NO_OFFSET) {
+                    // valid offset present; not overwritten
+                    continue;
+                }
+                if (cv != null && readWithoutOffset.contains (tp)) {
+                    // CV read by the last createOffsetMap without valid offset
+                    cv.setValue (new Long (offset + OFFSET_WORKAROUND_ZERO));
+                    cache.put (tp, new Long (offset));
+                    trace.debug (MsgFormatter.format ("offset {0,number,#} saved in CV {1} and cached for TP {2}", offset, cv.getName(), tp));
+                }
+                else {
+                    saveOffset (tp, offset, false);
+                }
+            }
+        }
+        finally {
+            readWithoutOffset.clear();
+        }
+    }
+
     /**
      * Gets an offset for a topic partition.
      *
@@ -157,7 +204,8 @@ public class CVOffsetAccessor {
     public synchronized long getOffset (final TopicPartition tp) throws InterruptedException, IOException {
         trace.info (MsgFormatter.format ("getOffset: {0}", tp));
         Long offs = cache.get (tp);
-        if (offs != null) {
+        // a cached NO_OFFSET can be outdated when the partition has been assigned to another consumer in the meantime
+        if (offs != null && offs.longValue() != NO_OFFSET) {
             trace.info (MsgFormatter.format ("offset for {0} cached: {1,number,#}", tp, offs));
             return offs.longValue();
         }
@@ -177,7 +225,8 @@ public class CVOffsetAccessor {
 
     /**
      * Creates a map that maps topic partitions to offsets in the control variables.
-     * For partitions that have no initial offset, no mapping is created.
+     * For partitions that have no initial offset, no mapping is created. These partitions can be written
+     * by a subsequent call of {@link #saveOffsets(Map)} without syncing the control variables again.
      * @param partitions The partitions for which the mappings are created.
      * @return A map that maps topic partitions to offsets. The map can be empty, but the returned value is never null.
      * @throws IOException 
@@ -185,9 +234,11 @@ public class CVOffsetAccessor {
      */
     public synchronized Map <TopicPartition, Long> createOffsetMap (final Collection <TopicPartition> partitions) throws InterruptedException, IOException {
         Map <TopicPartition, Long> m = new HashMap<>(partitions.size());
+        readWithoutOffset.clear();
         for (TopicPartition tp: partitions) {
             final long offs = getOffset (tp);
             if (offs != NO_OFFSET) m.put (tp, new Long (offs));
+            else readWithoutOffset.add (tp);
         }
         return m;
     }
@@ -210,9 +210,29 @@ public interface ConsumerClient {
      */
     ConsumerRecord<?, ?> getNextRecord (long timeout, TimeUnit timeUnit) throws InterruptedException;
 
+    /**
+     * Gets the next batch of consumer records that have been received. If there are no records, the method waits the specified timeout.
+     * The records of a batch must be submitted in the order of the list. Before each record is submitted, 
+     * {@link #isBatchValid()} must be checked. When it returns false, the remaining records of the batch must be discarded.
+     * @param timeout   the timeout to wait for records
+     * @param timeUnit   the unit of time for the timeout
+     * @return a non-empty batch of consumer records or `null` if there were no records within the timeout.
+     * @throws InterruptedException The thread waiting for records has been interrupted.
+     */
+    List<ConsumerRecord<?, ?>> getNextBatch (long timeout, TimeUnit timeUnit) throws InterruptedException;
+
+    /**
+     * Tests whether the records of the batch, which has been returned by the last call of {@link #getNextBatch(long, TimeUnit)},
+     * can still be submitted. A batch becomes invalid when the client discards pending records, for example on reset or on partition revocation.
+     * @return true if the remaining records of the batch can be submitted, false otherwise.
+     */
+    boolean isBatchValid();
+
     /**
      * Implementations can implement an action that is called after the given consumer record has been submitted as a tuple.
      * For example, the consumer client can remember the offsets of the records for committing later. 
+     * When the operator is not part of a consistent region, this method can be called concurrently by multiple threads
+     * for records of different topic partitions.
      */
     void postSubmit (ConsumerRecord<?, ?> submittedRecord);
 }
\ No newline at end of file
@@ -31,9 +31,8 @@ import javax.management.NotificationBroadcasterSupport;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.ibm.streamsx.kafka.MsgFormatter;
+import com.ibm.streamsx.kafka.clients.OffsetsCodec;
 
 /**
  * This class represents the implementation of the consumer group MBean.
@@ -51,9 +50,20 @@ public class CrConsumerGroupCoordinator extends NotificationBroadcasterSupport i
     private final Level traceLevel;
     private Map<MergeKey, CheckpointMerge> mergeMap;
     private Set<String> registeredConsumerOperators;
-    private Gson gson = (new GsonBuilder()).enableComplexMapKeySerialization().create();
+    /** the last complete merge; kept beyond cleanup for consumers that get partitions assigned after the reset */
+    private CheckpointMerge lastCompleteMerge = null;
     private long sequenceNumber = SEQUENCE_NO_UNINITIALIZED;
     private AtomicBoolean rebalanceResetPending;
+    /** offsets consistent with the last checkpoints of the consumers; used for incremental rebalance */
+    private Map<CrConsumerGroupCoordinator.TP, Long> mergedCheckpointOffsets = new HashMap<>();
+    /** the epoch in which the offset of a partition in mergedCheckpointOffsets has been updated last */
+    private Map<CrConsumerGroupCoordinator.TP, Long> mergedCheckpointOffsetEpochs = new HashMap<>();
+    /** the current epoch of mergedCheckpointOffsets; incremented with every pruning */
+    private long checkpointOffsetsEpoch = 0L;
+    /** the epoch before the last pruning; offsets updated before are outdated at next pruning */
+    private long previousCheckpointOffsetsEpoch = 0L;
+    /** the highest checkpoint sequence ID for which outdated merged checkpoint offsets have been pruned */
+    private long lastPrunedSequenceId = Long.MIN_VALUE;
 
     /**
      * get the next sequence number for JMX notification
@@ -149,18 +159,22 @@ public class CrConsumerGroupCoordinator extends NotificationBroadcasterSupport i
      * @param chkptSequenceId the checkpoint sequence ID.
      * @param resetAttempt the current number of attempts of resetting the CR
      * @param nRequiredDistinctContributions the number of expected distinct contributions for merge completeness
-     * @param partialResetOffsetMap the partial set of offsets being partialResetOffsetMap.keySet() typically a subset of allPartitions.
+     * @param encodedOffsets the partial set of offsets, typically a subset of all partitions, in the encoding of {@link OffsetsCodec}.
      * @param operatorName The unique name of the operator
-     * @see com.ibm.streamsx.kafka.clients.consumer.CrConsumerGroupCoordinatorMXBean#mergeConsumerCheckpoint(long, int, int, Map, String)
+     * @throws IOException the encoded offsets cannot be decoded
+     * @see com.ibm.streamsx.kafka.clients.consumer.CrConsumerGroupCoordinatorMXBean#mergeConsumerCheckpoint(long, int, int, byte[], String)
      */
     @Override
     public void mergeConsumerCheckpoint (long chkptSequenceId, int resetAttempt, int nRequiredDistinctContributions,
-            Map <CrConsumerGroupCoordinator.TP, Long> partialResetOffsetMap, String operatorName) {
+            byte[] encodedOffsets, String operatorName) throws IOException {
 
         boolean mergeComplete = false;
         MergeKey mergeKey = new MergeKey (chkptSequenceId, resetAttempt);
         CheckpointMerge merge = null;
-        String mergeJson = "";
+        Map <CrConsumerGroupCoordinator.TP, Long> partialResetOffsetMap = new HashMap<>();
+        OffsetsCodec.decode (encodedOffsets).forEach ((topic, partitionOffsets) -> {
+            partitionOffsets.forEach ((partition, offset) -> partialResetOffsetMap.put (new TP (topic, partition), offset));
+        });
         synchronized (mergeMap) {
             trace.log (traceLevel, MsgFormatter.format("mergeConsumerCheckpoint() - entering: [{0}, {1}] - seqId/resetAttempt = {2}, partialResetOffsetMap = {3}, nExpectedContribs = {4}",
                     operatorName, groupId, mergeKey, partialResetOffsetMap, nRequiredDistinctContributions));
@@ -172,10 +186,11 @@ public class CrConsumerGroupCoordinator extends NotificationBroadcasterSupport i
             }
             mergeComplete = merge.addContribution (operatorName, nRequiredDistinctContributions, partialResetOffsetMap);
             if (mergeComplete)
-                mergeJson = gson.toJson (merge);
+                lastCompleteMerge = merge;
         }
         if (mergeComplete) {
-            Notification notif = new Notification (CrConsumerGroupCoordinatorMXBean.MERGE_COMPLETE_NTF_TYPE, this, nextSequenceNumber (chkptSequenceId + 1l), mergeJson);
+            Notification notif = new Notification (CrConsumerGroupCoordinatorMXBean.MERGE_COMPLETE_NTF_TYPE, this, nextSequenceNumber (chkptSequenceId + 1l),
+                    MergeKey.toNotificationMessage (chkptSequenceId, resetAttempt));
             if (trace.isEnabledFor (traceLevel)) {
                 trace.debug(MsgFormatter.format("mergeConsumerCheckpoint(): [{0}, {1}] - offset merge is complete. Sending merge complete notification for seqId {2}",
                         operatorName, groupId, mergeKey));
@@ -191,41 +206,124 @@ public class CrConsumerGroupCoordinator extends NotificationBroadcasterSupport i
 
 
     /**
-     * Gets the consolidated offset map that has been created by merging parts via {@link #mergeConsumerCheckpoint(long, int, int, Map, String)}.
+     * Gets a slice of the consolidated offset map that has been created by merging parts via {@link #mergeConsumerCheckpoint(long, int, int, byte[], String)}.
      * @param chkptSequenceId the checkpoint sequence ID.
      * @param resetAttempt the current number of attempts of resetting the CR
+     * @param encodedPartitions the requested partitions in the encoding of {@link OffsetsCodec}
      * @param operatorName The unique name of the operator
-     * @return the consolidated map that maps topic partitions to offsets
-     * @see com.ibm.streamsx.kafka.clients.consumer.CrConsumerGroupCoordinatorMXBean#getConsolidatedOffsetMap(long, int, String)
+     * @return the offsets of the requested partitions found in the consolidated map in the encoding of {@link OffsetsCodec}
+     * @throws IOException the encoded partitions cannot be decoded
+     * @see com.ibm.streamsx.kafka.clients.consumer.CrConsumerGroupCoordinatorMXBean#getConsolidatedOffsets(long, int, byte[], String)
      */
-    public Map<CrConsumerGroupCoordinator.TP, Long> getConsolidatedOffsetMap (long chkptSequenceId, int resetAttempt, String operatorName) {
+    @Override
+    public byte[] getConsolidatedOffsets (long chkptSequenceId, int resetAttempt, byte[] encodedPartitions, String operatorName) throws IOException {
         MergeKey mergeKey = new MergeKey (chkptSequenceId, resetAttempt);
-        trace.log (traceLevel, MsgFormatter.format("getConsolidatedOffsetMap(): [{0}, {1}] - seqId/resetAttempt = {2}",
+        trace.log (traceLevel, MsgFormatter.format("getConsolidatedOffsets(): [{0}, {1}] - seqId/resetAttempt = {2}",
                 operatorName, groupId, mergeKey));
-        Map<CrConsumerGroupCoordinator.TP, Long> returnVal;
+        final Map<String, Map<Integer, Long>> requestedPartitions = OffsetsCodec.decode (encodedPartitions);
+        Map<String, Map<Integer, Long>> returnVal = new HashMap<>();
         synchronized (mergeMap) {
 
             CheckpointMerge merge = mergeMap.get (mergeKey);
+            if (merge == null && lastCompleteMerge != null && lastCompleteMerge.getKey().equals (mergeKey)) {
+                merge = lastCompleteMerge;
+            }
             if (merge == null) {
-                trace.warn (MsgFormatter.format("getConsolidatedOffsetMap(): [{0}, {1}] - offset map for seqId {2} not found. Returning an empty Map.",
+                trace.warn (MsgFormatter.format("getConsolidatedOffsets(): [{0}, {1}] - offset map for seqId {2} not found. Returning no offsets.",
                         operatorName, groupId, mergeKey));
-                return (Collections.emptyMap());
+                return OffsetsCodec.encode (Collections.emptyMap());
             }
-            assert (merge != null);
             if (!merge.isComplete()) {
-                trace.warn (MsgFormatter.format("getConsolidatedOffsetMap(): [{0}, {1}] - returning incomplete offset map for seqId {2}.",
+                trace.warn (MsgFormatter.format("getConsolidatedOffsets(): [{0}, {1}] - returning offsets of incomplete offset map for seqId {2}.",
                         operatorName, groupId, mergeKey));
             }
-            returnVal = new HashMap<> (merge.getConsolidatedOffsetMap());
-            trace.log (traceLevel, MsgFormatter.format("getConsolidatedOffsetMap(): [{0}, {1}] - return = {2}",
+            final Map<CrConsumerGroupCoordinator.TP, Long> consolidatedOffsetMap = merge.getConsolidatedOffsetMap();
+            requestedPartitions.forEach ((topic, partitions) -> {
+                for (Integer partition: partitions.keySet()) {
+                    final Long offset = consolidatedOffsetMap.get (new TP (topic, partition));
+                    if (offset != null) {
+                        returnVal.computeIfAbsent (topic, t -> new HashMap<>()).put (partition, offset);
+                    }
+                }
+            });
+            trace.log (traceLevel, MsgFormatter.format("getConsolidatedOffsets(): [{0}, {1}] - return = {2}",
                     operatorName, groupId, returnVal));
         }
-        return returnVal;
+        return OffsetsCodec.encode (returnVal);
     }
 
 
 
 
+    /**
+     * @see com.ibm.streamsx.kafka.clients.consumer.CrConsumerGroupCoordinatorMXBean#updateCheckpointOffsets(byte[], java.lang.String)
+     */
+    @Override
+    public void updateCheckpointOffsets (byte[] encodedOffsets, String operatorName) throws IOException {
+        final Map<String, Map<Integer, Long>> offsets = OffsetsCodec.decode (encodedOffsets);
+        synchronized (mergedCheckpointOffsets) {
+            offsets.forEach ((topic, partitionOffsets) -> {
+                partitionOffsets.forEach ((partition, offset) -> {
+                    final TP tp = new TP (topic, partition);
+                    mergedCheckpointOffsets.put (tp, offset);
+                    mergedCheckpointOffsetEpochs.put (tp, checkpointOffsetsEpoch);
+                });
+            });
+        }
+        if (trace.isEnabledFor (traceLevel))
+            trace.log (traceLevel, MsgFormatter.format ("updateCheckpointOffsets(): [{0}, {1}] - offsets = {2}", operatorName, groupId, offsets));
+    }
+
+    /**
+     * @see com.ibm.streamsx.kafka.clients.consumer.CrConsumerGroupCoordinatorMXBean#getMergedCheckpointOffsets(byte[], java.lang.String)
+     */
+    @Override
+    public byte[] getMergedCheckpointOffsets (byte[] encodedPartitions, String operatorName) throws IOException {
+        final Map<String, Map<Integer, Long>> requestedPartitions = OffsetsCodec.decode (encodedPartitions);
+        Map<String, Map<Integer, Long>> returnVal = new HashMap<>();
+        synchronized (mergedCheckpointOffsets) {
+            requestedPartitions.forEach ((topic, partitions) -> {
+                for (Integer partition: partitions.keySet()) {
+                    final Long offset = mergedCheckpointOffsets.get (new TP (topic, partition));
+                    if (offset != null) {
+                        returnVal.computeIfAbsent (topic, t -> new HashMap<>()).put (partition, offset);
+                    }
+                }
+            });
+        }
+        if (trace.isEnabledFor (traceLevel))
+            trace.log (traceLevel, MsgFormatter.format ("getMergedCheckpointOffsets(): [{0}, {1}] - return = {2}", operatorName, groupId, returnVal));
+        return OffsetsCodec.encode (returnVal);
+    }
+
+    /**
+     * Removes the merged checkpoint offsets of partitions, which have not been updated by any consumer since the pruning before the last pruning.
+     * Pruning is done once per checkpoint sequence ID. As every consumer updates the offsets of its assigned partitions
+     * on checkpoint, the removed partitions have not been assigned to any consumer for at least one complete checkpoint.
+     * Keeping the offsets for two checkpoints guarantees that a consumer that gains a partition by rebalance finds its offset.
+     * @param chkptSequenceId the retired checkpoint sequence ID
+     */
+    private void pruneCheckpointOffsets (long chkptSequenceId) {
+        int nRemoved = 0;
+        synchronized (mergedCheckpointOffsets) {
+            if (chkptSequenceId <= lastPrunedSequenceId) return;
+            lastPrunedSequenceId = chkptSequenceId;
+            Collection<TP> outdated = new ArrayList<>();
+            mergedCheckpointOffsetEpochs.forEach ((tp, epoch) -> {
+                if (epoch.longValue() < previousCheckpointOffsetsEpoch) outdated.add (tp);
+            });
+            for (TP tp: outdated) {
+                mergedCheckpointOffsets.remove (tp);
+                mergedCheckpointOffsetEpochs.remove (tp);
+            }
+            nRemoved = outdated.size();
+            previousCheckpointOffsetsEpoch = checkpointOffsetsEpoch++;
+        }
+        if (nRemoved > 0)
+            trace.log (traceLevel, MsgFormatter.format ("pruneCheckpointOffsets() {0,number,#} outdated partition offsets removed for checkpoint sequence {1,number,#}",
+                    nRemoved, chkptSequenceId));
+    }
+
     /**
      * @see com.ibm.streamsx.kafka.clients.consumer.CrConsumerGroupCoordinatorMXBean#cleanupMergeMap(long)
      */
@@ -247,6 +345,7 @@ public class CrConsumerGroupCoordinator extends NotificationBroadcasterSupport i
         if (removedKeys > 0) 
             trace.log (traceLevel, MsgFormatter.format ("cleanupMergeMap() {0,number,#} {1} removed for checkpoint sequence {2,number,#}",
                     removedKeys, (removedKeys == 1? "merge": "merges"), chkptSequenceId));
+        pruneCheckpointOffsets (chkptSequenceId);
     }
 
     @Override
@@ -300,6 +399,30 @@ public class CrConsumerGroupCoordinator extends NotificationBroadcasterSupport i
             this.toString = MsgFormatter.format("{0,number,#}/{1,number,#}", sequenceId, resetAttempt);
         }
 
+        /**
+         * Creates the message of the merge complete notification.
+         * @param sequenceId the checkpoint sequence ID
+         * @param resetAttempt the reset attempt
+         * @return the notification message
+         * @see #fromNotificationMessage(String)
+         */
+        public static String toNotificationMessage (long sequenceId, int resetAttempt) {
+            return sequenceId + "," + resetAttempt;
+        }
+
+        /**
+         * Creates a merge key from the message of a merge complete notification.
+         * @param message the notification message
+         * @return the merge key
+         * @throws IllegalArgumentException the message is not a valid notification message
+         * @see #toNotificationMessage(long, int)
+         */
+        public static MergeKey fromNotificationMessage (String message) {
+            final int sep = message == null? -1: message.indexOf (',');
+            if (sep < 0) throw new IllegalArgumentException ("invalid merge complete notification message: " + message);
+            return new MergeKey (Long.parseLong (message.substring (0, sep)), Integer.parseInt (message.substring (sep + 1)));
+        }
+
         /**
          * @return the sequenceId
          */
@@ -30,6 +30,8 @@ public interface CrConsumerGroupCoordinatorMXBean {
 
     /**
      * JMX Notification type offset map merge is completed.
+     * The message of the notification is the checkpoint sequence ID and the reset attempt, separated by a comma.
+     * The merged offsets are not part of the notification. They must be fetched with {@link #getConsolidatedOffsets(long, int, byte[], String)}.
      */
     public final static String MERGE_COMPLETE_NTF_TYPE = "OFFSET.MAP.MERGE.COMPLETE";
 
@@ -84,25 +86,51 @@ public interface CrConsumerGroupCoordinatorMXBean {
      * @param chkptSequenceId the checkpoint sequence ID.
      * @param resetAttempt the current number of attempts of resetting the CR
      * @param nRequiredDistinctContributions the number of expected distinct contributions for merge completeness
-     * @param partialResetOffsetMap the partial set of offsets being partialResetOffsetMap.keySet() typically a subset of allPartitions.
+     * @param encodedOffsets the partial set of offsets, typically the offsets of the partitions the operator had assigned at checkpoint time,
+     *                       encoded with {@link com.ibm.streamsx.kafka.clients.OffsetsCodec#encode(Map)}
      * @param operatorName The unique name of the operator
      * @throws IOException
      */
     public void mergeConsumerCheckpoint (long chkptSequenceId, int resetAttempt, 
-            int nRequiredDistinctContributions, Map <CrConsumerGroupCoordinator.TP, Long> partialResetOffsetMap, String operatorName) throws IOException;
+            int nRequiredDistinctContributions, byte[] encodedOffsets, String operatorName) throws IOException;
 
     /**
-     * Gets the consolidated offset map that has been created by merging parts via {@link #mergeConsumerCheckpoint(long, int, int, Map, String)}.
+     * Gets a slice of the consolidated offset map that has been created by merging parts via {@link #mergeConsumerCheckpoint(long, int, int, byte[], String)}.
      * @param chkptSequenceId the checkpoint sequence ID.
      * @param resetAttempt the current number of attempts of resetting the CR
+     * @param encodedPartitions the partitions for which the offsets are requested,
+     *                          encoded with {@link com.ibm.streamsx.kafka.clients.OffsetsCodec#encodePartitions(Map)}
      * @param operatorName The unique name of the operator
-     * @return the consolidated map that maps topic partitions to offsets
+     * @return the offsets of the requested partitions that are contained in the consolidated map,
+     *         encoded with {@link com.ibm.streamsx.kafka.clients.OffsetsCodec#encode(Map)}
      * @throws IOException
      */
-    public Map<CrConsumerGroupCoordinator.TP, Long> getConsolidatedOffsetMap (long chkptSequenceId, int resetAttempt, String operatorName) throws IOException;
+    public byte[] getConsolidatedOffsets (long chkptSequenceId, int resetAttempt, byte[] encodedPartitions, String operatorName) throws IOException;
 
     /**
-     * Cleans the merge map for the given checkpoint sequence ID
+     * Merges the offsets of a single consumer, which are consistent with its last checkpoint, into the group's merged checkpoint offsets.
+     * The merged checkpoint offsets are used to seek partitions that are assigned to another consumer by an incremental rebalance.
+     * Offsets of partitions that have not been updated by any consumer for two checkpoints are removed on {@link #cleanupMergeMap(long)}.
+     * @param encodedOffsets the offsets of the partitions assigned to the consumer,
+     *                       encoded with {@link com.ibm.streamsx.kafka.clients.OffsetsCodec#encode(Map)}
+     * @param operatorName The unique name of the operator
+     * @throws IOException
+     */
+    public void updateCheckpointOffsets (byte[] encodedOffsets, String operatorName) throws IOException;
+
+    /**
+     * Gets a slice of the group's merged checkpoint offsets, which have been merged by {@link #updateCheckpointOffsets(byte[], String)}.
+     * @param encodedPartitions the partitions for which the offsets are requested,
+     *                          encoded with {@link com.ibm.streamsx.kafka.clients.OffsetsCodec#encodePartitions(Map)}
+     * @param operatorName The unique name of the operator
+     * @return the offsets of the requested partitions that are contained in the merged checkpoint offsets,
+     *         encoded with {@link com.ibm.streamsx.kafka.clients.OffsetsCodec#encode(Map)}
+     * @throws IOException
+     */
+    public byte[] getMergedCheckpointOffsets (byte[] encodedPartitions, String operatorName) throws IOException;
+
+    /**
+     * Cleans the merge map for the given checkpoint sequence ID and removes outdated merged checkpoint offsets.
      * @param chkptSequenceId the checkpoint sequence ID
      * @throws IOException
      */
@@ -24,11 +24,9 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -60,8 +58,6 @@ import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.SerializationException;
 import org.apache.log4j.Logger;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.ibm.streams.operator.OperatorContext;
 import com.ibm.streams.operator.control.ConsistentRegionMXBean;
 import com.ibm.streams.operator.control.Controllable;
@@ -74,8 +70,10 @@ import com.ibm.streamsx.kafka.KafkaOperatorResetFailedException;
 import com.ibm.streamsx.kafka.KafkaOperatorRuntimeException;
 import com.ibm.streamsx.kafka.MsgFormatter;
 import com.ibm.streamsx.kafka.clients.OffsetManager;
+import com.ibm.streamsx.kafka.clients.OffsetSnapshot;
+import com.ibm.streamsx.kafka.clients.OffsetsCodec;
+import com.ibm.streamsx.kafka.clients.PartitionOffsetTracker;
 import com.ibm.streamsx.kafka.clients.consumer.CrConsumerGroupCoordinator.MergeKey;
-import com.ibm.streamsx.kafka.clients.consumer.CrConsumerGroupCoordinator.TP;
 import com.ibm.streamsx.kafka.i18n.Messages;
 import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
 
@@ -118,8 +116,10 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
     private final ReentrantLock jmxNotificationConditionLock = new ReentrantLock();
     /** Condition for setting/checking/waiting for the JMX notification */
     private final Condition jmxNotificationCondition = jmxNotificationConditionLock.newCondition();
-    /** group's checkpoint merge complete JMX notification */
-    private Map<CrConsumerGroupCoordinator.MergeKey, CrConsumerGroupCoordinator.CheckpointMerge> jmxMergeCompletedNotifMap = new HashMap<>();
+    /** keys of the group's checkpoint merges for which the merge complete JMX notification has been received */
+    private Set<CrConsumerGroupCoordinator.MergeKey> jmxMergeCompletedNotifKeys = new HashSet<>();
+    /** key of the group's checkpoint merge from which the seekOffsetMap is lazily completed; null when the seekOffsetMap is complete */
+    private CrConsumerGroupCoordinator.MergeKey seekOffsetMergeKey = null;
 
     /** canonical name of the MXBean. Note: If you need a javax.management.ObjectName instance, use createMBeanObjectName() */
     private String crGroupCoordinatorMXBeanName = null;
@@ -129,13 +129,20 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
     private CVOffsetAccessor initialOffsets;
     /** stores the offsets of the submitted tuples - should contain only assignedPartitions - is checkpointed */
     private OffsetManager assignedPartitionsOffsetManager;
+    /** offsets of submitted records of the assigned partitions, which are not yet transferred into the assignedPartitionsOffsetManager */
+    private final PartitionOffsetTracker submittedOffsets = new PartitionOffsetTracker (/*autoRegister=*/false);
     /** the map that is used to seek the consumer after reset, resetToInitialState or in onPartitionsAssigned.
      * The map must contain mappings for all partitions of all topics because we do not know which partitions we get for consumption.
      */
     private Map<TopicPartition, Long> seekOffsetMap = null;
     /** current state of the consumer client */
     private ClientState state = null;
-    private Gson gson;
+    /** when true, a rebalance does not reset the consistent region when it is not required */
+    private boolean incrementalRebalance = false;
+    /** offsets of the assigned partitions that are consistent with the last checkpoint; maintained for incremental rebalance */
+    private final Map<TopicPartition, Long> checkpointOffsets = new HashMap<>();
+    /** true when all records taken from the message queue have been processed before an incremental rebalance */
+    private boolean submittedOffsetsComplete = false;
 
     /**
      * Constructs a new CrKafkaConsumerGroupClient object.
@@ -148,7 +155,6 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
         this.initialOffsets = new CVOffsetAccessor (getJcpContext(), getGroupId());
         this.crGroupCoordinatorMXBeanName = createMBeanObjectName ("consumergroup").getCanonicalName();
         this.assignedPartitionsOffsetManager = new OffsetManager();
-        this.gson = (new GsonBuilder()).enableComplexMapKeySerialization().create();
         ConsistentRegionContext crContext = getCrContext();
         // if no partition assignment strategy is specified, set the round-robin when multiple topics can be subscribed
         if (!(singleTopic || kafkaProperties.containsKey (ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG))) {
@@ -267,7 +273,8 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
      * Processes JMX notifications from the CrGroupCoordinator MXBean.
      * The JMX notification is fired by the MXBean when the MXBean considers the group's checkpoint complete.
      * This is triggered by any operator instance of the consumer group that contributes to the group's checkpoint by
-     * calling {@link CrConsumerGroupCoordinatorMXBean#mergeConsumerCheckpoint(long, int, int, Map, String)}.
+     * calling {@link CrConsumerGroupCoordinatorMXBean#mergeConsumerCheckpoint(long, int, int, byte[], String)}.
+     * The notification contains only the key of the merge. The offsets are fetched from the MXBean afterwards.
      * <br><br>
      * When we have more consumers than topic partitions, it is obvious that not all operator checkpoints contribute to
      * the group's checkpoint. We should take into account that {@link #handleNotification(Notification, Object)} can 
@@ -282,10 +289,9 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
     public void handleNotification (Notification notification, Object handback) {
         trace.info (MsgFormatter.format ("handleNotification() [{0}]; notification = {1}", this.state, notification));
         if (notification.getType().equals (CrConsumerGroupCoordinatorMXBean.MERGE_COMPLETE_NTF_TYPE)) {
-            CrConsumerGroupCoordinator.CheckpointMerge merge = gson.fromJson (notification.getMessage(), CrConsumerGroupCoordinator.CheckpointMerge.class);
-            MergeKey key = merge.getKey();
+            MergeKey key = MergeKey.fromNotificationMessage (notification.getMessage());
             jmxNotificationConditionLock.lock();
-            jmxMergeCompletedNotifMap.put (key, merge);
+            jmxMergeCompletedNotifKeys.add (key);
             trace.log (DEBUG_LEVEL, MsgFormatter.format ("handleNotification(): notification {0} stored, signalling waiting threads ...", key));
             jmxNotificationCondition.signalAll();
             jmxNotificationConditionLock.unlock();
@@ -493,6 +499,7 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
      */
     @Override
     public void onReset (final Checkpoint checkpoint) throws InterruptedException {
+        discardUnclaimedOffsets();
         resetPrepareDataBeforeStopPolling(checkpoint);
         sendStopPollingEvent();
         resetPrepareDataAfterStopPolling (checkpoint);
@@ -511,6 +518,7 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
      */
     @Override
     public void onResetToInitialState() throws InterruptedException {
+        discardUnclaimedOffsets();
         Event event = new Event (com.ibm.streamsx.kafka.clients.consumer.Event.EventType.RESET_TO_INIT, true);
         sendEvent (event);
         event.await();
@@ -551,13 +559,14 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             final boolean commitPartitionWise = false;   // commit all partitions in one server request
             CommitInfo offsets = new CommitInfo (commitSync, commitPartitionWise);
             offsets.setThrowOnSynchronousCommitFailure (false);
+            submittedOffsets.transferTo (assignedPartitionsOffsetManager);
             synchronized (assignedPartitionsOffsetManager) {
                 for (TopicPartition tp: assignedPartitionsOffsetManager.getMappedTopicPartitions()) {
                     offsets.put (tp, assignedPartitionsOffsetManager.getOffset(tp.topic(), tp.partition()));
                 }
             }
             if (!offsets.isEmpty()) {
-                sendCommitEvent (offsets);
+                commitOffsetsOnDrain (offsets);
             }
             else {
                 trace.info ("onDrain(): no offsets to commit");
@@ -578,15 +587,16 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
     @Override
     public void onCheckpointRetire (long id) {
         trace.log (DEBUG_LEVEL, MsgFormatter.format ("onCheckpointRetire() [{0}] - entering, id = {1}", state, id));
+        commitUnclaimedOffsets();
         Collection<MergeKey> retiredMergeKeys = new ArrayList<>(10);
-        for (MergeKey k: jmxMergeCompletedNotifMap.keySet()) {
+        jmxNotificationConditionLock.lock();
+        for (MergeKey k: jmxMergeCompletedNotifKeys) {
             if (k.getSequenceId() <= id) {   // remove also older (smaller) IDs
                 retiredMergeKeys.add (k);
             }
         }
-        for (MergeKey k: retiredMergeKeys) {
-            jmxMergeCompletedNotifMap.remove (k);
-        }
+        jmxMergeCompletedNotifKeys.removeAll (retiredMergeKeys);
+        jmxNotificationConditionLock.unlock();
         try {
             this.crGroupCoordinatorMxBean.cleanupMergeMap (id);
         } catch (IOException e) {
@@ -603,14 +613,10 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
     @Override
     public void postSubmit (ConsumerRecord<?, ?> submittedRecord) {
         // save offset for *next* record for {topic, partition} 
-        try {
-            synchronized (assignedPartitionsOffsetManager) {
-                assignedPartitionsOffsetManager.savePositionWhenRegistered (submittedRecord.topic(), submittedRecord.partition(), submittedRecord.offset() +1l);
-            }
-        } catch (Exception topicPartitionUnknown) {
+        if (!submittedOffsets.set (submittedRecord.topic(), submittedRecord.partition(), submittedRecord.offset() +1l)) {
             // can happen when onPartitionsAssigned happened between fetching a record from the queue by this thread and postSubmit.
             // onPartitionsRevoked must have been called before, initiating a consistent region reset.
-            trace.warn (topicPartitionUnknown.getLocalizedMessage());
+            trace.warn (MsgFormatter.format ("offset not saved for unassigned topic partition {0}-{1}", submittedRecord.topic(), submittedRecord.partition()));
         }
         ConsistentRegionContext crContext = getCrContext();
         if (crContext.isTriggerOperator() && ++nSubmittedRecords >= triggerCount) {
@@ -629,6 +635,7 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
      * before partitions are re-assigned. 
      * onPartitionsRevoked is ignored when the client has initially subscribed to topics or when the client has been reset.
      * In all other cases a reset of the consistent region is triggered. Polling for messsages is stopped.
+     * With incremental rebalance, the decision about the reset is deferred to {@link #onPartitionsAssigned(Collection)}.
      * @param partitions current partition assignment  
      * @see org.apache.kafka.clients.consumer.ConsumerRebalanceListener#onPartitionsRevoked(java.util.Collection)
      */
@@ -641,17 +648,162 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
         getMessageQueue().clear();
         setConsumedTopics (null);
         if (state == ClientState.RECORDS_FETCHED) {
-            ClientState newState = ClientState.CR_RESET_PENDING;
-            trace.log (DEBUG_LEVEL, MsgFormatter.format ("client state transition: {0} -> {1}", state, newState));
-            state = newState;
-            sendStopPollingEventAsync();
-            trace.info (MsgFormatter.format ("onPartitionsRevoked() [{0}]: initiating consistent region reset", state));
+            if (incrementalRebalance) {
+                // The partitions that are really taken away from this consumer are known in onPartitionsAssigned.
+                // Wait until the tuple submitter has processed the records it has already taken from the queue,
+                // so that the submitted offsets are complete when lost and retained partitions are evaluated.
+                // When the operator triggers the region, the tuple submitter thread can be blocked in makeConsistent() in postSubmit(...),
+                // and a drain waits for this thread in sendStopPollingEvent(). Then we must not wait; the region is reset instead.
+                if (getCrContext().isTriggerOperator()) {
+                    submittedOffsetsComplete = false;
+                }
+                else {
+                    try {
+                        awaitMessageQueueProcessed();
+                        submittedOffsetsComplete = true;
+                    } catch (InterruptedException e) {
+                        trace.log (DEBUG_LEVEL, "onPartitionsRevoked(): interrupted waiting for the message queue being processed");
+                        submittedOffsetsComplete = false;
+                    }
+                }
+                trace.info (MsgFormatter.format ("onPartitionsRevoked() [{0}]: incremental rebalance; consistent region reset deferred", state));
+                return;
+            }
+            initiateRebalanceReset();
+        }
+    }
+
+    /**
+     * Stops polling and initiates the reset of the consistent region after a partition rebalance.
+     * This method is called within the context of a poll() invocation.
+     */
+    private void initiateRebalanceReset() {
+        ClientState newState = ClientState.CR_RESET_PENDING;
+        trace.log (DEBUG_LEVEL, MsgFormatter.format ("client state transition: {0} -> {1}", state, newState));
+        state = newState;
+        sendStopPollingEventAsync();
+        trace.info (MsgFormatter.format ("initiateRebalanceReset() [{0}]: initiating consistent region reset", state));
+        try {
+            crMxBean.reset (true);
+        } catch (Exception e) {
+            throw new KafkaOperatorRuntimeException ("Failed to reset the consistent region: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Initiates the reset of the consistent region when tuples have been submitted after the last checkpoint
+     * for partitions that are not assigned anymore. The consumer that gets these partitions assigned
+     * continues consumption at the checkpointed offsets, so that these tuples would be submitted twice without reset.
+     * The region is also reset when the message queue could not be awaited being processed in {@link #onPartitionsRevoked(Collection)}.
+     * @param newAssignedPartitions the new partition assignment
+     */
+    private void resetRegionWhenLostPartitionsSubmitted (Collection<TopicPartition> newAssignedPartitions) {
+        if (!submittedOffsetsComplete) {
+            trace.info ("incremental rebalance: submitted offsets may be incomplete");
+            initiateRebalanceReset();
+            return;
+        }
+        submittedOffsetsComplete = false;
+        Set<TopicPartition> lostPartitions = new HashSet<> (getAssignedPartitions());
+        lostPartitions.removeAll (newAssignedPartitions);
+        Set<TopicPartition> submittedAfterCheckpoint = new HashSet<>();
+        // the message queue has been cleared and processed in onPartitionsRevoked(), so that no record is in flight
+        submittedOffsets.transferTo (assignedPartitionsOffsetManager);
+        synchronized (assignedPartitionsOffsetManager) {
+            for (TopicPartition tp: lostPartitions) {
+                final Long checkpointOffset = checkpointOffsets.get (tp);
+                if (checkpointOffset == null || checkpointOffset.longValue() != assignedPartitionsOffsetManager.getOffset (tp.topic(), tp.partition())) {
+                    submittedAfterCheckpoint.add (tp);
+                }
+            }
+        }
+        if (submittedAfterCheckpoint.isEmpty()) {
+            trace.info (MsgFormatter.format ("incremental rebalance: no tuples submitted after last checkpoint for lost partitions {0}", lostPartitions));
+            return;
+        }
+        trace.info (MsgFormatter.format ("incremental rebalance: tuples submitted after last checkpoint for lost partitions {0}", submittedAfterCheckpoint));
+        initiateRebalanceReset();
+    }
+
+    /**
+     * Seeks the assigned partitions after an incremental rebalance without reset of the consistent region.
+     * Partitions that remain assigned continue after the last submitted record, as their fetched records have been discarded.
+     * Newly assigned partitions are seeked to the offsets from the group's merged checkpoint offsets. Partitions that have never been consumed
+     * are seeked to the initial offsets.
+     * @param newAssignedPartitions the new partition assignment
+     * @param retainedPartitions the partitions that have been assigned also before the rebalance
+     */
+    private void seekAfterIncrementalRebalance (Collection<TopicPartition> newAssignedPartitions, Set<TopicPartition> retainedPartitions) {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        synchronized (assignedPartitionsOffsetManager) {
+            for (TopicPartition tp: retainedPartitions) {
+                final long offset = assignedPartitionsOffsetManager.getOffset (tp.topic(), tp.partition());
+                if (offset >= 0l) offsets.put (tp, offset);
+            }
+        }
+        Set<TopicPartition> gainedPartitions = new HashSet<> (newAssignedPartitions);
+        gainedPartitions.removeAll (retainedPartitions);
+        if (!gainedPartitions.isEmpty()) {
             try {
-                crMxBean.reset (true);
-            } catch (Exception e) {
-                throw new KafkaOperatorRuntimeException ("Failed to reset the consistent region: " + e.getMessage(), e);
+                Map<String, Set<Integer>> requestedPartitions = new HashMap<>();
+                gainedPartitions.forEach (tp -> requestedPartitions.computeIfAbsent (tp.topic(), t -> new HashSet<>()).add (tp.partition()));
+                final byte[] encodedOffsets = crGroupCoordinatorMxBean.getMergedCheckpointOffsets (OffsetsCodec.encodePartitions (requestedPartitions),
+                        getOperatorContext().getName());
+                OffsetsCodec.decode (encodedOffsets).forEach ((topic, partitionOffsets) -> {
+                    partitionOffsets.forEach ((partition, offset) -> offsets.put (new TopicPartition (topic, partition), offset));
+                });
+            } catch (IOException e) {
+                throw new KafkaOperatorRuntimeException (e.getMessage(), e);
+            }
+        }
+        // all partitions without offset are read from the initial offsets, also retained partitions that have never been fetched,
+        // so that seekPartitions can save the initial offsets of the remaining ones without syncing the control variables again
+        Set<TopicPartition> neverConsumed = new HashSet<>();
+        for (TopicPartition tp: newAssignedPartitions) {
+            if (!offsets.containsKey (tp)) neverConsumed.add (tp);
+        }
+        if (!neverConsumed.isEmpty()) {
+            try {
+                initialOffsets.createOffsetMap (neverConsumed).forEach (offsets::putIfAbsent);
+            } catch (InterruptedException e) {
+                trace.log (DEBUG_LEVEL, "interrupted creating a seek offset map from JCP control variables");
+            } catch (IOException e) {
+                throw new KafkaOperatorRuntimeException (e.getMessage(), e);
+            }
+        }
+        trace.info (MsgFormatter.format ("incremental rebalance: seeking partitions: {0}", offsets));
+        Collection<TopicPartition> failedSeeks = seekPartitions (newAssignedPartitions, offsets);
+        failedSeeks.forEach (tp -> assignedPartitionsOffsetManager.remove (tp.topic(), tp.partition()));
+        submittedOffsets.unregister (failedSeeks);
+        assignedPartitionsOffsetManager.savePositionFromCluster();
+        // the position of gained partitions is consistent with the last checkpoint; the retained partitions keep their checkpoint offsets
+        gainedPartitions.removeAll (failedSeeks);
+        publishCheckpointOffsets (gainedPartitions);
+    }
+
+    /**
+     * Saves the current offsets of the given partitions as offsets, which are consistent with the last checkpoint, and
+     * merges them into the group's checkpoint offsets in the MXBean. Offsets of partitions that are not assigned are removed.
+     * This method does nothing when incremental rebalance is not enabled.
+     * @param partitions the partitions
+     */
+    private void publishCheckpointOffsets (Collection<TopicPartition> partitions) {
+        if (!incrementalRebalance) return;
+        Map<String, Map<Integer, Long>> offsets = new HashMap<>();
+        synchronized (assignedPartitionsOffsetManager) {
+            checkpointOffsets.keySet().retainAll (getAssignedPartitions());
+            for (TopicPartition tp: partitions) {
+                final long offset = assignedPartitionsOffsetManager.getOffset (tp.topic(), tp.partition());
+                if (offset < 0l) continue;
+                checkpointOffsets.put (tp, offset);
+                offsets.computeIfAbsent (tp.topic(), t -> new HashMap<>()).put (tp.partition(), offset);
             }
-            // this callback is called within the context of a poll() invocation.
+        }
+        if (offsets.isEmpty()) return;
+        try {
+            crGroupCoordinatorMxBean.updateCheckpointOffsets (OffsetsCodec.encode (offsets), getOperatorContext().getName());
+        } catch (IOException e) {
+            trace.warn ("publishing checkpoint offsets to MXBean failed: " + e.getMessage());
         }
     }
 
@@ -690,6 +842,12 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
     @Override
     public void onPartitionsAssigned (Collection<TopicPartition> newAssignedPartitions) {
         trace.info (MsgFormatter.format ("onPartitionsAssigned() [{0}]: new partition assignment = {1}", state, newAssignedPartitions));
+        Set<TopicPartition> retainedPartitions = new HashSet<> (getAssignedPartitions());
+        retainedPartitions.retainAll (newAssignedPartitions);
+        if (state == ClientState.RECORDS_FETCHED && incrementalRebalance) {
+            // changes state to CR_RESET_PENDING when a reset is required
+            resetRegionWhenLostPartitionsSubmitted (newAssignedPartitions);
+        }
         Set<TopicPartition> gonePartitions = new HashSet<>(getAssignedPartitions());
         gonePartitions.removeAll (newAssignedPartitions);
         getAssignedPartitions().clear();
@@ -703,8 +861,10 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
                     // remove the topic partition also from the offset manager
                     assignedPartitionsOffsetManager.remove (tp.topic(), tp.partition());
                 }
+                submittedOffsets.unregister (gonePartitions);
             }
             assignedPartitionsOffsetManager.updateTopics (newAssignedPartitions);
+            submittedOffsets.register (newAssignedPartitions);
         }
         setConsumedTopics (newAssignedPartitions);
         trace.log (DEBUG_LEVEL, "onPartitionsAssigned() assignedPartitionsOffsetManager = " + assignedPartitionsOffsetManager);
@@ -718,6 +878,7 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             // the seek offset map can contain offsets from a checkpoint, and a CV can exist for a partition that is not in the checkpoint. A partition may have added and assigned.
             // Add all offsets from the 'initialOffsets' to the seekOffset if not yet present for the topic partition
             try {
+                addMergedSeekOffsets (newAssignedPartitions);
                 final Map<TopicPartition, Long> initialOffsetsMap = initialOffsets.createOffsetMap (newAssignedPartitions);
                 trace.info (MsgFormatter.format ("seekOffsetMap created from initial offsets: {0}", initialOffsetsMap));
                 initialOffsetsMap.forEach ((tp, offs) -> {
@@ -731,6 +892,17 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             seekPartitions (newAssignedPartitions, seekOffsetMap);
             // update the fetch positions in the offset manager for all assigned partitions - 
             assignedPartitionsOffsetManager.savePositionFromCluster();
+            publishCheckpointOffsets (newAssignedPartitions);
+            break;
+
+        case RECORDS_FETCHED:
+            if (incrementalRebalance) {
+                // incremental rebalance without reset of the consistent region
+                seekAfterIncrementalRebalance (newAssignedPartitions, retainedPartitions);
+            }
+            else {
+                trace.warn (MsgFormatter.format ("onPartitionsAssigned() [{0}]: unexpected state for onPartitionsAssigned()", state));
+            }
             break;
 
         case CR_RESET_PENDING:
@@ -752,73 +924,87 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
 
     /**
      * Seeks the given partitions to the offsets in the map. If the map does not contain a mapping, the partition is seeked to what is given as initial start position (End, Beginning, Time)
+     * All partitions without mapping are seeked together, so that the broker round trips and JCP requests do not grow with each partition.
      * @param partitions the partitions
      * @param offsetMap the map with mappings from partition to offset
      * @return the topic partitions for which the seek failed because they are not assigned. 
      */
     private Collection<TopicPartition> seekPartitions (Collection <TopicPartition> partitions, Map<TopicPartition, Long> offsetMap) {
         KafkaConsumer <?, ?> consumer = getConsumer();
-        // collection and map for seeking to inital startposition
-        Collection <TopicPartition> tp1 = new ArrayList<>(1);
-        Map <TopicPartition, Long> tpTimestampMap1 = new HashMap<>();
         Set<TopicPartition> seekFailedPartitions = new HashSet<> (partitions);
-        List<TopicPartition> sortedPartitions = new LinkedList<> (partitions);
+        List<TopicPartition> sortedPartitions = new ArrayList<> (partitions);
         Collections.sort (sortedPartitions, new Comparator<TopicPartition>() {
             @Override
             public int compare (TopicPartition o1, TopicPartition o2) {
                 return o1.toString().compareTo(o2.toString());
             }
         });
-
+        // partitions that we have never seen, which must be seeked to the initial start position
+        List<TopicPartition> newPartitions = new ArrayList<> (sortedPartitions.size());
+        final Set<TopicPartition> assignment = consumer.assignment();
         for (TopicPartition tp: sortedPartitions) {
-            try {
-                if (offsetMap.containsKey (tp)) {
-                    final long seekToOffset = offsetMap.get (tp);
-                    trace.info (MsgFormatter.format ("seekPartitions() seeking {0} to offset {1}", tp, seekToOffset));
+            if (offsetMap.containsKey (tp)) {
+                final long seekToOffset = offsetMap.get (tp);
+                trace.info (MsgFormatter.format ("seekPartitions() seeking {0} to offset {1}", tp, seekToOffset));
+                try {
                     consumer.seek (tp, seekToOffset);
+                    seekFailedPartitions.remove (tp);
                 }
-                else {
-                    // We have never seen the partition. Seek to startPosition given as operator parameter(s)
-                    switch (this.initialStartPosition) {
-                    case Default:
-                        trace.info (MsgFormatter.format ("seekPartitions() new topic partition {0}; no need to seek to {1}", tp, this.initialStartPosition));
-                        // do not seek
-                        break;
-                    case Beginning:
-                    case End:
-                        tp1.clear();
-                        tp1.add (tp);
-                        trace.info (MsgFormatter.format ("seekPartitions() seeking new topic partition {0} to {1}", tp, this.initialStartPosition));
-                        seekToPosition (tp1, this.initialStartPosition);
-                        break;
-                    case Time:
-                        tpTimestampMap1.clear();
-                        tpTimestampMap1.put (tp, this.initialStartTimestamp);
-                        trace.info (MsgFormatter.format ("seekPartitions() seeking new topic partition {0} to timestamp {1,number,#}", tp, this.initialStartTimestamp));
-                        seekToTimestamp (tpTimestampMap1);
-                        break;
-                    default:
-                        // unsupported start position, like 'Offset',  is already treated by initialization checks
-                        final String msg = MsgFormatter.format ("seekPartitions(): {0} does not support startPosition {1}.", getThisClassName(), this.initialStartPosition);
-                        trace.error (msg);
-                        throw new KafkaOperatorRuntimeException (msg);
-                    }
-                    long initialFetchOffset = getConsumer().position (tp);
-                    initialOffsets.saveOffset (tp, initialFetchOffset, false);
+                catch (IllegalArgumentException topicPartitionNotAssigned) {
+                    // when this happens the ConsumerRebalanceListener will be called later
+                    trace.warn (MsgFormatter.format ("seekPartitions(): seek failed for partition {0}: {1}", tp, topicPartitionNotAssigned.getLocalizedMessage()));
                 }
-                seekFailedPartitions.remove (tp);
             }
-            catch (IllegalArgumentException topicPartitionNotAssigned) {
+            else if (assignment.contains (tp)) {
+                newPartitions.add (tp);
+            }
+            else {
                 // when this happens the ConsumerRebalanceListener will be called later
-                trace.warn (MsgFormatter.format ("seekPartitions(): seek failed for partition {0}: {1}", tp, topicPartitionNotAssigned.getLocalizedMessage()));
-            } catch (InterruptedException e) {
-                trace.log (DEBUG_LEVEL, "interrupted creating or saving offset to JCP control variable");
-                // leave for-loop
-                break;
-            } catch (IOException e) {
-                throw new KafkaOperatorRuntimeException (e.getMessage());
+                trace.warn (MsgFormatter.format ("seekPartitions(): seek failed for partition {0}: not assigned", tp));
             }
-        }   // for
+        }
+        if (newPartitions.isEmpty()) {
+            trace.log (DEBUG_LEVEL, "partitions failed to seek: " + seekFailedPartitions);
+            return seekFailedPartitions;
+        }
+        // Seek all new partitions to startPosition given as operator parameter(s)
+        switch (this.initialStartPosition) {
+        case Default:
+            trace.info (MsgFormatter.format ("seekPartitions() new topic partitions {0}; no need to seek to {1}", newPartitions, this.initialStartPosition));
+            // do not seek
+            break;
+        case Beginning:
+        case End:
+            trace.info (MsgFormatter.format ("seekPartitions() seeking new topic partitions {0} to {1}", newPartitions, this.initialStartPosition));
+            seekToPosition (newPartitions, this.initialStartPosition);
+            break;
+        case Time:
+            Map <TopicPartition, Long> tpTimestampMap = new HashMap<>();
+            newPartitions.forEach (tp -> tpTimestampMap.put (tp, this.initialStartTimestamp));
+            trace.info (MsgFormatter.format ("seekPartitions() seeking new topic partitions {0} to timestamp {1,number,#}", newPartitions, this.initialStartTimestamp));
+            // one offsetsForTimes request for all partitions
+            seekToTimestamp (tpTimestampMap);
+            break;
+        default:
+            // unsupported start position, like 'Offset',  is already treated by initialization checks
+            final String msg = MsgFormatter.format ("seekPartitions(): {0} does not support startPosition {1}.", getThisClassName(), this.initialStartPosition);
+            trace.error (msg);
+            throw new KafkaOperatorRuntimeException (msg);
+        }
+        // The first position() call updates the fetch positions of all partitions that need a lookup with one request per broker.
+        // The positions of the other partitions are then available without further requests.
+        Map<TopicPartition, Long> initialFetchOffsets = new HashMap<> (newPartitions.size());
+        for (TopicPartition tp: newPartitions) {
+            initialFetchOffsets.put (tp, consumer.position (tp));
+        }
+        try {
+            initialOffsets.saveOffsets (initialFetchOffsets);
+            seekFailedPartitions.removeAll (newPartitions);
+        } catch (InterruptedException e) {
+            trace.log (DEBUG_LEVEL, "interrupted creating or saving offset to JCP control variable");
+        } catch (IOException e) {
+            throw new KafkaOperatorRuntimeException (e.getMessage());
+        }
         trace.log (DEBUG_LEVEL, "partitions failed to seek: " + seekFailedPartitions);
         return seekFailedPartitions;
     }
@@ -886,6 +1072,7 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             // are not yet notified about it. That's why we must handle the failed seeks.
             // When this operator is restarted and reset, getAssignedPartitions() will return an empty Set.
             this.seekOffsetMap = initialOffsets.createOffsetMap (getAssignedPartitions());
+            this.seekOffsetMergeKey = null;
             trace.info (MsgFormatter.format ("initial Offsets for assignment {0}: {1}", getAssignedPartitions(), this.seekOffsetMap));
 
             // Reset also the assignedPartitionsOffsetManager to the initial offsets of the assigned partitions. The assignedPartitionsOffsetManager goes into the checkpoint,
@@ -893,9 +1080,13 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             // the case that no tuple has been submitted for a partition, which would update the assignedPartitionsOffsetManager.
             assignedPartitionsOffsetManager.clear();
             assignedPartitionsOffsetManager.addTopics (getAssignedPartitions());
+            submittedOffsets.clear();
+            submittedOffsets.register (getAssignedPartitions());
             Collection<TopicPartition> failedSeeks = seekPartitions (getAssignedPartitions(), this.seekOffsetMap);
             failedSeeks.forEach (tp -> assignedPartitionsOffsetManager.remove (tp.topic(), tp.partition()));
+            submittedOffsets.unregister (failedSeeks);
             assignedPartitionsOffsetManager.savePositionFromCluster();
+            publishCheckpointOffsets (getAssignedPartitions());
             // reset tuple counter for operator driven CR
             nSubmittedRecords = 0l;
             ClientState newState = ClientState.RESET_COMPLETE;
@@ -958,9 +1149,19 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
         // the case that no tuple has been submitted for a partition, which would update the assignedPartitionsOffsetManager.
         assignedPartitionsOffsetManager.clear();
         assignedPartitionsOffsetManager.addTopics (getAssignedPartitions());
+        submittedOffsets.clear();
+        submittedOffsets.register (getAssignedPartitions());
+        try {
+            // the assignment may have changed since the seek offsets have been created
+            addMergedSeekOffsets (getAssignedPartitions());
+        } catch (IOException e) {
+            throw new KafkaOperatorResetFailedException (MsgFormatter.format ("resetting operator {0} to checkpoint sequence ID {1} failed: {2}", getOperatorContext().getName(), checkpoint.getSequenceId(), e.getLocalizedMessage()), e);
+        }
         Collection<TopicPartition> failedSeeks = seekPartitions (getAssignedPartitions(), this.seekOffsetMap);
         failedSeeks.forEach (tp -> assignedPartitionsOffsetManager.remove (tp.topic(), tp.partition()));
+        submittedOffsets.unregister (failedSeeks);
         assignedPartitionsOffsetManager.savePositionFromCluster();
+        publishCheckpointOffsets (getAssignedPartitions());
         // reset tuple counter for operator driven CR
         nSubmittedRecords = 0l;
         ClientState newState = ClientState.RESET_COMPLETE;
@@ -978,9 +1179,10 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
      * <li>send the offsets of the prior partitions together with the number of operators and the own operator name to the CrGroupCoordinator MXBean.
      *     The other consumer operators will also send their prior partition-to-offset mappings, and and their dsitinct operator name.</li>
      * <li>wait for the JMX notification that the partition-to-offset map has merged</li>
-     * <li>fetch the merged map from the MX bean so that the operator has the seek offsets of all partitions of
-     *     all topics (the group's view) and store this in the 'seekOffsetMap' member variable.</li>
+     * <li>fetch the offsets of the assigned partitions from the merged map of the MX bean and store them in the 'seekOffsetMap' member variable.
+     *     Offsets of partitions that are assigned later are fetched from the MX bean when the partitions get assigned.</li>
      * </ul>
+     * The offsets are exchanged with the MX bean in the compact encoding of {@link OffsetsCodec}.
      * @param checkpoint
      * @throws InterruptedException
      */
@@ -995,13 +1197,15 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             final ObjectInputStream inputStream = checkpoint.getInputStream();
             final String myOperatorNameInCkpt = (String) inputStream.readObject();
             Set<String> contributingOperators = (Set<String>) inputStream.readObject();
-            OffsetManager offsMgr = (OffsetManager) inputStream.readObject();
+            final Object offsetsObject = inputStream.readObject();
+            // checkpoints of previous toolkit versions contain the serialized OffsetManager
+            final OffsetSnapshot chkptOffsets = offsetsObject instanceof OffsetManager? ((OffsetManager) offsetsObject).createSnapshot(): OffsetSnapshot.decode ((byte[]) offsetsObject);
             trace.info (MsgFormatter.format ("createSeekOffsetMap() - merging {0} operator checkpoints into a single group checkpoint", contributingOperators.size()));
 
             if (trace.isEnabledFor (DEBUG_LEVEL)) {
                 trace.log (DEBUG_LEVEL, MsgFormatter.format ("createSeekOffsetMap(): myOperatorName read from checkpoint: {0}", myOperatorNameInCkpt));
                 trace.log (DEBUG_LEVEL, MsgFormatter.format ("createSeekOffsetMap(): contributingOperators read from checkpoint: {0}", contributingOperators));
-                trace.log (DEBUG_LEVEL, MsgFormatter.format ("createSeekOffsetMap(): offset manager read from checkpoint: {0}", offsMgr));
+                trace.log (DEBUG_LEVEL, MsgFormatter.format ("createSeekOffsetMap(): offsets read from checkpoint: {0}", chkptOffsets));
             }
             if (!operatorName.equals (myOperatorNameInCkpt)) {
                 trace.warn (MsgFormatter.format ("Operator name in checkpoint ({0}) differs from current operator name: {1}", myOperatorNameInCkpt, operatorName));
@@ -1012,32 +1216,24 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
                 trace.error (msg);
                 throw new KafkaOperatorResetFailedException (msg);
             }
-            trace.info (MsgFormatter.format ("contributing {0} partition => offset mappings to the group''s checkpoint.", offsMgr.size()));
+            trace.info (MsgFormatter.format ("contributing {0} partition => offset mappings to the group''s checkpoint.", chkptOffsets.size()));
             if (contributingOperators.size() == 1) {
                 trace.info ("this single operator participated in consumer group at checkpoint time. Checkpoint merge and distribution via MXBean disabled.");
                 assert (contributingOperators.contains (operatorName));
                 initSeekOffsetMap();
-                for (TopicPartition tp: offsMgr.getMappedTopicPartitions()) {
-                    final String topic = tp.topic();
-                    final int partition = tp.partition();
-                    final Long offset = offsMgr.getOffset (topic, partition);
-                    this.seekOffsetMap.put (tp, offset);
-                }
+                chkptOffsets.getTopicOffsets().forEach ((topic, t) -> {
+                    final int[] partitions = t.getPartitions();
+                    final long[] offsets = t.getOffsets();
+                    for (int i = 0; i < partitions.length; ++i) this.seekOffsetMap.put (new TopicPartition (topic, partitions[i]), offsets[i]);
+                });
             }
             else {
                 // send checkpoint data to CrGroupCoordinator MXBean and wait for the notification
                 // to fetch the group's complete checkpoint. Then, process the group's checkpoint.
-                Map<CrConsumerGroupCoordinator.TP, Long> partialOffsetMap = new HashMap<>();
-                for (TopicPartition tp: offsMgr.getMappedTopicPartitions()) {
-                    final String topic = tp.topic();
-                    final int partition = tp.partition();
-                    final Long offset = offsMgr.getOffset (topic, partition);
-                    partialOffsetMap.put (new TP (topic, partition), offset);
-                }
-
-                trace.info (MsgFormatter.format ("Merging my group''s checkpoint contribution: partialOffsetMap = {0}, myOperatorName = {1}",
-                        partialOffsetMap, operatorName));
-                this.crGroupCoordinatorMxBean.mergeConsumerCheckpoint (chkptSeqId, resetAttempt, contributingOperators.size(), partialOffsetMap, operatorName);
+                final byte[] encodedOffsets = chkptOffsets.encode();
+                trace.info (MsgFormatter.format ("Merging my group''s checkpoint contribution: partialOffsetMap = {0}, myOperatorName = {1}, encoded size = {2} bytes",
+                        chkptOffsets, operatorName, encodedOffsets.length));
+                this.crGroupCoordinatorMxBean.mergeConsumerCheckpoint (chkptSeqId, resetAttempt, contributingOperators.size(), encodedOffsets, operatorName);
 
                 // check JMX notification and wait for notification
                 jmxNotificationConditionLock.lock();
@@ -1050,7 +1246,7 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
                 long timeElapsed = 0;
                 trace.log (DEBUG_LEVEL, MsgFormatter.format ("checking receiption of JMX notification {0} for sequenceId {1}. timeout = {2,number,#} ms.",
                         CrConsumerGroupCoordinatorMXBean.MERGE_COMPLETE_NTF_TYPE, key, timeoutMillis));
-                while (!jmxMergeCompletedNotifMap.containsKey (key) && waitTimeLeft) {
+                while (!jmxMergeCompletedNotifKeys.contains (key) && waitTimeLeft) {
                     long remainingTime = timeoutMillis - timeElapsed;
                     waitTimeLeft = remainingTime > 0;
                     if (waitTimeLeft) {
@@ -1061,9 +1257,9 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
                     timeElapsed = System.currentTimeMillis() - waitStartTime;
                 }
 
-                CrConsumerGroupCoordinator.CheckpointMerge merge = jmxMergeCompletedNotifMap.get (key);
+                final boolean mergeComplete = jmxMergeCompletedNotifKeys.contains (key);
                 jmxNotificationConditionLock.unlock();
-                if (merge == null) {
+                if (!mergeComplete) {
                     final String msg = MsgFormatter.format ("timeout receiving {0} JMX notification for {1} from MXBean {2} in JCP. Current timeout is {3,number,#} milliseconds.",
                             CrConsumerGroupCoordinatorMXBean.MERGE_COMPLETE_NTF_TYPE, key, crGroupCoordinatorMXBeanName, timeoutMillis);
                     trace.error (msg);
@@ -1073,13 +1269,9 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
                     trace.info (MsgFormatter.format ("waiting for JMX notification for sequenceId {0} took {1} ms", key, timeElapsed));
                 }
 
-                Map <TP, Long> mergedOffsetMap = merge.getConsolidatedOffsetMap();
-                trace.info ("reset offsets (group's checkpoint) received from MXBean: " + mergedOffsetMap);
-
                 initSeekOffsetMap();
-                mergedOffsetMap.forEach ((tp, offset) -> {
-                    this.seekOffsetMap.put (new TopicPartition (tp.getTopic(), tp.getPartition()), offset);
-                });
+                this.seekOffsetMergeKey = key;
+                addMergedSeekOffsets (getAssignedPartitions());
             }
         }
         catch (InterruptedException e) {
@@ -1102,6 +1294,34 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             this.seekOffsetMap = new HashMap<>();
         }
         else this.seekOffsetMap.clear();
+        this.seekOffsetMergeKey = null;
+    }
+
+    /**
+     * Fetches the offsets of those given partitions, which are not yet contained in the seekOffsetMap,
+     * from the group's merged checkpoint and adds them to the seekOffsetMap.
+     * Nothing is fetched when the seekOffsetMap has not been created from a group's checkpoint merge.
+     * @param partitions the partitions
+     * @throws IOException fetching the offsets from the MXBean failed
+     */
+    private void addMergedSeekOffsets (Collection<TopicPartition> partitions) throws IOException {
+        final MergeKey key = this.seekOffsetMergeKey;
+        if (key == null) return;
+        Map<String, Set<Integer>> missingPartitions = new HashMap<>();
+        for (TopicPartition tp: partitions) {
+            if (!seekOffsetMap.containsKey (tp)) {
+                missingPartitions.computeIfAbsent (tp.topic(), t -> new HashSet<>()).add (tp.partition());
+            }
+        }
+        if (missingPartitions.isEmpty()) return;
+        final byte[] encodedOffsets = this.crGroupCoordinatorMxBean.getConsolidatedOffsets (key.getSequenceId(), key.getResetAttempt(),
+                OffsetsCodec.encodePartitions (missingPartitions), getOperatorContext().getName());
+        final Map<String, Map<Integer, Long>> mergedOffsets = OffsetsCodec.decode (encodedOffsets);
+        trace.info (MsgFormatter.format ("reset offsets (group''s checkpoint {0}) received from MXBean for partitions {1}: {2}; encoded size = {3} bytes",
+                key, missingPartitions, mergedOffsets, encodedOffsets.length));
+        mergedOffsets.forEach ((topic, partitionOffsets) -> {
+            partitionOffsets.forEach ((partition, offset) -> seekOffsetMap.put (new TopicPartition (topic, partition), offset));
+        });
     }
 
 
@@ -1111,7 +1331,7 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
      * Following data is included into the checkpoint in this sequence:
      * <ul>
      * <li>assignablePartitions</li>
-     * <li>assignedPartitionsOffsetManager</li>
+     * <li>the offsets of the assignedPartitionsOffsetManager in the encoding of {@link OffsetSnapshot}</li>
      * <li>current committed offsets fetched from the cluster. Gathering this data is expensive as it involves a Kafka server request.
      * </ul
      * @param checkpoint the reference of the checkpoint object
@@ -1133,12 +1353,14 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             ObjectOutputStream oStream = checkpoint.getOutputStream();
             oStream.writeObject (myOperatorName);
             oStream.writeObject (registeredConsumers);
-            oStream.writeObject (this.assignedPartitionsOffsetManager);
+            submittedOffsets.transferTo (this.assignedPartitionsOffsetManager);
+            oStream.writeObject (this.assignedPartitionsOffsetManager.createSnapshot().encode());
             if (trace.isEnabledFor (DEBUG_LEVEL)) {
                 trace.log (DEBUG_LEVEL, "data written to checkpoint: myOperatorName = " + myOperatorName);
                 trace.log (DEBUG_LEVEL, "data written to checkpoint: contributingOperators = " + registeredConsumers);
                 trace.log (DEBUG_LEVEL, "data written to checkpoint: assignedPartitionsOffsetManager = " + this.assignedPartitionsOffsetManager);
             }
+            publishCheckpointOffsets (getAssignedPartitions());
         } catch (Exception e) {
             throw new KafkaOperatorRuntimeException(e.getMessage(), e);
         }
@@ -1161,6 +1383,18 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
     }
 
 
+    /**
+     * The rebalance callbacks of this client are invoked within poll and commit or seek offsets.
+     * A wakeup would interrupt them.
+     * @return false
+     * @see com.ibm.streamsx.kafka.clients.consumer.AbstractKafkaConsumerClient#isWakeupOnEventEnabled()
+     */
+    @Override
+    protected boolean isWakeupOnEventEnabled() {
+        return false;
+    }
+
+
     /**
      * Polls for messages and enqueues them into the message queue.
      * In the context of this method call also {@link #onPartitionsRevoked(Collection)}
@@ -1196,7 +1430,7 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             }
             r.setNumRecords (numRecords);
             if (trace.isDebugEnabled()) trace.debug ("# polled records: " + numRecords);
-            final BlockingQueue<ConsumerRecord<?, ?>> messageQueue = getMessageQueue();
+            final List<ConsumerRecord<?, ?>> batch = new ArrayList<> (numRecords);
             records.forEach(cr -> {
                 if (trace.isTraceEnabled()) {
                     trace.trace (MsgFormatter.format ("consumed [{0}]: tp={1}, pt={2}, of={3,number,#}, ts={4,number,#}, ky={5}",
@@ -1206,8 +1440,9 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
                 final int ksz = cr.serializedKeySize();
                 if (vsz > 0) r.incrementSumValueSize (vsz);
                 if (ksz > 0) r.incrementSumKeySize (ksz);
-                messageQueue.add(cr);
+                batch.add (cr);
             });
+            getMessageQueue().addBatch (batch);
         }
         return r;
     }
@@ -1235,6 +1470,27 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
         return super.getNextRecord (timeout, timeUnit);
     }
 
+    /**
+     * The method is called by the worker thread that submits tuples after acquiring a permit when in consistent region.
+     * When the state is RESET_COMPLETE or CHECKPOINTED, it initiates polling for Kafka messages and calls the default
+     * implementation from the base class.
+     * 
+     * @param timeout    the timeout to wait for records
+     * @param timeUnit   the unit of time for the timeout
+     * @return the next batch of consumer records or `null` if there were no records within the timeout.
+     * @throws InterruptedException The thread waiting for records has been interrupted.
+     *
+     * @see com.ibm.streamsx.kafka.clients.consumer.AbstractKafkaConsumerClient#getNextBatch(long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public List<ConsumerRecord<?, ?>> getNextBatch (long timeout, TimeUnit timeUnit) throws InterruptedException {
+        if (startPollingRequired.getAndSet (false)) {
+            trace.log (DEBUG_LEVEL, MsgFormatter.format ("getNextBatch() [{0}] - Acquired permit - initiating polling for Kafka messages", state));
+            sendStartPollingEvent();
+        }
+        return super.getNextBatch (timeout, timeUnit);
+    }
+
     /**
      * @param triggerCount the triggerCount to set
      */
@@ -1242,6 +1498,13 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
         this.triggerCount = triggerCount;
     }
 
+    /**
+     * @param incrementalRebalance when true, a partition rebalance resets the consistent region only when tuples have been submitted after the last checkpoint for partitions that are assigned to another consumer.
+     */
+    public void setIncrementalRebalance (boolean incrementalRebalance) {
+        this.incrementalRebalance = incrementalRebalance;
+    }
+
 
 
     /**
@@ -1287,10 +1550,14 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
         private Class<?> valueClass;
         private KafkaOperatorProperties kafkaProperties;
         private long pollTimeout;
+        private long maxQueuedBytes = 0L;
+        private boolean fairPartitionSubmission = false;
         private long triggerCount;
         private StartPosition initialStartPosition;
         private long initialStartTimestamp;
         private boolean singleTopic = false;   // safest default
+        private boolean commitInProducerTransaction = false;
+        private boolean incrementalRebalance = false;
 
         public final Builder setOperatorContext(OperatorContext c) {
             this.operatorContext = c;
@@ -1318,11 +1585,31 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             return this;
         }
 
+        public final Builder setMaxQueuedBytes (long b) {
+            this.maxQueuedBytes = b;
+            return this;
+        }
+
+        public final Builder setFairPartitionSubmission (boolean f) {
+            this.fairPartitionSubmission = f;
+            return this;
+        }
+
         public final Builder setTriggerCount (long c) {
             this.triggerCount = c;
             return this;
         }
 
+        public final Builder setCommitInProducerTransaction (boolean c) {
+            this.commitInProducerTransaction = c;
+            return this;
+        }
+
+        public final Builder setIncrementalRebalance (boolean r) {
+            this.incrementalRebalance = r;
+            return this;
+        }
+
         public final Builder setSingleTopic (boolean s) {
             this.singleTopic = s;
             return this;
@@ -1356,9 +1643,13 @@ public class CrKafkaConsumerGroupClient extends AbstractCrKafkaConsumerClient im
             p.putAll (this.kafkaProperties);
             CrKafkaConsumerGroupClient client = new CrKafkaConsumerGroupClient (operatorContext, keyClass, valueClass, p, singleTopic);
             client.setPollTimeout (this.pollTimeout);
+            client.setMaxQueuedBytes (this.maxQueuedBytes);
+            client.setFairPartitionSubmission (this.fairPartitionSubmission);
             client.setTriggerCount (this.triggerCount);
             client.setInitialStartPosition (this.initialStartPosition);
             client.setInitialStartTimestamp (this.initialStartTimestamp);
+            client.setCommitInProducerTransaction (this.commitInProducerTransaction);
+            client.setIncrementalRebalance (this.incrementalRebalance);
             return client;
         }
 
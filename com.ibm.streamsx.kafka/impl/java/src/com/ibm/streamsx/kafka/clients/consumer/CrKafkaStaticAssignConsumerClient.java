@@ -14,8 +14,10 @@
 package com.ibm.streamsx.kafka.clients.consumer;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.time.Duration;
-import java.util.Base64;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -25,7 +27,6 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.regex.Pattern;
 
-import org.apache.commons.lang3.SerializationUtils;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
@@ -41,7 +42,10 @@ import com.ibm.streams.operator.state.ConsistentRegionContext;
 import com.ibm.streamsx.kafka.KafkaClientInitializationException;
 import com.ibm.streamsx.kafka.KafkaConfigurationException;
 import com.ibm.streamsx.kafka.KafkaOperatorException;
+import com.ibm.streamsx.kafka.KafkaOperatorResetFailedException;
+import com.ibm.streamsx.kafka.MsgFormatter;
 import com.ibm.streamsx.kafka.clients.OffsetManager;
+import com.ibm.streamsx.kafka.clients.OffsetSnapshot;
 import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
 
 /**
@@ -51,11 +55,18 @@ import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
 public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerClient {
 
     private static final Logger logger = Logger.getLogger(CrKafkaStaticAssignConsumerClient.class);
+    /** marker of the delta checkpoint format; checkpoints of previous versions contain the serialized OffsetManager */
+    private static final String CHECKPOINT_FORMAT = "offsets.delta.v1";
+    /** number of delta checkpoints after which a full checkpoint is taken */
+    private static final int FULL_CHECKPOINT_INTERVAL = 10;
 
     private long triggerCount; 
     private long nSubmittedRecords = 0l;
     private OffsetManager offsetManager;
     private ControlVariableAccessor<String> offsetManagerCV;
+    /** the last full checkpoint, which is the base of the delta checkpoints */
+    private final DeltaCheckpointBase checkpointBase = new DeltaCheckpointBase (FULL_CHECKPOINT_INTERVAL);
+    private final Map<Integer, ControlVariableAccessor<String>> snapshotCVs = new HashMap<>();
 
 
     private <K, V> CrKafkaStaticAssignConsumerClient (OperatorContext operatorContext, Class<K> keyClass, Class<V> valueClass,
@@ -110,24 +121,67 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
     }
 
     /**
-     * Retrieves the Offset Manager from the JCP control variable.
-     * @return  an OffsetManager object
+     * Retrieves the offsets of the Offset Manager from the JCP control variable.
+     * The control variable can also contain the Java serialized OffsetManager of previous toolkit versions.
+     * @return  the offsets
      * @throws Exception
      */
-    private OffsetManager getDeserializedOffsetManagerCV() throws Exception {
-        return SerializationUtils.deserialize(Base64.getDecoder().decode (offsetManagerCV.sync().getValue()));
+    private OffsetSnapshot getDeserializedOffsetManagerCV() throws Exception {
+        return OffsetSnapshot.fromControlVariableValue (offsetManagerCV.sync().getValue());
     }
 
     /**
-     * Creates an operator-scoped JCP control variable and stores the Offset manager in serialized format.
+     * Creates an operator-scoped JCP control variable and stores the offsets of the Offset manager in the encoding of {@link OffsetSnapshot}.
      * @throws Exception
      */
     private void createJcpCvFromOffsetManagerl() throws Exception {
         logger.log (DEBUG_LEVEL, "createJcpCvFromOffsetManagerl(). offsetManager = " + offsetManager); 
         offsetManagerCV = getJcpContext().createStringControlVariable(OffsetManager.class.getName(),
-                false, serializeObject(offsetManager));
-        OffsetManager mgr = getDeserializedOffsetManagerCV();
-        logger.log (DEBUG_LEVEL, "Retrieved value for offsetManagerCV = " + mgr); 
+                false, offsetManager.createSnapshot().toControlVariableValue());
+        if (logger.isEnabledFor (DEBUG_LEVEL)) {
+            OffsetSnapshot offsets = getDeserializedOffsetManagerCV();
+            logger.log (DEBUG_LEVEL, "Retrieved value for offsetManagerCV = " + offsets); 
+        }
+    }
+
+    /**
+     * Stores the base snapshot of delta checkpoints in an operator-scoped JCP control variable.
+     * Two control variables are used alternately, so that the base of the last completed checkpoint is never overwritten.
+     * @param slot the slot, 0 or 1
+     * @param seqId the sequence ID of the full checkpoint
+     * @param snapshot the snapshot
+     * @throws Exception
+     */
+    private void saveCheckpointBaseCV (int slot, long seqId, OffsetSnapshot snapshot) throws Exception {
+        final String value = seqId + ":" + snapshot.toControlVariableValue();
+        ControlVariableAccessor<String> cv = snapshotCVs.get (slot);
+        if (cv == null) {
+            cv = getJcpContext().createStringControlVariable (OffsetSnapshot.class.getName() + "." + slot, false, value);
+            snapshotCVs.put (slot, cv);
+        }
+        cv.setValue (value);
+        logger.log (DEBUG_LEVEL, MsgFormatter.format ("checkpoint base of checkpoint {0,number,#} saved in slot {1}; size = {2} chars", seqId, slot, value.length()));
+    }
+
+    /**
+     * Retrieves the base snapshot of delta checkpoints from the JCP control variable.
+     * @param slot the slot, 0 or 1
+     * @param seqId the expected sequence ID of the full checkpoint
+     * @return the snapshot
+     * @throws Exception the control variable does not contain the base snapshot of the given checkpoint
+     */
+    private OffsetSnapshot getCheckpointBaseCV (int slot, long seqId) throws Exception {
+        ControlVariableAccessor<String> cv = snapshotCVs.get (slot);
+        if (cv == null) {
+            cv = getJcpContext().createStringControlVariable (OffsetSnapshot.class.getName() + "." + slot, false, "");
+            snapshotCVs.put (slot, cv);
+        }
+        final String value = cv.sync().getValue();
+        final int sep = value.indexOf (':');
+        if (sep < 0 || Long.parseLong (value.substring (0, sep)) != seqId) {
+            throw new KafkaOperatorResetFailedException (MsgFormatter.format ("base of delta checkpoint not found: slot = {0}, checkpoint = {1,number,#}", slot, seqId));
+        }
+        return OffsetSnapshot.fromControlVariableValue (value.substring (sep + 1));
     }
 
 
@@ -340,6 +394,7 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
         int numRecords = records == null? 0: records.count();
         EnqueResult r = new EnqueResult (numRecords);
         if (numRecords > 0) {
+            final List<ConsumerRecord<?, ?>> batch = new ArrayList<> (numRecords);
             records.forEach(cr -> {
                 if (logger.isTraceEnabled()) {
                     logger.trace (cr.topic() + "-" + cr.partition() + " key=" + cr.key() + " - offset=" + cr.offset()); //$NON-NLS-1$
@@ -348,8 +403,9 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
                 final int ksz = cr.serializedKeySize();
                 if (vsz > 0) r.incrementSumValueSize (vsz);
                 if (ksz > 0) r.incrementSumKeySize (ksz);
-                getMessageQueue().add(cr);
+                batch.add (cr);
             });
+            getMessageQueue().addBatch (batch);
         }
         return r;
     }
@@ -385,7 +441,7 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
                 }
             }
             if (!offsets.isEmpty()) {
-                sendCommitEvent (offsets);
+                commitOffsetsOnDrain (offsets);
             }
             // drain is followed by checkpoint. 
             // Don't poll for new messages in the meantime. - Don't send a 'start polling event'
@@ -404,9 +460,11 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
     protected void processResetToInitEvent() {
         logger.log (DEBUG_LEVEL, "processResetToInitEvent() - entering");
         try {
-            final OffsetManager ofsm = getDeserializedOffsetManagerCV();
-            offsetManager.putOffsets (ofsm);
+            final OffsetSnapshot initialOffsets = getDeserializedOffsetManagerCV();
+            offsetManager.putOffsets (initialOffsets);
             logger.log (DEBUG_LEVEL, "offsetManager after applying initial state = " + offsetManager); //$NON-NLS-1$
+            // next checkpoint is a full checkpoint
+            checkpointBase.invalidate();
             // refresh from the cluster as we may
             // have written to the topics
             refreshFromCluster();
@@ -491,9 +549,36 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
         try {
             clearDrainBuffer();
             getMessageQueue().clear();
-            final OffsetManager ofsm = (OffsetManager) checkpoint.getInputStream().readObject();
-            logger.log (DEBUG_LEVEL, "offsetManager from checkpoint = " + ofsm); //$NON-NLS-1$
-            offsetManager.putOffsets (ofsm);
+            final ObjectInputStream in = checkpoint.getInputStream();
+            final Object format = in.readObject();
+            if (format instanceof OffsetManager) {
+                // checkpoint of a previous toolkit version
+                final OffsetManager ofsm = (OffsetManager) format;
+                logger.log (DEBUG_LEVEL, "offsetManager from checkpoint = " + ofsm); //$NON-NLS-1$
+                offsetManager.putOffsets (ofsm);
+                checkpointBase.invalidate();
+            }
+            else if (CHECKPOINT_FORMAT.equals (format)) {
+                final boolean full = in.readBoolean();
+                final long baseSeqId = in.readLong();
+                final int baseSlot = in.readInt();
+                OffsetSnapshot snapshot = OffsetSnapshot.decode ((byte[]) in.readObject());
+                final OffsetSnapshot base;
+                if (full) {
+                    base = snapshot;
+                }
+                else {
+                    logger.log (DEBUG_LEVEL, "delta from checkpoint = " + snapshot); //$NON-NLS-1$
+                    base = getCheckpointBaseCV (baseSlot, baseSeqId);
+                    snapshot = base.apply (snapshot);
+                }
+                checkpointBase.reset (base, baseSeqId, baseSlot);
+                logger.log (DEBUG_LEVEL, "offsets from checkpoint = " + snapshot); //$NON-NLS-1$
+                offsetManager.putOffsets (snapshot);
+            }
+            else {
+                throw new KafkaOperatorResetFailedException ("unsupported checkpoint format: " + format);
+            }
             logger.log (DEBUG_LEVEL, "offsetManager after applying checkpoint = " + offsetManager); //$NON-NLS-1$
             refreshFromCluster();
             this.nSubmittedRecords = 0;
@@ -506,19 +591,51 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
 
     /**
      * Creates a checkpoint of the current state when used in consistent region.
-     * Only the offset manager is included into the checkpoint.
+     * Only the offsets of the offset manager are included into the checkpoint.
+     * Every {@value #FULL_CHECKPOINT_INTERVAL}th checkpoint is a full checkpoint, which contains all offsets.
+     * The full checkpoint is also stored in a JCP control variable as the base for the following delta checkpoints,
+     * which contain only the partitions whose offsets have changed since the full checkpoint.
+     * A delta cannot be taken relative to the previous checkpoint because only the checkpoint that the region
+     * is reset to can be read on reset.
      * @param checkpoint the reference of the checkpoint object
      */
     @Override
     protected void processCheckpointEvent (Checkpoint checkpoint) {
-        logger.log (DEBUG_LEVEL, "processCheckpointEvent() - entering. seq = " + checkpoint.getSequenceId());
+        final long seqId = checkpoint.getSequenceId();
+        logger.log (DEBUG_LEVEL, "processCheckpointEvent() - entering. seq = " + seqId);
         try {
-            // offsetManager.savePositionFromCluster();
-            checkpoint.getOutputStream().writeObject(offsetManager);
-            if (logger.isEnabledFor (DEBUG_LEVEL)) {
-                logger.log (DEBUG_LEVEL, "offsetManager=" + offsetManager); //$NON-NLS-1$
+            final OffsetSnapshot snapshot;
+            synchronized (offsetManager) {
+                snapshot = offsetManager.createSnapshot();
+            }
+            final ObjectOutputStream out = checkpoint.getOutputStream();
+            out.writeObject (CHECKPOINT_FORMAT);
+            if (checkpointBase.isFullCheckpointDue()) {
+                // write the base into the slot that is not used by the last checkpoint
+                final int slot = checkpointBase.getNextSlot();
+                saveCheckpointBaseCV (slot, seqId, snapshot);
+                out.writeBoolean (true);
+                out.writeLong (seqId);
+                out.writeInt (slot);
+                out.writeObject (snapshot.encode());
+                checkpointBase.fullCheckpointTaken (seqId, slot, snapshot);
+                if (logger.isEnabledFor (DEBUG_LEVEL)) {
+                    logger.log (DEBUG_LEVEL, "full checkpoint: " + snapshot); //$NON-NLS-1$
+                }
             }
-        } catch (IOException e) {
+            else {
+                final OffsetSnapshot delta = snapshot.delta (checkpointBase.getBase());
+                out.writeBoolean (false);
+                out.writeLong (checkpointBase.getBaseSeqId());
+                out.writeInt (checkpointBase.getBaseSlot());
+                out.writeObject (delta.encode());
+                checkpointBase.deltaCheckpointTaken();
+                if (logger.isEnabledFor (DEBUG_LEVEL)) {
+                    logger.log (DEBUG_LEVEL, MsgFormatter.format ("delta checkpoint with {0} of {1} offsets relative to checkpoint {2,number,#}: {3}",
+                            delta.size(), snapshot.size(), checkpointBase.getBaseSeqId(), delta));
+                }
+            }
+        } catch (Exception e) {
             throw new RuntimeException (e.getLocalizedMessage(), e);
         }
         logger.log (DEBUG_LEVEL, "processCheckpointEvent() - exiting");
@@ -530,6 +647,7 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
      */
     @Override
     public void onCheckpointRetire (long id) {
+        commitUnclaimedOffsets();
     }
 
 
@@ -543,7 +661,10 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
         private Class<?> valueClass;
         private KafkaOperatorProperties kafkaProperties;
         private long pollTimeout;
+        private long maxQueuedBytes = 0L;
+        private boolean fairPartitionSubmission = false;
         private long triggerCount;
+        private boolean commitInProducerTransaction = false;
 
         public final Builder setOperatorContext(OperatorContext c) {
             this.operatorContext = c;
@@ -571,11 +692,26 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
             return this;
         }
 
+        public final Builder setMaxQueuedBytes (long b) {
+            this.maxQueuedBytes = b;
+            return this;
+        }
+
+        public final Builder setFairPartitionSubmission (boolean f) {
+            this.fairPartitionSubmission = f;
+            return this;
+        }
+
         public final Builder setTriggerCount (long c) {
             this.triggerCount = c;
             return this;
         }
 
+        public final Builder setCommitInProducerTransaction (boolean c) {
+            this.commitInProducerTransaction = c;
+            return this;
+        }
+
         @Override
         public ConsumerClient build() throws Exception {
             KafkaOperatorProperties p = new KafkaOperatorProperties();
@@ -586,7 +722,10 @@ public class CrKafkaStaticAssignConsumerClient extends AbstractCrKafkaConsumerCl
             }
             CrKafkaStaticAssignConsumerClient client = new CrKafkaStaticAssignConsumerClient (operatorContext, keyClass, valueClass, p);
             client.setPollTimeout (pollTimeout);
+            client.setMaxQueuedBytes (maxQueuedBytes);
+            client.setFairPartitionSubmission (fairPartitionSubmission);
             client.setTriggerCount (triggerCount);
+            client.setCommitInProducerTransaction (commitInProducerTransaction);
             return client;
         }
 
@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.consumer;
+
+import com.ibm.streamsx.kafka.clients.OffsetSnapshot;
+
+/**
+ * Keeps track of the base of delta checkpoints, which is the last full checkpoint.
+ * <p>
+ * The base is stored in one of two control variable slots. A new base is always written into the slot
+ * that is not used by the current base, so that the base of the last completed checkpoint is never overwritten
+ * while a checkpoint is in progress.
+ */
+class DeltaCheckpointBase {
+
+    private final int fullCheckpointInterval;
+    /** the last full checkpoint; null when the next checkpoint must be a full checkpoint */
+    private OffsetSnapshot base = null;
+    private long baseSeqId = -1L;
+    /** the control variable slot (0 or 1) that contains the base */
+    private int baseSlot = 1;
+    private int nDeltaCheckpoints = 0;
+
+    /**
+     * Constructs a new instance.
+     * @param fullCheckpointInterval the number of checkpoints after which a full checkpoint is taken.
+     */
+    DeltaCheckpointBase (int fullCheckpointInterval) {
+        this.fullCheckpointInterval = fullCheckpointInterval;
+    }
+
+    /**
+     * @return true, if the next checkpoint must be a full checkpoint, false if it can be a delta checkpoint.
+     */
+    boolean isFullCheckpointDue() {
+        return base == null || nDeltaCheckpoints >= fullCheckpointInterval -1;
+    }
+
+    /**
+     * @return the slot for the base of the next full checkpoint, which is the slot not used by the current base.
+     */
+    int getNextSlot() {
+        return 1 - baseSlot;
+    }
+
+    /**
+     * Records a full checkpoint, which becomes the base of the following delta checkpoints.
+     * @param seqId the sequence ID of the checkpoint
+     * @param slot the slot in which the base has been stored
+     * @param snapshot the offsets of the checkpoint
+     */
+    void fullCheckpointTaken (long seqId, int slot, OffsetSnapshot snapshot) {
+        this.base = snapshot;
+        this.baseSeqId = seqId;
+        this.baseSlot = slot;
+        this.nDeltaCheckpoints = 0;
+    }
+
+    /**
+     * Records a delta checkpoint relative to the current base.
+     */
+    void deltaCheckpointTaken() {
+        ++nDeltaCheckpoints;
+    }
+
+    /**
+     * Restores the state after reset to a checkpoint.
+     * @param base the base of the checkpoint
+     * @param seqId the sequence ID of the full checkpoint
+     * @param slot the slot that contains the base
+     */
+    void reset (OffsetSnapshot base, long seqId, int slot) {
+        fullCheckpointTaken (seqId, slot, base);
+    }
+
+    /**
+     * Invalidates the base, so that the next checkpoint is a full checkpoint.
+     * The slot of the invalidated base is not overwritten by the next full checkpoint.
+     */
+    void invalidate() {
+        this.base = null;
+    }
+
+    /**
+     * @return the base snapshot or null
+     */
+    OffsetSnapshot getBase() {
+        return base;
+    }
+
+    /**
+     * @return the sequence ID of the full checkpoint that is the base
+     */
+    long getBaseSeqId() {
+        return baseSeqId;
+    }
+
+    /**
+     * @return the slot that contains the base
+     */
+    int getBaseSlot() {
+        return baseSlot;
+    }
+}
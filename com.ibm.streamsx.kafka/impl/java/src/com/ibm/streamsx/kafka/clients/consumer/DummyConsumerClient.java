@@ -199,6 +199,25 @@ public class DummyConsumerClient extends AbstractKafkaClient implements Consumer
         return null;
     }
 
+    /**
+     * @return null
+     * @see com.ibm.streamsx.kafka.clients.consumer.ConsumerClient#getNextBatch(long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public List<ConsumerRecord<?, ?>> getNextBatch (long timeout, TimeUnit timeUnit) throws InterruptedException {
+        Thread.sleep (timeUnit.toMillis (timeout));
+        return null;
+    }
+
+    /**
+     * @return false
+     * @see com.ibm.streamsx.kafka.clients.consumer.ConsumerClient#isBatchValid()
+     */
+    @Override
+    public boolean isBatchValid() {
+        return false;
+    }
+
     /**
      * Empty implementation
      * @see com.ibm.streamsx.kafka.clients.consumer.ConsumerClient#postSubmit(org.apache.kafka.clients.consumer.ConsumerRecord)
@@ -115,6 +115,22 @@ public class Event {
         return eventType;
     }
 
+    /**
+     * Tests whether the event can be processed by the polling thread between two polls without terminating the poll loop.
+     * These events do not change the polling mode, for example throttled or unthrottled polling.
+     * @return true, if the event can be processed within the poll loop, false otherwise.
+     */
+    public boolean isInlineCapable() {
+        switch (eventType) {
+        case COMMIT_OFFSETS:
+        case CONTROLPORT_EVENT:
+        case CHECKPOINT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
@@ -376,12 +376,10 @@ public class NonCrKafkaConsumerClient extends AbstractNonCrKafkaConsumerClient {
             }
         }
         else {
-            // periodic checkpoint - create the checkpoint by the event thread
-            sendStopPollingEvent();
+            // periodic checkpoint - create the checkpoint by the event thread; a running poll loop processes it between two polls
             Event event = new Event (Event.EventType.CHECKPOINT, checkpoint, true);
             sendEvent (event);
             event.await();
-            if (isSubscribedOrAssigned()) sendStartPollingEvent();
         }
     }
 
@@ -413,10 +411,14 @@ public class NonCrKafkaConsumerClient extends AbstractNonCrKafkaConsumerClient {
         private Class<?> valueClass;
         private KafkaOperatorProperties kafkaProperties;
         private long pollTimeout;
+        private long maxQueuedBytes = 0L;
+        private boolean fairPartitionSubmission = false;
         private long commitCount;
         private StartPosition initialStartPosition;
         private CommitMode commitMode;
         private long commitPeriodMillis;
+        private boolean commitCoalesced = false;
+        private RecordSubmitter directSubmitter = null;
 
         public final Builder setOperatorContext(OperatorContext c) {
             this.operatorContext = c;
@@ -444,6 +446,16 @@ public class NonCrKafkaConsumerClient extends AbstractNonCrKafkaConsumerClient {
             return this;
         }
 
+        public final Builder setMaxQueuedBytes (long b) {
+            this.maxQueuedBytes = b;
+            return this;
+        }
+
+        public final Builder setFairPartitionSubmission (boolean f) {
+            this.fairPartitionSubmission = f;
+            return this;
+        }
+
         public final Builder setCommitCount (long t) {
             this.commitCount = t;
             return this;
@@ -459,6 +471,16 @@ public class NonCrKafkaConsumerClient extends AbstractNonCrKafkaConsumerClient {
             return this;
         }
 
+        public final Builder setCommitCoalesced (boolean c) {
+            this.commitCoalesced = c;
+            return this;
+        }
+
+        public final Builder setDirectSubmitter (RecordSubmitter s) {
+            this.directSubmitter = s;
+            return this;
+        }
+
         public final Builder setInitialStartPosition (StartPosition p) {
             this.initialStartPosition = p;
             return this;
@@ -474,9 +496,13 @@ public class NonCrKafkaConsumerClient extends AbstractNonCrKafkaConsumerClient {
             }
             NonCrKafkaConsumerClient client = new NonCrKafkaConsumerClient (operatorContext, keyClass, valueClass, p);
             client.setPollTimeout (pollTimeout);
+            client.setMaxQueuedBytes (maxQueuedBytes);
+            client.setFairPartitionSubmission (fairPartitionSubmission);
             client.setCommitMode (commitMode);
             client.setCommitCount (commitCount);
             client.setCommitPeriodMillis (commitPeriodMillis); 
+            client.setCommitCoalesced (commitCoalesced);
+            client.setDirectSubmitter (directSubmitter);
             client.setInitialStartPosition (initialStartPosition);
             return client;
         }
@@ -77,6 +77,18 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
     }
 
 
+    /**
+     * The rebalance callbacks of this client are invoked within poll and commit or seek offsets.
+     * A wakeup would interrupt them.
+     * @return false
+     * @see com.ibm.streamsx.kafka.clients.consumer.AbstractKafkaConsumerClient#isWakeupOnEventEnabled()
+     */
+    @Override
+    protected boolean isWakeupOnEventEnabled() {
+        return false;
+    }
+
+
     /**
      * @see com.ibm.streamsx.kafka.clients.consumer.ConsumerClient#supports(com.ibm.streamsx.kafka.clients.consumer.ControlPortAction)
      */
@@ -214,12 +226,14 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
         // remove the content of the queue. It contains uncommitted messages.
         // They will fetched again after rebalance.
         getMessageQueue().clear();
-        OffsetManager offsetManager = getOffsetManager();
         setConsumedTopics (null);
         try {
             awaitMessageQueueProcessed();
             // the post-condition is, that all messages from the queue have submitted as 
             // tuples and its offsets +1 are stored in OffsetManager.
+            // the offsets are committed synchronously below; previously handed over offsets must not be committed after the rebalance
+            discardPendingAsyncCommit();
+            OffsetManager offsetManager = getOffsetManager();
             final boolean commitSync = true;
             final boolean commitPartitionWise = false;
             CommitInfo offsets = new CommitInfo (commitSync, commitPartitionWise);
@@ -241,7 +255,7 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
             // Ignore InterruptedException, RuntimeException from commitOffsets is already traced.
         }
         finally {
-            offsetManager.clear();
+            clearOffsetManager();
         }
     }
 
@@ -255,8 +269,7 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
         getAssignedPartitions().clear();
         getAssignedPartitions().addAll(partitions);
         nAssignedPartitions.setValue(partitions.size());
-        OffsetManager offsetManager = getOffsetManager();
-        offsetManager.clear();
+        clearOffsetManager();
         setConsumedTopics (partitions);
         // override the fetch offset according to initialStartPosition for 
         // those partitions, which are never committed within the group
@@ -339,11 +352,11 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
                     // no partition rebalance will happen, where we ususally commit offsets. Commit now.
                     // remove the content of the queue. It contains uncommitted messages.
                     getMessageQueue().clear();
-                    OffsetManager offsetManager = getOffsetManager();
                     try {
                         awaitMessageQueueProcessed();
                         // the post-condition is, that all messages from the queue have submitted as 
                         // tuples and its offsets +1 are stored in OffsetManager.
+                        OffsetManager offsetManager = getOffsetManager();
                         final boolean commitSync = true;
                         final boolean commitPartitionWise = false;
                         CommitInfo offsets = new CommitInfo (commitSync, commitPartitionWise);
@@ -365,7 +378,7 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
                     catch (InterruptedException | RuntimeException e) {
                         // Ignore InterruptedException, RuntimeException from commitOffsets is already traced.
                     }
-                    offsetManager.clear();
+                    clearOffsetManager();
                 }
                 subscribe (newSubscription, this);
                 // getChkptContext().getKind() is not reported properly. Streams Build 20180710104900 (4.3.0.0) never returns OPERATOR_DRIVEN
@@ -405,12 +418,10 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
             }
         }
         else {
-            // periodic checkpoint - create the checkpoint by the event thread
-            sendStopPollingEvent();
+            // periodic checkpoint - create the checkpoint by the event thread; a running poll loop processes it between two polls
             Event event = new Event (Event.EventType.CHECKPOINT, checkpoint, true);
             sendEvent (event);
             event.await();
-            if (isSubscribedOrAssigned()) sendStartPollingEvent();
         }
     }
 
@@ -481,11 +492,15 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
         private Class<?> valueClass;
         private KafkaOperatorProperties kafkaProperties;
         private long pollTimeout;
+        private long maxQueuedBytes = 0L;
+        private boolean fairPartitionSubmission = false;
         private long commitCount;
         private StartPosition initialStartPosition;
         private boolean singleTopic = false;   // safest default
         private CommitMode commitMode;
         private long commitPeriodMillis;
+        private boolean commitCoalesced = false;
+        private RecordSubmitter directSubmitter = null;
 
         public final Builder setOperatorContext(OperatorContext c) {
             this.operatorContext = c;
@@ -513,6 +528,16 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
             return this;
         }
 
+        public final Builder setMaxQueuedBytes (long b) {
+            this.maxQueuedBytes = b;
+            return this;
+        }
+
+        public final Builder setFairPartitionSubmission (boolean f) {
+            this.fairPartitionSubmission = f;
+            return this;
+        }
+
         public final Builder setCommitCount (long t) {
             this.commitCount = t;
             return this;
@@ -528,6 +553,16 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
             return this;
         }
 
+        public final Builder setCommitCoalesced (boolean c) {
+            this.commitCoalesced = c;
+            return this;
+        }
+
+        public final Builder setDirectSubmitter (RecordSubmitter s) {
+            this.directSubmitter = s;
+            return this;
+        }
+
         public final Builder setSingleTopic (boolean s) {
             this.singleTopic = s;
             return this;
@@ -544,9 +579,13 @@ public class NonCrKafkaConsumerGroupClient extends AbstractNonCrKafkaConsumerCli
             p.putAll (this.kafkaProperties);
             NonCrKafkaConsumerGroupClient client = new NonCrKafkaConsumerGroupClient (operatorContext, keyClass, valueClass, p, singleTopic);
             client.setPollTimeout (pollTimeout);
+            client.setMaxQueuedBytes (maxQueuedBytes);
+            client.setFairPartitionSubmission (fairPartitionSubmission);
             client.setCommitMode (commitMode);
             client.setCommitCount (commitCount);
             client.setCommitPeriodMillis (commitPeriodMillis); 
+            client.setCommitCoalesced (commitCoalesced);
+            client.setDirectSubmitter (directSubmitter);
             client.setInitialStartPosition (initialStartPosition);
             return client;
         }
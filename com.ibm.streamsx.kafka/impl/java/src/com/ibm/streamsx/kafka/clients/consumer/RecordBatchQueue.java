@@ -0,0 +1,619 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.consumer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * A bounded queue for consumer records, which hands over the records in batches.
+ * The polling thread enqueues all records of one `poll` as one batch, the tuple submitter thread
+ * takes a whole batch with one single lock acquisition. The capacity of the queue is a number of records, not of batches.
+ * In addition to the number of records, the queue accounts the serialized key and value sizes of the queued records,
+ * in total and per topic partition.
+ *
+ * In fair mode, the records are queued per topic partition, and the taken batches are composed round-robin
+ * from all partitions that have records, so that a partition with a large backlog cannot delay the records
+ * of other partitions. The order of records within a partition is always preserved.
+ *
+ * Every call of {@link #clear()} increments the generation of the queue. The consumer of batches can use {@link #isTakenBatchValid()}
+ * to detect that records, which it has taken from the queue but not yet processed, have become stale.
+ * The queue is designed for one single thread that takes batches.
+ *
+ * This class is thread-safe.
+ *
+ * @author IBM Kafka toolkit maintainers
+ */
+public class RecordBatchQueue {
+
+    /**
+     * Accounting, and in fair mode the records, of one topic partition.
+     */
+    private static class PartitionState {
+        final TopicPartition tp;
+        int count = 0;
+        long bytes = 0L;
+        /** the queued records in fair mode, null otherwise */
+        final ArrayDeque<ConsumerRecord<?, ?>> records;
+        /** true when this partition is in the round-robin ring; fair mode only */
+        boolean inRing = false;
+
+        PartitionState (TopicPartition tp, boolean fair) {
+            this.tp = tp;
+            this.records = fair? new ArrayDeque<>(): null;
+        }
+    }
+
+    /**
+     * The accounting of the records of one topic partition within a batch.
+     */
+    private static class PartitionAccount {
+        final TopicPartition tp;
+        int count = 0;
+        long bytes = 0L;
+
+        PartitionAccount (TopicPartition tp) {
+            this.tp = tp;
+        }
+    }
+
+    /**
+     * A queued batch of records in non-fair mode with the accounting of its records per topic partition.
+     * The accounting is created outside of the lock, so that the lock is held only once per partition of the batch.
+     */
+    private static class Batch {
+        final List<ConsumerRecord<?, ?>> records;
+        List<PartitionAccount> accounts;
+
+        Batch (List<ConsumerRecord<?, ?>> records) {
+            this.records = records;
+            this.accounts = account (records);
+        }
+
+        /**
+         * Gets the account of the partition of a record.
+         * @param r the record
+         * @return the account or null, if the partition of the record has no account
+         */
+        PartitionAccount getAccount (ConsumerRecord<?, ?> r) {
+            for (PartitionAccount a: accounts) {
+                if (a.tp.partition() == r.partition() && a.tp.topic().equals (r.topic())) return a;
+            }
+            return null;
+        }
+
+        /**
+         * Creates the accounts of the records per topic partition.
+         * @param records the records
+         * @return the accounts
+         */
+        static List<PartitionAccount> account (List<ConsumerRecord<?, ?>> records) {
+            final List<PartitionAccount> accounts = new ArrayList<>();
+            final Map<TopicPartition, PartitionAccount> m = new HashMap<>();
+            PartitionAccount last = null;
+            for (ConsumerRecord<?, ?> r: records) {
+                if (last == null || last.tp.partition() != r.partition() || !last.tp.topic().equals (r.topic())) {
+                    final TopicPartition tp = new TopicPartition (r.topic(), r.partition());
+                    last = m.get (tp);
+                    if (last == null) {
+                        last = new PartitionAccount (tp);
+                        m.put (tp, last);
+                        accounts.add (last);
+                    }
+                }
+                last.count++;
+                last.bytes += sizeInBytes (r);
+            }
+            return accounts;
+        }
+    }
+
+    private final int capacity;
+    /** the target number of records of a batch taken in fair mode; 0 when not in fair mode */
+    private final int fairBatchSize;
+    /** the queued batches; non-fair mode only */
+    private final ArrayDeque<Batch> batches = new ArrayDeque<>();
+    /** state per topic partition; guarded by the lock */
+    private final Map<TopicPartition, PartitionState> partitions = new HashMap<>();
+    /** the partitions with queued records in round-robin order; fair mode only; guarded by the lock */
+    private final ArrayDeque<PartitionState> ring = new ArrayDeque<>();
+    /** the last looked up partition state; consecutive records are mostly from the same partition; guarded by the lock */
+    private PartitionState lastState = null;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    /** the number of records in the queue; modified only under the lock */
+    private volatile int size = 0;
+    /** the sum of serialized key and value sizes of the records in the queue; modified only under the lock */
+    private volatile long sizeInBytes = 0L;
+    /** incremented on every clear; modified only under the lock */
+    private volatile long generation = 0L;
+    /** the generation of the queue when the last batch has been taken; modified only under the lock */
+    private volatile long takenBatchGeneration = 0L;
+    /** read position within the head batch when single records are taken; guarded by the lock */
+    private int headPos = 0;
+
+    /**
+     * Creates a new queue.
+     * @param capacity the capacity in number of records
+     */
+    public RecordBatchQueue (int capacity) {
+        this (capacity, 0);
+    }
+
+    /**
+     * Creates a new queue.
+     * @param capacity      the capacity in number of records
+     * @param fairBatchSize when greater than 0, the queue operates in fair mode and the batches taken by {@link #pollBatch(long, TimeUnit)}
+     *                      contain approximately this number of records distributed over all partitions with queued records.
+     */
+    public RecordBatchQueue (int capacity, int fairBatchSize) {
+        if (capacity <= 0) throw new IllegalArgumentException ("capacity <= 0");
+        this.capacity = capacity;
+        this.fairBatchSize = fairBatchSize > 0? fairBatchSize: 0;
+    }
+
+    /**
+     * @return the capacity in number of records
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return true, if records are taken round-robin from the partitions, false, if they are taken in the order of arrival.
+     */
+    public boolean isFair() {
+        return fairBatchSize > 0;
+    }
+
+    /**
+     * @return the number of records in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the sum of the serialized key and value sizes of the queued records in bytes
+     */
+    public long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * Gets the number of queued records, or their sizes in bytes, per topic partition.
+     * @param inBytes when true, the sums of serialized key and value sizes are returned, otherwise the numbers of records.
+     * @return a new map that contains the partitions with queued records
+     */
+    public Map<TopicPartition, Long> getPartitionSizes (boolean inBytes) {
+        lock.lock();
+        try {
+            Map<TopicPartition, Long> m = new HashMap<> (partitions.size() * 2);
+            for (PartitionState ps: partitions.values()) {
+                if (ps.count > 0) m.put (ps.tp, inBytes? ps.bytes: ps.count);
+            }
+            return m;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true, if the queue contains no records, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of records that can be added to the queue
+     */
+    public int remainingCapacity() {
+        return capacity - size;
+    }
+
+    /**
+     * Gets the generation of the queue, which is incremented every time the queue is cleared.
+     * @return the generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Tests whether the batch, which has been taken by the last call of {@link #pollBatch(long, TimeUnit)}, is still valid.
+     * A batch gets invalid when the queue is cleared after the batch has been taken.
+     * @return true, if the queue has not been cleared since the last batch has been taken, false otherwise.
+     */
+    public boolean isTakenBatchValid() {
+        return takenBatchGeneration == generation;
+    }
+
+    /**
+     * Adds a single consumer record to the queue.
+     * @param record the record
+     * @throws IllegalStateException the queue is full
+     */
+    public void add (ConsumerRecord<?, ?> record) {
+        List<ConsumerRecord<?, ?>> batch = new ArrayList<> (1);
+        batch.add (record);
+        addBatch (batch);
+    }
+
+    /**
+     * Adds a batch of consumer records to the queue. The batch is not copied; the caller must not modify the list after this call.
+     * @param batch a modifiable list with the batch of records, for example an ArrayList. Empty batches are ignored.
+     * @throws IllegalStateException there is not enough space in the queue for the whole batch.
+     *                               In this case, no record of the batch is added.
+     */
+    public void addBatch (List<ConsumerRecord<?, ?>> batch) {
+        final int n = batch.size();
+        if (n == 0) return;
+        // in non-fair mode, the records are accounted per partition outside of the lock
+        final Batch queuedBatch = isFair()? null: new Batch (batch);
+        lock.lock();
+        try {
+            if (size + n > capacity) {
+                throw new IllegalStateException ("Queue full: capacity = " + capacity + ", size = " + size + ", batch size = " + n);
+            }
+            long nBytes = 0L;
+            if (queuedBatch == null) {
+                for (ConsumerRecord<?, ?> r: batch) {
+                    final long rBytes = sizeInBytes (r);
+                    final PartitionState ps = state (r);
+                    ps.count++;
+                    ps.bytes += rBytes;
+                    nBytes += rBytes;
+                    ps.records.addLast (r);
+                    if (!ps.inRing) {
+                        ring.addLast (ps);
+                        ps.inRing = true;
+                    }
+                }
+            }
+            else {
+                for (PartitionAccount a: queuedBatch.accounts) {
+                    final PartitionState ps = state (a.tp);
+                    ps.count += a.count;
+                    ps.bytes += a.bytes;
+                    nBytes += a.bytes;
+                }
+                batches.addLast (queuedBatch);
+            }
+            size += n;
+            sizeInBytes += nBytes;
+            notEmpty.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds all records of a collection as one batch to the queue.
+     * @param records the records
+     * @throws IllegalStateException there is not enough space in the queue for the records.
+     */
+    public void addAll (Collection<ConsumerRecord<?, ?>> records) {
+        addBatch (new ArrayList<> (records));
+    }
+
+    /**
+     * Retrieves and removes the oldest batch of records, waiting up to the specified time if necessary for a batch to become available.
+     * When single records have been taken from the oldest batch before, the remainder of the batch is returned.
+     * In fair mode, the batch is composed round-robin from the queued records of all partitions.
+     * @param timeout how long to wait before giving up
+     * @param unit the unit of the timeout parameter
+     * @return a non-empty batch of records, or null, if the specified waiting time elapses before a batch is available.
+     * @throws InterruptedException interrupted while waiting
+     */
+    public List<ConsumerRecord<?, ?>> pollBatch (long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos (timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0L) return null;
+                nanos = notEmpty.awaitNanos (nanos);
+            }
+            List<ConsumerRecord<?, ?>> batch;
+            if (isFair()) {
+                batch = pollFairBatch();
+            }
+            else {
+                final Batch head = batches.pollFirst();
+                batch = head.records;
+                if (headPos > 0) {
+                    batch = batch.subList (headPos, batch.size());
+                    headPos = 0;
+                }
+                for (PartitionAccount a: head.accounts) {
+                    removed (a);
+                }
+            }
+            takenBatchGeneration = generation;
+            return batch;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes one round of records from the partitions in the ring. Must be called under the lock when the queue is not empty.
+     * @return the batch
+     */
+    private List<ConsumerRecord<?, ?>> pollFairBatch() {
+        final int nPartitions = ring.size();
+        final int quantum = Math.max (1, fairBatchSize / nPartitions);
+        final List<ConsumerRecord<?, ?>> batch = new ArrayList<> (Math.min (size, quantum * nPartitions));
+        for (int i = 0; i < nPartitions; ++i) {
+            final PartitionState ps = ring.pollFirst();
+            for (int j = 0; j < quantum && !ps.records.isEmpty(); ++j) {
+                final ConsumerRecord<?, ?> r = ps.records.pollFirst();
+                batch.add (r);
+                removed (ps, r);
+            }
+            if (ps.records.isEmpty()) {
+                ps.inRing = false;
+            }
+            else {
+                ring.addLast (ps);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Retrieves and removes the oldest record, waiting up to the specified time if necessary for a record to become available.
+     * In fair mode, the record is taken from the next partition in round-robin order.
+     * @param timeout how long to wait before giving up
+     * @param unit the unit of the timeout parameter
+     * @return the oldest record, or null, if the specified waiting time elapses before a record is available.
+     * @throws InterruptedException interrupted while waiting
+     */
+    public ConsumerRecord<?, ?> poll (long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos (timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0L) return null;
+                nanos = notEmpty.awaitNanos (nanos);
+            }
+            if (isFair()) {
+                final PartitionState ps = ring.pollFirst();
+                final ConsumerRecord<?, ?> record = ps.records.pollFirst();
+                if (ps.records.isEmpty()) {
+                    ps.inRing = false;
+                }
+                else {
+                    ring.addLast (ps);
+                }
+                removed (ps, record);
+                return record;
+            }
+            final Batch head = batches.peekFirst();
+            final ConsumerRecord<?, ?> record = head.records.get (headPos++);
+            if (headPos >= head.records.size()) {
+                batches.pollFirst();
+                headPos = 0;
+            }
+            else {
+                // the remainder of the batch can be taken by pollBatch, which removes the accounts of the batch
+                final PartitionAccount a = head.getAccount (record);
+                a.count--;
+                a.bytes -= sizeInBytes (record);
+            }
+            removed (record);
+            return record;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all records from this queue and adds them to the given collection.
+     * In fair mode, the records are added partition by partition.
+     * The generation of the queue is not changed.
+     * @param c the collection to transfer records into
+     * @return the number of records transferred
+     */
+    public int drainTo (Collection<? super ConsumerRecord<?, ?>> c) {
+        lock.lock();
+        try {
+            final int n = size;
+            for (Batch batch: batches) {
+                if (headPos > 0) {
+                    c.addAll (batch.records.subList (headPos, batch.records.size()));
+                    headPos = 0;
+                }
+                else {
+                    c.addAll (batch.records);
+                }
+            }
+            for (PartitionState ps: ring) {
+                c.addAll (ps.records);
+            }
+            resetContent();
+            return n;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all records from the queue that satisfy the given predicate.
+     * The generation of the queue is not changed.
+     * @param filter a predicate which returns true for records to be removed
+     * @return true, if any records were removed
+     */
+    public boolean removeIf (Predicate<? super ConsumerRecord<?, ?>> filter) {
+        lock.lock();
+        try {
+            final int sizeBefore = size;
+            final Predicate<ConsumerRecord<?, ?>> accountingFilter = r -> {
+                if (filter.test (r)) {
+                    removed (r);
+                    return true;
+                }
+                return false;
+            };
+            if (isFair()) {
+                Iterator<PartitionState> it = ring.iterator();
+                while (it.hasNext()) {
+                    final PartitionState ps = it.next();
+                    if (ps.records.removeIf (accountingFilter) && ps.records.isEmpty()) {
+                        ps.inRing = false;
+                        it.remove();
+                    }
+                }
+            }
+            else {
+                if (headPos > 0) {
+                    // remove the already consumed records from the head batch
+                    batches.peekFirst().records.subList (0, headPos).clear();
+                    headPos = 0;
+                }
+                Iterator<Batch> it = batches.iterator();
+                while (it.hasNext()) {
+                    final Batch batch = it.next();
+                    if (batch.records.removeIf (accountingFilter)) {
+                        if (batch.records.isEmpty()) it.remove();
+                        else batch.accounts = Batch.account (batch.records);
+                    }
+                }
+            }
+            return size < sizeBefore;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all records from the queue and increments the generation.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            resetContent();
+            ++generation;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all records and resets the accounting. Must be called under the lock.
+     */
+    private void resetContent() {
+        batches.clear();
+        ring.clear();
+        partitions.clear();
+        lastState = null;
+        headPos = 0;
+        size = 0;
+        sizeInBytes = 0L;
+    }
+
+    /**
+     * Gets or creates the state of the partition of a record. Must be called under the lock.
+     * @param r the record
+     * @return the partition state
+     */
+    private PartitionState state (ConsumerRecord<?, ?> r) {
+        final PartitionState last = lastState;
+        if (last != null && last.tp.partition() == r.partition() && last.tp.topic().equals (r.topic())) {
+            return last;
+        }
+        return state (new TopicPartition (r.topic(), r.partition()));
+    }
+
+    /**
+     * Gets or creates the state of a topic partition. Must be called under the lock.
+     * @param tp the topic partition
+     * @return the partition state
+     */
+    private PartitionState state (TopicPartition tp) {
+        PartitionState ps = partitions.get (tp);
+        if (ps == null) {
+            ps = new PartitionState (tp, isFair());
+            partitions.put (tp, ps);
+        }
+        lastState = ps;
+        return ps;
+    }
+
+    /**
+     * Updates the accounting for a record that has been removed from the queue. Must be called under the lock.
+     * @param r the record
+     */
+    private void removed (ConsumerRecord<?, ?> r) {
+        removed (state (r), r);
+    }
+
+    /**
+     * Updates the accounting for the records of a batch account that have been removed from the queue. Must be called under the lock.
+     * @param a the account of a partition within a batch
+     */
+    private void removed (PartitionAccount a) {
+        final PartitionState ps = state (a.tp);
+        ps.count -= a.count;
+        ps.bytes -= a.bytes;
+        size -= a.count;
+        sizeInBytes -= a.bytes;
+    }
+
+    private void removed (PartitionState ps, ConsumerRecord<?, ?> r) {
+        final long rBytes = sizeInBytes (r);
+        ps.count--;
+        ps.bytes -= rBytes;
+        --size;
+        sizeInBytes -= rBytes;
+    }
+
+    /**
+     * Gets the serialized size of key and value of a consumer record.
+     * @param record the record
+     * @return the sum of serialized key and value size in bytes; null keys or values count with 0 bytes.
+     */
+    private static long sizeInBytes (ConsumerRecord<?, ?> record) {
+        final int ksz = record.serializedKeySize();
+        final int vsz = record.serializedValueSize();
+        return (ksz > 0? ksz: 0) + (vsz > 0? vsz: 0);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "size=" + size + "; sizeInBytes=" + sizeInBytes + "; capacity=" + capacity + "; generation=" + generation + "; fair=" + isFair();
+    }
+}
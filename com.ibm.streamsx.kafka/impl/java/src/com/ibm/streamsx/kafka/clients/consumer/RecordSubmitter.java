@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.consumer;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Submits consumer records as tuples. A consumer client that has a RecordSubmitter
+ * submits the fetched records by the polling thread instead of handing them over to the tuple producer thread.
+ */
+@FunctionalInterface
+public interface RecordSubmitter {
+
+    /**
+     * Submits the records of a batch in the order of the list and calls {@link ConsumerClient#postSubmit(ConsumerRecord)} for each record.
+     * Before each record is submitted, {@link ConsumerClient#isBatchValid()} must be checked.
+     * @param client the consumer client that fetched the records
+     * @param batch  the records
+     * @throws Exception the submission failed
+     */
+    void submit (ConsumerClient client, List<ConsumerRecord<?, ?>> batch) throws Exception;
+}
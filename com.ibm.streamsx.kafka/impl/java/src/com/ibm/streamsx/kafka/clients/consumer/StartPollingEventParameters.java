@@ -51,4 +51,14 @@ public class StartPollingEventParameters {
     public long getThrottlePauseMs() {
         return throttlePauseMs;
     }
+
+    /**
+     * Tests whether polling with these parameters is identical to polling with the given parameters.
+     * @param pollTimeoutMs   the poll timeout in milliseconds
+     * @param throttlePauseMs the throttle pause in milliseconds
+     * @return true, if both poll timeout and throttle pause are equal, false otherwise
+     */
+    public boolean matches (long pollTimeoutMs, long throttlePauseMs) {
+        return this.pollTimeoutMs == pollTimeoutMs && this.throttlePauseMs == throttlePauseMs;
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+/**
+ * This class aggregates the metrics of multiple Kafka clients of the same type into one set of metrics.
+ * Metrics are aggregated when they have the same group, name, and tags, ignoring the 'client-id' tag.
+ * Metrics with names that end with '-max' are aggregated as maximum, averages and compression rates as average,
+ * and all other metrics, like totals, byte counts, and rates, as sum.
+ * 
+ * @author The IBM Kafka toolkit maintainers
+ */
+public class MetricsAggregator {
+
+    private static final String CLIENT_ID_TAG = "client-id";
+
+    private static enum Aggregation {SUM, MAX, AVG}
+
+    /**
+     * A Metric that is an aggregation of the same metric of different clients.
+     */
+    private static class AggregatedMetric implements Metric {
+        private final MetricName metricName;
+        private final Aggregation aggregation;
+        private final List<Metric> metrics = new ArrayList<> (4);
+
+        private AggregatedMetric (MetricName metricName) {
+            this.metricName = metricName;
+            final String name = metricName.name();
+            if (name.endsWith ("-max")) this.aggregation = Aggregation.MAX;
+            else if (name.endsWith ("-avg") || name.startsWith ("compression-rate")) this.aggregation = Aggregation.AVG;
+            else this.aggregation = Aggregation.SUM;
+        }
+
+        @Override
+        public MetricName metricName() {
+            return metricName;
+        }
+
+        @Override
+        @Deprecated
+        public double value() {
+            return aggregatedValue();
+        }
+
+        @Override
+        public Object metricValue() {
+            return aggregatedValue();
+        }
+
+        private double aggregatedValue() {
+            double result = aggregation == Aggregation.MAX? Double.NEGATIVE_INFINITY: 0.0;
+            int n = 0;
+            for (Metric m: metrics) {
+                final Object v = m.metricValue();
+                if (!(v instanceof Number)) continue;
+                final double d = ((Number) v).doubleValue();
+                if (Double.isNaN (d) || Double.isInfinite (d)) continue;
+                ++n;
+                if (aggregation == Aggregation.MAX) {
+                    if (d > result) result = d;
+                }
+                else result += d;
+            }
+            if (n == 0) return Double.NaN;
+            return aggregation == Aggregation.AVG? result / n: result;
+        }
+    }
+
+    /**
+     * Aggregates the metrics of multiple clients. When there is only one client, its metrics are returned unchanged.
+     * The metric names of the aggregated metrics are those of the first client that has the metric.
+     * @param clientMetrics the metrics of the clients
+     * @return the aggregated metrics
+     */
+    public static Map<MetricName, ? extends Metric> aggregate (List<Map<MetricName, ? extends Metric>> clientMetrics) {
+        if (clientMetrics.size() == 1) {
+            return clientMetrics.get (0);
+        }
+        final Map<MetricName, AggregatedMetric> aggregatedByKey = new HashMap<>();
+        final Map<MetricName, Metric> result = new HashMap<>();
+        for (Map<MetricName, ? extends Metric> metrics: clientMetrics) {
+            for (Metric m: metrics.values()) {
+                final MetricName mName = m.metricName();
+                final MetricName key = withoutClientId (mName);
+                AggregatedMetric aggregated = aggregatedByKey.get (key);
+                if (aggregated == null) {
+                    aggregated = new AggregatedMetric (mName);
+                    aggregatedByKey.put (key, aggregated);
+                    result.put (mName, aggregated);
+                }
+                aggregated.metrics.add (m);
+            }
+        }
+        return result;
+    }
+
+    private static MetricName withoutClientId (MetricName mName) {
+        final Map<String, String> tags = mName.tags();
+        if (tags == null || !tags.containsKey (CLIENT_ID_TAG)) return mName;
+        final Map<String, String> t = new HashMap<> (tags);
+        t.remove (CLIENT_ID_TAG);
+        return new MetricName (mName.name(), mName.group(), "", t);
+    }
+}
@@ -13,10 +13,18 @@
  */
 package com.ibm.streamsx.kafka.clients.producer;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.kafka.clients.producer.Callback;
@@ -26,15 +34,26 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.Metric;
 import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.apache.kafka.common.serialization.DoubleSerializer;
+import org.apache.kafka.common.serialization.FloatSerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Utils;
 import org.apache.log4j.Logger;
 
 import com.ibm.streams.operator.OperatorContext;
 import com.ibm.streams.operator.Tuple;
 import com.ibm.streams.operator.state.Checkpoint;
 import com.ibm.streamsx.kafka.KafkaMetricException;
+import com.ibm.streamsx.kafka.KafkaOperatorRuntimeException;
 import com.ibm.streamsx.kafka.MsgFormatter;
 import com.ibm.streamsx.kafka.clients.AbstractKafkaClient;
 import com.ibm.streamsx.kafka.clients.metrics.CustomMetricUpdateListener;
+import com.ibm.streamsx.kafka.clients.metrics.MetricsAggregator;
 import com.ibm.streamsx.kafka.clients.metrics.MetricsFetcher;
 import com.ibm.streamsx.kafka.clients.metrics.MetricsProvider;
 import com.ibm.streamsx.kafka.clients.metrics.MetricsUpdatedListener;
@@ -44,8 +63,27 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
 
     private static final Logger logger = Logger.getLogger(AbstractKafkaProducerClient.class);
     public static final int CLOSE_TIMEOUT_MS = 5000;
-
+    /** serializers, which create the same bytes for all topics, so that data for multiple topics can be serialized once */
+    private static final Set<String> TOPIC_INDEPENDENT_SERIALIZERS = new HashSet<> (Arrays.asList (
+            StringSerializer.class.getCanonicalName(),
+            LongSerializer.class.getCanonicalName(),
+            FloatSerializer.class.getCanonicalName(),
+            DoubleSerializer.class.getCanonicalName(),
+            IntegerSerializer.class.getCanonicalName(),
+            ByteArraySerializer.class.getCanonicalName(),
+            ByteBufferSerializer.class.getCanonicalName()));
+
+    /** the first producer instance; the only one when there is one producer instance */
     protected KafkaProducer<?, ?> producer;
+    /** all producer instances */
+    private volatile KafkaProducer<?, ?>[] producers;
+    private int nProducerInstances = 1;
+    /** producer instance for the next record without key and partition; accessed under flushLock */
+    private int nextKeylessInstance = 0;
+    /** true when key and value of records for multiple topics are serialized only once */
+    private boolean serializeOnceForFanOut = false;
+    private Serializer<Object> fanOutKeySerializer = null;
+    private Serializer<Object> fanOutValueSerializer = null;
     protected KafkaOperatorProperties kafkaProperties;
     private Class<?> keyClass;
     private Class<?> valueClass;
@@ -57,21 +95,52 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
     // members for queue time monitoring 
     private final static long METRICS_CHECK_INTERVAL = 50;
     private final static long TARGET_MAX_QUEUE_TIME_MS = 5000;
-    private final static long INITIAL_Q_TIME_THRESHOLD_MS = TARGET_MAX_QUEUE_TIME_MS / 10l;
+    /** the limit of outstanding bytes is adjusted at most once within the metrics sample window */
+    private final static long OUTSTANDING_BYTES_LIMIT_ADJUST_INTERVAL_MS = 10_000;
+    /** estimated overhead of a record in a record batch */
+    private final static long RECORD_OVERHEAD_BYTES = 32;
     private Object flushLock = new Object();
-    private AtomicReference<MetricName> bufferAvailMName = new AtomicReference<>();
-    private AtomicReference<MetricName> outGoingByteRateMName = new AtomicReference<>();
     private AtomicReference<MetricName> recordQueueTimeMaxMName = new AtomicReference<>();
     private int flushAfter = 0;
     private boolean closed = false;
     private long nRecords = 0l;
-    private long bufferUseThreshold = -1;
     private double expSmoothedFlushDurationMs = 0.0;
     private final long bufferSize;
-    private final long maxBufSizeThresh;
-    private boolean compressionEnabled;
     private final com.ibm.streams.operator.metrics.Metric producerGenerationMetric;
 
+    // members for pacing by outstanding bytes, which replaces the flush when flushAfter is not set
+    private final Object pacingMonitor = new Object();
+    /** estimated bytes of the records that are sent, but not yet acknowledged */
+    private final AtomicLong outstandingBytes = new AtomicLong (0L);
+    /** incremented with every new KafkaProducer; callbacks of older producers do not release outstanding bytes */
+    private volatile int pacingGeneration = 0;
+    private volatile boolean pacingWaiting = false;
+    private volatile long outstandingBytesLimit;
+    private final long minOutstandingBytesLimit;
+    private final long maxOutstandingBytesLimit;
+    private long lastLimitAdjustmentMs = 0l;
+
+    /**
+     * Callback wrapper that releases the outstanding bytes of a record before the callback is invoked.
+     */
+    private class PacingCallback implements Callback {
+        private final Callback callback;
+        private final long nBytes;
+        private final int generation;
+
+        private PacingCallback (Callback callback, long nBytes, int generation) {
+            this.callback = callback;
+            this.nBytes = nBytes;
+            this.generation = generation;
+        }
+
+        @Override
+        public void onCompletion (RecordMetadata metadata, Exception exception) {
+            releaseOutstandingBytes (nBytes, generation);
+            if (callback != null) callback.onCompletion (metadata, exception);
+        }
+    }
+
     /** monitors operator metrics by logging them on update **/
     private class MetricsMonitor implements MetricsUpdatedListener {
 
@@ -145,8 +214,19 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
 
         configureProperties();
         bufferSize = this.kafkaProperties.getBufferMemory();
-        maxBufSizeThresh = 100 * bufferSize / 90;
-        compressionEnabled = !this.kafkaProperties.getProperty(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none").trim().equalsIgnoreCase("none");
+        maxOutstandingBytesLimit = 90 * bufferSize / 100;
+        final long batchSize = Long.parseLong (this.kafkaProperties.getProperty (ProducerConfig.BATCH_SIZE_CONFIG).trim());
+        minOutstandingBytesLimit = Math.min (batchSize, maxOutstandingBytesLimit);
+        outstandingBytesLimit = maxOutstandingBytesLimit;
+        // a user configured partitioner or interceptors would receive PreSerializedData instead of the key and value objects
+        serializeOnceForFanOut = TOPIC_INDEPENDENT_SERIALIZERS.contains (this.kafkaProperties.getProperty (ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, "").trim())
+                && TOPIC_INDEPENDENT_SERIALIZERS.contains (this.kafkaProperties.getProperty (ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, "").trim())
+                && StickyPartitioner.class.getCanonicalName().equals (this.kafkaProperties.getProperty (ProducerConfig.PARTITIONER_CLASS_CONFIG, "").trim())
+                && this.kafkaProperties.getProperty (ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, "").trim().isEmpty();
+        if (serializeOnceForFanOut) {
+            fanOutKeySerializer = createSerializer (true);
+            fanOutValueSerializer = createSerializer (false);
+        }
         producerGenerationMetric = operatorContext.getMetrics().getCustomMetric("producerGeneration");
         createProducer();
     }
@@ -161,14 +241,32 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
     }
 
     protected final synchronized void createProducer() {
-        producer = new KafkaProducer<>(this.kafkaProperties);
+        final KafkaProducer<?, ?>[] p = new KafkaProducer<?, ?>[nProducerInstances];
+        for (int i = 0; i < p.length; ++i) {
+            p[i] = createProducerInstance (i);
+        }
+        producer = p[0];
+        producers = p;
         producerGenerationMetric.increment();
+        // records of a previous producer are not acknowledged anymore
+        ++pacingGeneration;
+        outstandingBytes.set (0L);
+        synchronized (pacingMonitor) {
+            pacingMonitor.notifyAll();
+        }
         if (metricsFetcher == null) {
             metricsFetcher = new MetricsFetcher (getOperatorContext(), new MetricsProvider() {
                 @Override
                 public Map<MetricName, ? extends Metric> getMetrics() {
                     synchronized (AbstractKafkaProducerClient.this) {
-                        return producer.metrics();
+                        if (producers.length == 1) {
+                            return producer.metrics();
+                        }
+                        final List<Map<MetricName, ? extends Metric>> metrics = new ArrayList<> (producers.length);
+                        for (KafkaProducer<?, ?> p: producers) {
+                            metrics.add (p.metrics());
+                        }
+                        return MetricsAggregator.aggregate (metrics);
                     }
                 }
                 @Override
@@ -189,7 +287,6 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
                 @Override
                 public void customMetricUpdated (final String customMetricName, final MetricName kafkaMetricName, final long value) {
                     metricsMonitor.setOutgoingByteRate (value);
-                    outGoingByteRateMName.compareAndSet (null, kafkaMetricName);
                 }
             });
             metricsFetcher.registerUpdateListener("records-per-request-avg", new CustomMetricUpdateListener() {
@@ -208,7 +305,6 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
                 @Override
                 public void customMetricUpdated (final String customMetricName, final MetricName kafkaMetricName, final long value) {
                     metricsMonitor.setBufferAvailBytes (value);
-                    bufferAvailMName.compareAndSet (null, kafkaMetricName);
                 }
             });
             metricsFetcher.registerUpdateListener ("record-queue-time-avg", new CustomMetricUpdateListener() {
@@ -232,6 +328,156 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
         }
     }
 
+    /**
+     * Creates a KafkaProducer instance. When the client id is configured, the instances
+     * with index greater than zero get the index appended to the client id.
+     * @param index the index of the producer instance
+     * @return a new KafkaProducer
+     */
+    private KafkaProducer<?, ?> createProducerInstance (int index) {
+        final String clientId = kafkaProperties.getProperty (ProducerConfig.CLIENT_ID_CONFIG);
+        Properties props = this.kafkaProperties;
+        if (nProducerInstances > 1) {
+            props = new Properties();
+            props.putAll (this.kafkaProperties);
+            if (index > 0 && clientId != null && !clientId.isEmpty()) {
+                props.setProperty (ProducerConfig.CLIENT_ID_CONFIG, clientId + "-" + index);
+            }
+            // the instances share the configured buffer memory, which is also the budget for the outstanding bytes
+            final long batchSize = Long.parseLong (this.kafkaProperties.getProperty (ProducerConfig.BATCH_SIZE_CONFIG).trim());
+            props.setProperty (ProducerConfig.BUFFER_MEMORY_CONFIG, "" + Math.max (batchSize, bufferSize / nProducerInstances));
+        }
+        if (serializeOnceForFanOut) {
+            // every producer closes its serializers, so that each producer needs own instances
+            return new KafkaProducer<Object, Object> (props, new PreSerializedAwareSerializer (createSerializer (true)),
+                    new PreSerializedAwareSerializer (createSerializer (false)));
+        }
+        return new KafkaProducer<>(props);
+    }
+
+    /**
+     * Creates and configures an instance of the configured key or value serializer.
+     * @param isKey true for the key serializer, false for the value serializer
+     * @return a new serializer instance
+     */
+    @SuppressWarnings("unchecked")
+    private Serializer<Object> createSerializer (boolean isKey) {
+        final String className = kafkaProperties.getProperty (isKey? ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG: ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG).trim();
+        final Serializer<Object> serializer;
+        try {
+            serializer = Utils.newInstance (className, Serializer.class);
+        } catch (ClassNotFoundException e) {
+            throw new KafkaOperatorRuntimeException ("serializer class not found: " + className, e);
+        }
+        final Map<String, Object> configs = new HashMap<>();
+        for (Map.Entry<Object, Object> e: kafkaProperties.entrySet()) {
+            configs.put (e.getKey().toString(), e.getValue());
+        }
+        serializer.configure (configs, isKey);
+        return serializer;
+    }
+
+    /**
+     * Serializes key and value of records, which are created from the same key and value for multiple topics, only once.
+     * The records for all topics share the serialized bytes. 
+     * Records are returned unchanged when the configured serializers may create different bytes for different topics,
+     * or when a partitioner other than the default partitioner of the toolkit or interceptors are configured.
+     * @param records the records created from one tuple
+     * @return the records with pre-serialized key and value, or the unchanged records
+     */
+    protected List<ProducerRecord<?, ?>> serializeOnce (List<ProducerRecord<?, ?>> records) {
+        if (!serializeOnceForFanOut || records.size() < 2) return records;
+        final ProducerRecord<?, ?> first = records.get (0);
+        final Object key = first.key();
+        final Object value = first.value();
+        final PreSerializedData keyData = key == null? null: new PreSerializedData (fanOutKeySerializer.serialize (first.topic(), key), key);
+        final PreSerializedData valueData = value == null? null: new PreSerializedData (fanOutValueSerializer.serialize (first.topic(), value), value);
+        final List<ProducerRecord<?, ?>> result = new ArrayList<> (records.size());
+        for (ProducerRecord<?, ?> r: records) {
+            if (r.key() == key && r.value() == value) {
+                result.add (new ProducerRecord<Object, Object> (r.topic(), r.partition(), r.timestamp(), keyData, valueData, r.headers()));
+            }
+            else result.add (r);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the number of KafkaProducer instances. Records are distributed to the instances by the target partition if given, 
+     * otherwise by the hash of the key, so that records with same key or partition are always sent by the same instance.
+     * Records without key and partition are distributed round-robin.
+     * The configured `buffer.memory` is divided among the instances.
+     * All instances are re-created immediately, so that this method must be called before records are sent.
+     * @param n the number of producer instances. Values < 1 are bound to 1.
+     */
+    public final synchronized void setProducerInstances (int n) {
+        if (n < 1) n = 1;
+        if (n == nProducerInstances) return;
+        final KafkaProducer<?, ?>[] oldProducers = producers;
+        final KafkaProducer<?, ?>[] p = new KafkaProducer<?, ?>[n];
+        synchronized (flushLock) {
+            nProducerInstances = n;
+            for (int i = 0; i < n; ++i) {
+                p[i] = createProducerInstance (i);
+            }
+            producer = p[0];
+            producers = p;
+        }
+        for (KafkaProducer<?, ?> old: oldProducers) {
+            old.close (Duration.ofMillis (CLOSE_TIMEOUT_MS));
+        }
+        logger.info ("number of producer instances: " + n);
+    }
+
+    /**
+     * @return the number of KafkaProducer instances
+     */
+    public final int getProducerInstances() {
+        return nProducerInstances;
+    }
+
+    /**
+     * Selects the KafkaProducer instance for a record. Must be called with flushLock held.
+     * @param record the producer record
+     * @return the KafkaProducer instance
+     */
+    private KafkaProducer<?, ?> selectProducer (ProducerRecord<?, ?> record) {
+        final KafkaProducer<?, ?>[] p = producers;
+        if (p.length == 1) return p[0];
+        final int hash;
+        // route pre-serialized keys like the original key, so that records with same key use the same instance
+        final Object key = record.key() instanceof PreSerializedData? ((PreSerializedData) record.key()).getSource(): record.key();
+        if (record.partition() != null) {
+            hash = 31 * record.topic().hashCode() + record.partition();
+        }
+        else if (key != null) {
+            hash = key instanceof byte[]? Arrays.hashCode ((byte[]) key): key.hashCode();
+        }
+        else {
+            hash = nextKeylessInstance++;
+        }
+        return p[(hash & 0x7fffffff) % p.length];
+    }
+
+    /**
+     * Closes all KafkaProducer instances.
+     * @param timeout the timeout for each instance
+     */
+    protected void closeProducers (Duration timeout) {
+        for (KafkaProducer<?, ?> p: producers) {
+            p.close (timeout);
+        }
+    }
+
+    /**
+     * Flushes all KafkaProducer instances.
+     */
+    private void flushProducers() {
+        for (KafkaProducer<?, ?> p: producers) {
+            p.flush();
+        }
+    }
+
     /**
      * @param value the number of tuples, after which the producer is flushed. Values <= 0 have no effect.
      */
@@ -317,6 +563,11 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
             this.kafkaProperties.put (ProducerConfig.BATCH_SIZE_CONFIG, "32768");
         }
 
+        // partitioner.class: stick to a partition until a batch is full for records without key
+        if (!kafkaProperties.containsKey (ProducerConfig.PARTITIONER_CLASS_CONFIG)) {
+            this.kafkaProperties.put (ProducerConfig.PARTITIONER_CLASS_CONFIG, StickyPartitioner.class.getCanonicalName());
+        }
+
         // add our metric reporter
         this.kafkaProperties.put (ProducerConfig.METRICS_SAMPLE_WINDOW_MS_CONFIG, "10000");
         if (kafkaProperties.containsKey (ProducerConfig.METRIC_REPORTER_CLASSES_CONFIG)) {
@@ -343,6 +594,8 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
      * @throws Exception
      */
     protected Future<RecordMetadata> send (ProducerRecord record, Callback cb) throws Exception {
+        PacingCallback pacingCallback = null;
+        final KafkaProducer p;
         synchronized (flushLock) {
             if (flushAfter > 0) {
                 // non-adaptive flush 
@@ -352,7 +605,7 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
                         logger.log(DEBUG_LEVEL, "flushing the producer ...");
                         before = System.currentTimeMillis();
                     }
-                    producer.flush();
+                    flushProducers();
                     if (logger.isEnabledFor (DEBUG_LEVEL)) {
                         final double weightHistory = 0.5;   // must be between 0 and 1 for exponential smoothing
                         final long dur = System.currentTimeMillis() - before;
@@ -364,60 +617,123 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
                 ++nRecords;
             }
             else {
-                // adaptive flush 
-                if (++nRecords >= METRICS_CHECK_INTERVAL && 
-                        bufferAvailMName.get() != null && 
-                        outGoingByteRateMName.get() != null && 
-                        recordQueueTimeMaxMName.get() != null &&
-                        metricsFetcher.getCurrentValue (recordQueueTimeMaxMName.get()) > INITIAL_Q_TIME_THRESHOLD_MS) {
-
-                    if (bufferUseThreshold == -1) {
-                        // estimate initial threshold
-                        long outGoingByteRate = metricsFetcher.getCurrentValue (outGoingByteRateMName.get());
-                        // assume outgoing rate not below 5000 byte/s
-                        if (outGoingByteRate < 5000) outGoingByteRate = 5000;
-                        bufferUseThreshold = TARGET_MAX_QUEUE_TIME_MS * outGoingByteRate / 1000;
-                        if (bufferUseThreshold > maxBufSizeThresh)
-                            bufferUseThreshold = maxBufSizeThresh;
-                        if (logger.isEnabledFor (DEBUG_LEVEL)) {
-                            logger.log (DEBUG_LEVEL, MsgFormatter.format ("producer flush threshold initialized with {0,number,#}", bufferUseThreshold));
-                        }
-                    }
-                    long bufferUsed = bufferSize - metricsFetcher.getCurrentValue (bufferAvailMName.get());
-                    if (bufferUsed >= bufferUseThreshold) {
-                        long before = System.currentTimeMillis();
-                        producer.flush();
-                        final long dur = System.currentTimeMillis() - before;
-                        final double weightHistory = 0.5;   // must be between 0 and 1 for exponential smoothing
-                        expSmoothedFlushDurationMs = weightHistory * expSmoothedFlushDurationMs + (1.0 - weightHistory) * dur;
-                        if (logger.isEnabledFor (DEBUG_LEVEL)) {
-                            logger.log (DEBUG_LEVEL, MsgFormatter.format ("producer flush after {0,number,#} records took {1,number,#} ms; smoothed flushtime = {2,number,#.#}", nRecords, dur, expSmoothedFlushDurationMs));
-                        }
-                        nRecords = 0;
-                        // time spent for flush() is approximately the maximum queue time for the last appended record.
-                        // difference of maximum queue time to flush time is used to adjust the threshold
-                        double deltaTMillis = 1.0 * (double) TARGET_MAX_QUEUE_TIME_MS - expSmoothedFlushDurationMs * (compressionEnabled? 1.5: 1.0);
-                        double outGoingByteRatePerSecond = metricsFetcher.getCurrentValue (outGoingByteRateMName.get());
-                        final long oldThreshold = bufferUseThreshold;
-                        // integrate only the half to avoid overshooting or instability of threshold
-                        bufferUseThreshold += (long) (0.5 * deltaTMillis * outGoingByteRatePerSecond /1000.0);
-                        // limit the threshold to [1024 ... 90 % of buffer size]
-                        if (bufferUseThreshold > maxBufSizeThresh) 
-                            bufferUseThreshold = maxBufSizeThresh;
-                        else if (bufferUseThreshold < 1024)
-                            bufferUseThreshold = 1024;
-                        if (logger.isEnabledFor (DEBUG_LEVEL)) {
-                            logger.log (DEBUG_LEVEL, MsgFormatter.format ("producer flush threshold adjusted from {0,number,#} to {1,number,#}", oldThreshold, bufferUseThreshold));
-                        }
+                // adaptive pacing: instead of flushing, the bytes of not yet acknowledged records are bounded.
+                // The thread waits only until enough records are acknowledged, not for the whole in-flight window.
+                if (++nRecords >= METRICS_CHECK_INTERVAL) {
+                    nRecords = 0l;
+                    adjustOutstandingBytesLimit();
+                }
+                awaitOutstandingBytesBelowLimit();
+                final long nBytes = estimateSize (record.key()) + estimateSize (record.value()) + RECORD_OVERHEAD_BYTES;
+                outstandingBytes.addAndGet (nBytes);
+                pacingCallback = new PacingCallback (cb, nBytes, pacingGeneration);
+            }
+            p = selectProducer (record);
+        }
+        if (pacingCallback == null) {
+            return p.send (record, cb);
+        }
+        try {
+            return p.send (record, pacingCallback);
+        }
+        catch (RuntimeException e) {
+            // the callback is not invoked when send() throws
+            releaseOutstandingBytes (pacingCallback.nBytes, pacingCallback.generation);
+            throw e;
+        }
+    }
+
+    /**
+     * Adjusts the limit for outstanding bytes, so that the maximum queue time of records
+     * in the producer approaches {@value #TARGET_MAX_QUEUE_TIME_MS} milliseconds.
+     * The limit is decreased by 25 % when the queue time is above the target, and increased by 12.5 %
+     * when it is below the half of the target.
+     */
+    private void adjustOutstandingBytesLimit() throws KafkaMetricException {
+        final MetricName qTimeMaxMName = recordQueueTimeMaxMName.get();
+        if (qTimeMaxMName == null) return;
+        final long now = System.currentTimeMillis();
+        if (now - lastLimitAdjustmentMs < OUTSTANDING_BYTES_LIMIT_ADJUST_INTERVAL_MS) return;
+        lastLimitAdjustmentMs = now;
+        final long qTimeMax = metricsFetcher.getCurrentValue (qTimeMaxMName);
+        final long oldLimit = outstandingBytesLimit;
+        long limit = oldLimit;
+        if (qTimeMax > TARGET_MAX_QUEUE_TIME_MS) {
+            limit -= limit / 4;
+        }
+        else if (qTimeMax < TARGET_MAX_QUEUE_TIME_MS / 2) {
+            limit += limit / 8;
+        }
+        // limit the threshold to [batch.size ... 90 % of buffer size]
+        if (limit > maxOutstandingBytesLimit)
+            limit = maxOutstandingBytesLimit;
+        else if (limit < minOutstandingBytesLimit)
+            limit = minOutstandingBytesLimit;
+        if (limit != oldLimit) {
+            outstandingBytesLimit = limit;
+            if (logger.isEnabledFor (DEBUG_LEVEL)) {
+                logger.log (DEBUG_LEVEL, MsgFormatter.format ("outstanding bytes limit adjusted from {0,number,#} to {1,number,#}; record-queue-time-max = {2,number,#}", oldLimit, limit, qTimeMax));
+            }
+        }
+    }
+
+    /**
+     * Waits until the outstanding bytes are below the limit.
+     * The wait is bounded by {@value #TARGET_MAX_QUEUE_TIME_MS} milliseconds, so that the thread continues also
+     * when acknowledgements get lost, for example when the producer is closed.
+     * @throws InterruptedException the thread has been interrupted while waiting
+     */
+    private void awaitOutstandingBytesBelowLimit() throws InterruptedException {
+        if (outstandingBytes.get() < outstandingBytesLimit) return;
+        final long deadline = System.currentTimeMillis() + TARGET_MAX_QUEUE_TIME_MS;
+        synchronized (pacingMonitor) {
+            try {
+                while (true) {
+                    // the flag is set before the bytes are checked, so that a releasing callback either sees
+                    // the flag or has released before the check
+                    pacingWaiting = true;
+                    if (outstandingBytes.get() < outstandingBytesLimit) break;
+                    final long remainingMs = deadline - System.currentTimeMillis();
+                    if (remainingMs <= 0) {
+                        logger.warn (MsgFormatter.format ("outstanding bytes {0,number,#} still above limit {1,number,#} after {2,number,#} ms",
+                                outstandingBytes.get(), outstandingBytesLimit, TARGET_MAX_QUEUE_TIME_MS));
+                        break;
                     }
+                    pacingMonitor.wait (remainingMs);
                 }
             }
+            finally {
+                pacingWaiting = false;
+            }
+        }
+    }
+
+    private void releaseOutstandingBytes (long nBytes, int generation) {
+        if (generation != pacingGeneration) return;
+        final long n = outstandingBytes.addAndGet (-nBytes);
+        if (pacingWaiting && n < outstandingBytesLimit) {
+            synchronized (pacingMonitor) {
+                pacingMonitor.notifyAll();
+            }
         }
-        return producer.send (record, cb);
     }
 
     /**
-     * Makes all buffered records immediately available to send and blocks until completion of the associated requests.
+     * Estimates the serialized size of a key or value object.
+     * @param o the key or value
+     * @return the estimated number of bytes
+     */
+    private static long estimateSize (Object o) {
+        if (o == null) return 0l;
+        if (o instanceof byte[]) return ((byte[]) o).length;
+        if (o instanceof ByteBuffer) return ((ByteBuffer) o).remaining();
+        if (o instanceof String) return ((String) o).length();
+        if (o instanceof PreSerializedData) return ((PreSerializedData) o).length();
+        return 8l;
+    }
+
+    /**
+     * Makes all buffered records of all producer instances immediately available to send and blocks until completion of the associated requests.
      * The post-condition is, that all Futures are in done state.
      * 
      * @throws InterruptedException. If flush is interrupted, an InterruptedException is thrown.
@@ -426,7 +742,7 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
         if (logger.isEnabledFor (DEBUG_LEVEL))
             logger.log (DEBUG_LEVEL, "Flushing ..."); //$NON-NLS-1$
         synchronized (flushLock) {
-            producer.flush();
+            flushProducers();
         }
     }
 
@@ -439,7 +755,7 @@ public abstract class AbstractKafkaProducerClient extends AbstractKafkaClient {
             logger.log (DEBUG_LEVEL, "Closing ..."); //$NON-NLS-1$
         closed = true;
         this.metricsFetcher.stop();
-        producer.close (Duration.ofMillis (timeoutMillis));
+        closeProducers (Duration.ofMillis (timeoutMillis));
     }
 
 
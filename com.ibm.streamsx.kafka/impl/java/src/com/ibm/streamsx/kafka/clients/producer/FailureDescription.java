@@ -19,6 +19,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.apache.kafka.common.errors.NotLeaderForPartitionException;
+import org.apache.kafka.common.errors.RetriableException;
 
 /**
  * The failure description, which is serialized to JSON for the optional output port of the producer operator.
@@ -30,6 +31,8 @@ public class FailureDescription {
     private final List<String> failedTopics;
     private final String lastExceptionType;
     private final String lastFailure;
+    // transient: not part of the JSON representation
+    private final transient boolean retriable;
 
     /**
      * Creates a new FailureDescrition
@@ -44,9 +47,11 @@ public class FailureDescription {
             this.lastExceptionType = e.getClass().getName();
             final String msg = e.getMessage();
             this.lastFailure = msg != null? msg: "";
+            this.retriable = e instanceof RetriableException;
         } else {
             this.lastExceptionType = "";
             this.lastFailure = "";
+            this.retriable = false;
         }
     }
 
@@ -62,6 +67,13 @@ public class FailureDescription {
         return lastFailure;
     }
 
+    /**
+     * @return true, if the last exception is a {@link RetriableException}, false otherwise.
+     */
+    public boolean isRetriable() {
+        return retriable;
+    }
+
     /**
      * create JSON from a {@link FailureDescription} instance.
      * @param args
@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.producer;
+
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * This serializer passes the bytes of {@link PreSerializedData} through, and delegates the serialization
+ * of all other data to the wrapped serializer.
+ * 
+ * @author The IBM Kafka toolkit maintainers
+ */
+public class PreSerializedAwareSerializer implements Serializer<Object> {
+
+    private final Serializer<Object> delegate;
+
+    /**
+     * Creates a new instance.
+     * @param delegate the serializer for data that is not yet serialized
+     */
+    public PreSerializedAwareSerializer (Serializer<Object> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @see org.apache.kafka.common.serialization.Serializer#configure(java.util.Map, boolean)
+     */
+    @Override
+    public void configure (Map<String, ?> configs, boolean isKey) {
+        delegate.configure (configs, isKey);
+    }
+
+    /**
+     * @see org.apache.kafka.common.serialization.Serializer#serialize(java.lang.String, java.lang.Object)
+     */
+    @Override
+    public byte[] serialize (String topic, Object data) {
+        if (data instanceof PreSerializedData) {
+            return ((PreSerializedData) data).getBytes();
+        }
+        return delegate.serialize (topic, data);
+    }
+
+    /**
+     * @see org.apache.kafka.common.serialization.Serializer#serialize(java.lang.String, org.apache.kafka.common.header.Headers, java.lang.Object)
+     */
+    @Override
+    public byte[] serialize (String topic, Headers headers, Object data) {
+        if (data instanceof PreSerializedData) {
+            return ((PreSerializedData) data).getBytes();
+        }
+        return delegate.serialize (topic, headers, data);
+    }
+
+    /**
+     * @see org.apache.kafka.common.serialization.Serializer#close()
+     */
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
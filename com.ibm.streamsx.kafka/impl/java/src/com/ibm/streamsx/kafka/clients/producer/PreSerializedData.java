@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.producer;
+
+import java.util.Arrays;
+
+/**
+ * This class wraps the serialized bytes of a key or value, which is sent to multiple topics.
+ * The {@link PreSerializedAwareSerializer} passes the bytes through instead of serializing again.
+ * Instances are equal when their serialized bytes are equal.
+ * 
+ * @author The IBM Kafka toolkit maintainers
+ */
+public final class PreSerializedData {
+
+    private final byte[] bytes;
+    private final Object source;
+
+    /**
+     * Creates a new instance.
+     * @param bytes the serialized data; can be null.
+     * @param source the object that has been serialized into the bytes
+     */
+    public PreSerializedData (byte[] bytes, Object source) {
+        this.bytes = bytes;
+        this.source = source;
+    }
+
+    /**
+     * @return the object that has been serialized into the bytes
+     */
+    public Object getSource() {
+        return source;
+    }
+
+    /**
+     * @return the serialized bytes
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the length of the serialized bytes
+     */
+    public int length() {
+        return bytes == null? 0: bytes.length;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode (bytes);
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals (Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        return Arrays.equals (bytes, ((PreSerializedData) obj).bytes);
+    }
+}
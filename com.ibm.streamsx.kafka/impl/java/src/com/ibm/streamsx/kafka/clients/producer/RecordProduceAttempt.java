@@ -14,7 +14,7 @@
 package com.ibm.streamsx.kafka.clients.producer;
 
 import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.kafka.clients.producer.Callback;
@@ -29,10 +29,12 @@ import com.ibm.streamsx.kafka.MsgFormatter;
 /**
  * This class represents a produce attempt for a producer record. It is associated with one ProducerRecord,
  * and with a single callback for the KafkaProducer.
+ * For the initial producer generation, the attempt is its own callback, so that no separate callback
+ * object is allocated for records that are produced at the first attempt.
  * 
  * @author The IBM Kafka toolkit team
  */
-public class RecordProduceAttempt {
+public class RecordProduceAttempt implements Callback {
     private static final Logger trace = Logger.getLogger (RecordProduceAttempt.class);
 //    private static final Level DEBUG_LEVEL = SystemProperties.getDebugLevelOverride();
     private static final Level DEBUG_LEVEL = Level.TRACE;
@@ -50,37 +52,17 @@ public class RecordProduceAttempt {
 
         @Override
         public void onCompletion (RecordMetadata metadata, Exception exception) {
-            if (exception == null) {
-                if (trace.isEnabledFor(DEBUG_LEVEL))
-                    trace.log (DEBUG_LEVEL, "record " + producerRecordSeqNumber + " successfully produced for topic '" + metadata.topic() + "'. Invoking produced handler...");
-                if (producedHandler != null) {
-                    producedHandler.onRecordProduced (producerRecordSeqNumber, producerRecord, metadata);
-                }
-                return;
-            }
-            // when we are here, producing the record failed with an exception
-            TopicPartition tp = new TopicPartition (topic, metadata == null? -1: metadata.partition());
-            if (trace.isEnabledFor(DEBUG_LEVEL))
-                trace.log (DEBUG_LEVEL, "record " + producerRecordSeqNumber + " failed for " + tp + ": " + exception.getClass());
-            if (this.producerGeneration == RecordProduceAttempt.this.producerGeneration.get()) {
-                trace.log (DEBUG_LEVEL, "Invoking exception handler...");
-                final int nProducerGenerations = RecordProduceAttempt.this.producerGeneration.get() - initialProducerGeneration +1;
-                if (exceptionHandler != null) {
-                    exceptionHandler.onRecordProduceException (producerRecordSeqNumber, tp, exception, nProducerGenerations);
-                }
-            }
-            else {
-                trace.log (DEBUG_LEVEL, MsgFormatter.format ("skipping exception handler. producer generation of callback = {0,number,#}. "
-                        + "producer generation of pending record = {1,number,#}.", 
-                        this.producerGeneration, RecordProduceAttempt.this.producerGeneration.get()));
-            }
+            completed (this.producerGeneration, metadata, exception);
         }
     }
 
+    private static final AtomicIntegerFieldUpdater<RecordProduceAttempt> PRODUCER_GENERATION_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater (RecordProduceAttempt.class, "producerGeneration");
     private static AtomicLong nextProducerRecordSeqNumber = new AtomicLong();
-    private KafkaProducerCallback callback;
+    /** The callback for a producer generation after a recovery; null as long as the attempt is its own callback */
+    private volatile KafkaProducerCallback callback = null;
     private final int initialProducerGeneration;
-    private AtomicInteger producerGeneration;
+    private volatile int producerGeneration;
     private final ProducerRecord<?, ?> producerRecord;
     private Future<RecordMetadata> future;
     private final long producerRecordSeqNumber;
@@ -93,20 +75,60 @@ public class RecordProduceAttempt {
      */
     public RecordProduceAttempt (ProducerRecord<?, ?> producerRecord, int producerGeneration) {
         this.initialProducerGeneration = producerGeneration;
-        this.producerGeneration = new AtomicInteger (initialProducerGeneration);
+        this.producerGeneration = initialProducerGeneration;
         this.producerRecord = producerRecord;
         this.topic = producerRecord.topic();
         this.producerRecordSeqNumber = nextProducerRecordSeqNumber.incrementAndGet();
-        this.callback = new KafkaProducerCallback (producerGeneration);
     }
 
 
     /**
      * Returns the Callback implementation for the KafkaProducer.
+     * This is the attempt itself for the initial producer generation.
      * @return the callback
      */
-    public KafkaProducerCallback getCallback() {
-        return callback;
+    public Callback getCallback() {
+        final KafkaProducerCallback cb = callback;
+        return cb == null? this: cb;
+    }
+
+
+    /**
+     * Callback for the initial producer generation.
+     * @see org.apache.kafka.clients.producer.Callback#onCompletion(RecordMetadata, Exception)
+     */
+    @Override
+    public void onCompletion (RecordMetadata metadata, Exception exception) {
+        completed (initialProducerGeneration, metadata, exception);
+    }
+
+
+    private void completed (int callbackProducerGeneration, RecordMetadata metadata, Exception exception) {
+        if (exception == null) {
+            if (trace.isEnabledFor(DEBUG_LEVEL))
+                trace.log (DEBUG_LEVEL, "record " + producerRecordSeqNumber + " successfully produced for topic '" + metadata.topic() + "'. Invoking produced handler...");
+            if (producedHandler != null) {
+                producedHandler.onRecordProduced (producerRecordSeqNumber, producerRecord, metadata);
+            }
+            return;
+        }
+        // when we are here, producing the record failed with an exception
+        TopicPartition tp = new TopicPartition (topic, metadata == null? -1: metadata.partition());
+        if (trace.isEnabledFor(DEBUG_LEVEL))
+            trace.log (DEBUG_LEVEL, "record " + producerRecordSeqNumber + " failed for " + tp + ": " + exception.getClass());
+        final int currentProducerGeneration = this.producerGeneration;
+        if (callbackProducerGeneration == currentProducerGeneration) {
+            trace.log (DEBUG_LEVEL, "Invoking exception handler...");
+            final int nProducerGenerations = currentProducerGeneration - initialProducerGeneration +1;
+            if (exceptionHandler != null) {
+                exceptionHandler.onRecordProduceException (producerRecordSeqNumber, tp, exception, nProducerGenerations);
+            }
+        }
+        else {
+            trace.log (DEBUG_LEVEL, MsgFormatter.format ("skipping exception handler. producer generation of callback = {0,number,#}. "
+                    + "producer generation of pending record = {1,number,#}.", 
+                    callbackProducerGeneration, currentProducerGeneration));
+        }
     }
 
 
@@ -165,7 +187,7 @@ public class RecordProduceAttempt {
      * a new callback and tries to cancel the task over its Future object.
      */
     public void incrementProducerGenerationCancelTask() {
-        this.callback = new KafkaProducerCallback (producerGeneration.incrementAndGet());
+        this.callback = new KafkaProducerCallback (PRODUCER_GENERATION_UPDATER.incrementAndGet (this));
         final Future<RecordMetadata> future = getFuture();
         if (future != null && !future.isDone()) future.cancel (true);
     }
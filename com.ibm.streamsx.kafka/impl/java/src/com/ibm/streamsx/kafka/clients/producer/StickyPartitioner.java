@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.producer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+
+/**
+ * This partitioner sticks to one partition of a topic for records without key until approximately
+ * a batch is filled with the serialized record bytes, and then chooses another available partition randomly.
+ * This results in fewer, but fuller batches than the round-robin distribution of the default partitioner.
+ * 
+ * Records with key are partitioned with the murmur2 hash of the serialized key, exactly like the
+ * default partitioner, so that the mapping of keys to partitions does not change. The partition count
+ * of the topics is cached per cluster metadata version.
+ * 
+ * The partitioner can be configured as producer property 'partitioner.class'.
+ * Like other partitioners, it is not shared between KafkaProducer instances.
+ *
+ * @author The IBM Kafka toolkit maintainers
+ */
+public class StickyPartitioner implements Partitioner {
+
+    private static final int DEFAULT_BATCH_SIZE = 16384;
+
+    /** The sticky partition of a topic for records without key */
+    private static class StickyPartition {
+        private int partition = -1;
+        private long nBytes = 0L;
+    }
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private final Map<String, StickyPartition> stickyPartitions = new HashMap<>();
+    private final Map<String, Integer> partitionCounts = new HashMap<>();
+    private Cluster lastCluster = null;
+
+    /**
+     * @see org.apache.kafka.common.Configurable#configure(java.util.Map)
+     */
+    @Override
+    public void configure (Map<String, ?> configs) {
+        final Object bs = configs.get (ProducerConfig.BATCH_SIZE_CONFIG);
+        if (bs != null) {
+            final int n = bs instanceof Number? ((Number) bs).intValue(): Integer.parseInt (bs.toString().trim());
+            if (n > 0) batchSize = n;
+        }
+    }
+
+    /**
+     * @see org.apache.kafka.clients.producer.Partitioner#partition(java.lang.String, java.lang.Object, byte[], java.lang.Object, byte[], org.apache.kafka.common.Cluster)
+     */
+    @Override
+    public synchronized int partition (String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        if (cluster != lastCluster) {
+            // metadata have been updated
+            partitionCounts.clear();
+            lastCluster = cluster;
+        }
+        if (keyBytes != null) {
+            Integer nPartitions = partitionCounts.get (topic);
+            if (nPartitions == null) {
+                nPartitions = cluster.partitionsForTopic (topic).size();
+                partitionCounts.put (topic, nPartitions);
+            }
+            return Utils.toPositive (Utils.murmur2 (keyBytes)) % nPartitions;
+        }
+        StickyPartition sp = stickyPartitions.get (topic);
+        if (sp == null) {
+            sp = new StickyPartition();
+            stickyPartitions.put (topic, sp);
+        }
+        if (sp.partition < 0 || sp.nBytes >= batchSize) {
+            sp.partition = nextPartition (topic, sp.partition, cluster);
+            sp.nBytes = 0L;
+        }
+        sp.nBytes += (valueBytes == null? 0: valueBytes.length);
+        return sp.partition;
+    }
+
+    /**
+     * Chooses randomly a partition with available leader that is different from the previous partition if possible.
+     * @param topic the topic
+     * @param previous the previous partition or -1
+     * @param cluster the cluster metadata
+     * @return the new partition
+     */
+    private static int nextPartition (String topic, int previous, Cluster cluster) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final List<PartitionInfo> available = cluster.availablePartitionsForTopic (topic);
+        if (available.size() == 1) {
+            return available.get (0).partition();
+        }
+        if (available.isEmpty()) {
+            final int nPartitions = cluster.partitionsForTopic (topic).size();
+            return random.nextInt (nPartitions);
+        }
+        int p;
+        do {
+            p = available.get (random.nextInt (available.size())).partition();
+        } while (p == previous);
+        return p;
+    }
+
+    /**
+     * @see org.apache.kafka.clients.producer.Partitioner#close()
+     */
+    @Override
+    public void close() {
+    }
+}
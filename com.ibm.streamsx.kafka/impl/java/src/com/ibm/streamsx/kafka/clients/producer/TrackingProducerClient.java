@@ -15,16 +15,17 @@ package com.ibm.streamsx.kafka.clients.producer;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
@@ -60,7 +61,12 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
     private int maxPendingTuples = MAX_NUM_PENDING_TUPLES;
     private int maxProducerGenerations = MAX_PRODUCER_GENERATIONS_FOR_SEND;
     private AtomicBoolean recoveryInProgress = new AtomicBoolean (false);
-    private Map <Long, TupleProcessing> pendingTuples = new HashMap<>();
+    /** the pending tuples by sequence number; accessed concurrently by the tuple processing and the producer's callback threads */
+    private final Map <Long, TupleProcessing> pendingTuples = new ConcurrentHashMap<>();
+    /** the number of pending tuples; maintained together with the content of {@link #pendingTuples} */
+    private final AtomicInteger nPending = new AtomicInteger (0);
+    /** set by threads before they wait on {@link #pendingTuplesMonitor} for pending tuples to finish */
+    private volatile boolean awaitingPendingTuples = false;
     private Object pendingTuplesMonitor = new Object();
     private Object recoveryPendingMonitor = new Object();
     private BlockingQueue <RecoveryEvent> recoveryQueue = new LinkedBlockingQueue <RecoveryEvent>();
@@ -205,18 +211,15 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
         synchronized (recoveryPendingMonitor) {
             do {
                 // with the new producer generation, re-send all associated records of all tuples
-                List <Long> pendingSeqNumbers;
-                synchronized (pendingTuples) {
-                    pendingSeqNumbers = new LinkedList<> (pendingTuples.keySet());
-                    Collections.sort (pendingSeqNumbers);
-                    for (Long tupleSeqNo: pendingSeqNumbers) {
-                        TupleProcessing pt = pendingTuples.get (tupleSeqNo);
-                        if (pt == null) continue;
-                        pt.incrementProducerGenerationCancelTasks();
-                    }
+                final List <Long> pendingSeqNumbers = new ArrayList<> (pendingTuples.keySet());
+                Collections.sort (pendingSeqNumbers);
+                for (Long tupleSeqNo: pendingSeqNumbers) {
+                    TupleProcessing pt = pendingTuples.get (tupleSeqNo);
+                    if (pt == null) continue;
+                    pt.incrementProducerGenerationCancelTasks();
                 }
                 trace.info ("closing the producer ...");
-                producer.close (Duration.ofMillis (0L));
+                closeProducers (Duration.ofMillis (0L));
                 // We must not assume that all threads in the producer are terminated after close(0) returns,
                 // so that from now on no callbacks are fired any more.
                 trace.info ("sleeping the recovery backoff time (ms): " + PRODUCER_RECOVERY_BACKOFF_MILLIS);
@@ -229,11 +232,8 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
                 // also during recovery being in progress - or they get finished later at any time.
                 trace.info("re-sending associated producer records of " + pendingSeqNumbers.size() + " tuples ...");
                 for (Long tupleSeqNo: pendingSeqNumbers) {
-                    TupleProcessing pt = null;
-                    synchronized (pendingTuples) {
-                        pt = pendingTuples.get (tupleSeqNo);
-                        if (pt == null) continue;
-                    }
+                    final TupleProcessing pt = pendingTuples.get (tupleSeqNo);
+                    if (pt == null) continue;
                     int nFail = 0;
                     if (trace.isEnabledFor(DEBUG_LEVEL))
                         trace.log (DEBUG_LEVEL, "re-processing tuple # " + tupleSeqNo);
@@ -253,12 +253,12 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
                     if (nFail > 0) {
                         // some responses for a tuple can occur asynchronous.
                         // We ignore them, especially the potentially failed topics if the responses include an exception.
-                        nFailedTuples.increment();
-                        synchronized (pendingTuples) {
-                            pendingTuples.remove (pt.getSeqNumber());
-                        }
-                        if (this.tupleProcessedHook != null) {
-                            this.tupleProcessedHook.onTupleFailed (pt.getTuple(), pt.getFailure());
+                        if (pendingTuples.remove (pt.getSeqNumber(), pt)) {
+                            nFailedTuples.increment();
+                            if (this.tupleProcessedHook != null) {
+                                this.tupleProcessedHook.onTupleFailed (pt.getTuple(), pt.getFailure());
+                            }
+                            pendingTupleRemoved();
                         }
                     }
                 }
@@ -300,7 +300,7 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
             // This instance does not process any tuples anymore.
             return;
         }
-        TupleProcessing pt = new TupleProcessing (associatedTuple, records, producerGeneration, maxProducerGenerations, this, this.errorCategorizer);
+        TupleProcessing pt = new TupleProcessing (associatedTuple, serializeOnce (records), producerGeneration, maxProducerGenerations, this, this.errorCategorizer);
         try {
             waitForPermissionAndSendRecords (pt);
         } catch (InterruptedException ie) {
@@ -312,11 +312,16 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
         final long tupleSeqNo = pt.getSeqNumber();
         if (trace.isTraceEnabled())
             trace.trace ("processing tuple # " + tupleSeqNo);
-        synchronized (pendingTuplesMonitor) {
-            int n = 0;
-            while (pendingTuples.size() >= maxPendingTuples) {
-                if (n++ == 0) nQueueFullPause.increment();
-                pendingTuplesMonitor.wait (10000L);
+        if (nPending.get() >= maxPendingTuples) {
+            nQueueFullPause.increment();
+            synchronized (pendingTuplesMonitor) {
+                while (true) {
+                    // the flag is set before the count is checked, so that a finishing tuple either sees
+                    // the flag or is finished before the check
+                    awaitingPendingTuples = true;
+                    if (nPending.get() < maxPendingTuples) break;
+                    pendingTuplesMonitor.wait (10000L);
+                }
             }
         }
         synchronized (recoveryPendingMonitor) {
@@ -324,29 +329,38 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
             if (trace.isTraceEnabled())
                 trace.trace ("queuing tuple # " + tupleSeqNo);
 
-            synchronized (pendingTuples) {
-                pendingTuples.put (tupleSeqNo, pt);
-                nPendingTuples.setValue (pendingTuples.size());
-            }
+            pendingTuples.put (tupleSeqNo, pt);
+            nPendingTuples.setValue (nPending.incrementAndGet());
             if (trace.isTraceEnabled())
                 trace.trace ("queued tuple # " + tupleSeqNo);
-            for (RecordProduceAttempt pr: pt.getPendingRecords()) {
-                if (trace.isTraceEnabled())
-                    trace.trace ("sending record # " + pr.getProducerRecordSeqNumber() + " @tuple # " + tupleSeqNo);
-                try {
-                    Future <RecordMetadata> future = send (pr.getRecord(), pr.getCallback());
-                    pr.setFuture (future);
-                    if (trace.isTraceEnabled())
-                        trace.trace ("sent: record # " + pr.getProducerRecordSeqNumber() + " @tuple # " + tupleSeqNo);
-                }
-                catch (Exception e) {
-                    trace.warn ("Failed sending record " + pr.getProducerRecordSeqNumber() + ": " + e.getMessage());
-                    initiateRecovery();
+            final RecordProduceAttempt singleRecord = pt.getSingleRecord();
+            if (singleRecord != null) {
+                // fast path for 1-to-1 relation; avoids creating a collection for every tuple
+                sendRecord (singleRecord, tupleSeqNo);
+            }
+            else {
+                for (RecordProduceAttempt pr: pt.getPendingRecords()) {
+                    sendRecord (pr, tupleSeqNo);
                 }
             }
         }
     }
 
+    private void sendRecord (RecordProduceAttempt pr, long tupleSeqNo) {
+        if (trace.isTraceEnabled())
+            trace.trace ("sending record # " + pr.getProducerRecordSeqNumber() + " @tuple # " + tupleSeqNo);
+        try {
+            Future <RecordMetadata> future = send (pr.getRecord(), pr.getCallback());
+            pr.setFuture (future);
+            if (trace.isTraceEnabled())
+                trace.trace ("sent: record # " + pr.getProducerRecordSeqNumber() + " @tuple # " + tupleSeqNo);
+        }
+        catch (Exception e) {
+            trace.warn ("Failed sending record " + pr.getProducerRecordSeqNumber() + ": " + e.getMessage());
+            initiateRecovery();
+        }
+    }
+
     /**
      * @see com.ibm.streamsx.kafka.clients.producer.ClientCallback#tupleProcessed(long)
      */
@@ -354,20 +368,12 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
     public void tupleProcessed (long seqNumber) {
         if (trace.isTraceEnabled())
             trace.trace ("tuple # " + seqNumber + " processed - de-queueing");
-        TupleProcessing tp = null;
-        int nPendingTp;
-        synchronized (pendingTuples) {
-            tp = pendingTuples.remove (seqNumber);
-            nPendingTp = pendingTuples.size();
-            if (this.tupleProcessedHook != null && tp != null) {
-                this.tupleProcessedHook.onTupleProduced (tp.getTuple());
-            }
-        }
-        nPendingTuples.setValue (nPendingTp);
-        // notify tuple processing
-        synchronized (pendingTuplesMonitor) {
-            pendingTuplesMonitor.notifyAll();
+        final TupleProcessing tp = pendingTuples.remove (seqNumber);
+        if (tp == null) return;
+        if (this.tupleProcessedHook != null) {
+            this.tupleProcessedHook.onTupleProduced (tp.getTuple());
         }
+        pendingTupleRemoved();
     }
 
     /**
@@ -377,27 +383,34 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
     public void tupleFailedFinally (long seqNumber, Set<String> failedTopics, Exception lastException, boolean initiateRecovery) {
         if (trace.isDebugEnabled())
             trace.debug ("tuple # " + seqNumber + " failed - de-queueing");
-        TupleProcessing tp = null;
-        int nPendingTp;
-        synchronized (pendingTuples) {
-            tp = pendingTuples.remove (seqNumber);
-            nPendingTp = pendingTuples.size();
-            if (tp != null) {
-                if (this.tupleProcessedHook != null) {
-                    this.tupleProcessedHook.onTupleFailed (tp.getTuple(), tp.getFailure());
-                }
-                nFailedTuples.increment();
+        final TupleProcessing tp = pendingTuples.remove (seqNumber);
+        if (tp != null) {
+            if (this.tupleProcessedHook != null) {
+                this.tupleProcessedHook.onTupleFailed (tp.getTuple(), tp.getFailure());
             }
-        }
-        nPendingTuples.setValue (nPendingTp);
-        synchronized (pendingTuplesMonitor) {
-            pendingTuplesMonitor.notifyAll();
+            nFailedTuples.increment();
+            pendingTupleRemoved();
         }
         if (initiateRecovery) {
             initiateRecovery();
         }
     }
 
+    /**
+     * Decrements the number of pending tuples after a tuple has been removed from {@link #pendingTuples}.
+     * Waiting threads are notified only when the count falls below the limit of pending tuples.
+     */
+    private void pendingTupleRemoved() {
+        final int n = nPending.decrementAndGet();
+        nPendingTuples.setValue (n);
+        if (awaitingPendingTuples && n < maxPendingTuples) {
+            synchronized (pendingTuplesMonitor) {
+                awaitingPendingTuples = false;
+                pendingTuplesMonitor.notifyAll();
+            }
+        }
+    }
+
     /**
      * @see com.ibm.streamsx.kafka.clients.producer.ClientCallback#tupleFailedTemporarily(long, java.lang.Exception)
      */
@@ -414,24 +427,23 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
      */
     @Override
     public void tryCancelOutstandingSendRequests (boolean mayInterruptIfRunning) {
-        synchronized (pendingTuples) {
-            pendingTuples.forEach ((seqNo, tp) -> {
-                tp.getPendingRecords().forEach (pr -> {
-                    // make sure that exceptions are not handled anymore:
-                    pr.setExceptionHandler (null);
-                    pr.setProducedHandler (null);
-                    Future<?> future = pr.getFuture();
-                    if (future != null && !future.isDone()) {
-                        future.cancel (mayInterruptIfRunning);
-                    }
-                });
-                tp.getPendingRecords().clear();
+        pendingTuples.forEach ((seqNo, tp) -> {
+            if (!pendingTuples.remove (seqNo, tp)) return;
+            tp.getPendingRecords().forEach (pr -> {
+                // make sure that exceptions are not handled anymore:
+                pr.setExceptionHandler (null);
+                pr.setProducedHandler (null);
+                Future<?> future = pr.getFuture();
+                if (future != null && !future.isDone()) {
+                    future.cancel (mayInterruptIfRunning);
+                }
             });
-            pendingTuples.clear();
-            synchronized (pendingTuplesMonitor) {
-                pendingTuplesMonitor.notifyAll();
-            }
-            nPendingTuples.setValue (0L);
+            nPending.decrementAndGet();
+        });
+        nPendingTuples.setValue (nPending.get());
+        synchronized (pendingTuplesMonitor) {
+            awaitingPendingTuples = false;
+            pendingTuplesMonitor.notifyAll();
         }
     }
 
@@ -446,12 +458,9 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
         // wait that pendingTuples map gets empty ...
         synchronized (pendingTuplesMonitor) {
             while (true) {
-                // check while condition in synchronized manner:
-                int sz;
-                synchronized (pendingTuples) {
-                    sz = pendingTuples.size();
-                    if (sz == 0) break;
-                }
+                awaitingPendingTuples = true;
+                final int sz = nPending.get();
+                if (sz == 0) break;
                 trace.info ("waiting to get all pending tuples processed; #tuples = " + sz);
                 pendingTuplesMonitor.wait (10000L);
             }
@@ -479,7 +488,10 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
     }
 
 
-    private void initiateConsistentRegionResetOnce() {
+    /**
+     * Initiates the reset of the consistent region once for this client instance.
+     */
+    protected void initiateConsistentRegionResetOnce() {
         // we set this true, but never false, as CR reset instantiates a 
         // new instance of this class and forgets this one.
         if (!resetInitiatedOnce.getAndSet (true)) {
@@ -488,7 +500,7 @@ public class TrackingProducerClient extends AbstractKafkaProducerClient implemen
                 crContext.reset();
             }
             catch (IOException ioe) {
-                producer.close (Duration.ofMillis (0L));
+                closeProducers (Duration.ofMillis (0L));
                 // stop the PE, the runtime may re-launch it
                 System.exit (1);
             }
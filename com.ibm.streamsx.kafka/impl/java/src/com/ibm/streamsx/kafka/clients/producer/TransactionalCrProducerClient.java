@@ -14,10 +14,13 @@
 package com.ibm.streamsx.kafka.clients.producer;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.log4j.Logger;
 
 import com.ibm.streams.operator.OperatorContext;
@@ -27,10 +30,13 @@ import com.ibm.streams.operator.control.variable.ControlVariableAccessor;
 import com.ibm.streams.operator.state.Checkpoint;
 import com.ibm.streams.operator.state.ConsistentRegionContext;
 import com.ibm.streamsx.kafka.MsgFormatter;
+import com.ibm.streamsx.kafka.clients.TransactionOffsetsExchange;
 import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
 
 /**
  * Kafka producer client for consistent region, which uses a Kafka transaction for every consistent interval.
+ * Optionally, the transaction is committed also after a maximum number of records within a consistent interval,
+ * so that read-committed consumers see the data earlier.
  * 
  * @author IBM Kafka toolkit team
  * @since toolkit version 2.2
@@ -42,6 +48,9 @@ public class TransactionalCrProducerClient extends TrackingProducerClient {
 
     private String transactionalId;
     private AtomicBoolean transactionInProgress = new AtomicBoolean (false);
+    private int maxTransactionRecords = 0;
+    private int nTransactionRecords = 0;
+    private final int crIndex;
 
     /**
      * @param operatorContext
@@ -55,6 +64,18 @@ public class TransactionalCrProducerClient extends TrackingProducerClient {
             boolean guaranteeRecordOrder, KafkaOperatorProperties kafkaProperties) throws Exception {
         super(operatorContext, keyClass, valueClass, guaranteeRecordOrder, kafkaProperties);
         initTransactions();
+        this.crIndex = operatorContext.getOptionalContext (ConsistentRegionContext.class).getIndex();
+        TransactionOffsetsExchange.registerProducer (crIndex);
+    }
+
+    /**
+     * Unregisters the producer from the exchange of consumer offsets and closes the producer.
+     * @see com.ibm.streamsx.kafka.clients.producer.TrackingProducerClient#close(long)
+     */
+    @Override
+    public void close (long timeoutMillis) {
+        TransactionOffsetsExchange.unregisterProducer (crIndex);
+        super.close (timeoutMillis);
     }
 
     /**
@@ -132,6 +153,17 @@ public class TransactionalCrProducerClient extends TrackingProducerClient {
         this.kafkaProperties.setProperty (ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
     }
 
+    /**
+     * Sets the maximum number of records within a transaction. When this number is reached, the transaction
+     * is committed, and the next record starts a new transaction within the same consistent interval.
+     * Note, that records of intermediately committed transactions are produced again when the consistent region is reset,
+     * so that these records are delivered at least once, not exactly once.
+     * @param n the maximum number of records per transaction. Values <= 0 disable intermediate commits.
+     */
+    public void setMaxTransactionRecords (int n) {
+        this.maxTransactionRecords = n < 0? 0: n;
+    }
+
     /**
      * Returns the transactional ID used in the Kafka producer
      * @return
@@ -182,6 +214,7 @@ public class TransactionalCrProducerClient extends TrackingProducerClient {
         // send always within a transaction
         checkAndBeginTransaction();
         super.processRecord(producerRecord, associatedTuple);
+        commitTransactionWhenFull (1);
     }
 
     /**
@@ -192,6 +225,28 @@ public class TransactionalCrProducerClient extends TrackingProducerClient {
         // send always within a transaction
         checkAndBeginTransaction();
         super.processRecords(records, associatedTuple);
+        commitTransactionWhenFull (records.size());
+    }
+
+    /**
+     * Commits the transaction when the maximum number of records per transaction is reached.
+     * When the commit fails, a reset of the consistent region is initiated.
+     * @param nRecords the number of records just sent
+     */
+    private void commitTransactionWhenFull (int nRecords) {
+        if (maxTransactionRecords <= 0) return;
+        nTransactionRecords += nRecords;
+        if (nTransactionRecords < maxTransactionRecords) return;
+        nTransactionRecords = 0;
+        if (transactionInProgress.compareAndSet (true, false)) {
+            if (trace.isEnabledFor (DEBUG_LEVEL)) trace.log (DEBUG_LEVEL, "Committing transaction after max records");
+            try {
+                producer.commitTransaction();
+            } catch (Exception e) {
+                trace.error ("intermediate commit of transaction failed: " + e);
+                initiateConsistentRegionResetOnce();
+            }
+        }
     }
 
 
@@ -200,6 +255,17 @@ public class TransactionalCrProducerClient extends TrackingProducerClient {
         final long currentSequenceId = checkpoint.getSequenceId();
         if (trace.isEnabledFor (DEBUG_LEVEL)) trace.log (DEBUG_LEVEL, "TransactionalKafkaProducerClient -- CHECKPOINT id=" + currentSequenceId);
 
+        nTransactionRecords = 0;
+        // add the offsets of consumers in the same consistent region to the transaction
+        final Map<String, Map<TopicPartition, OffsetAndMetadata>> consumerOffsets = TransactionOffsetsExchange.claim (crIndex);
+        if (!consumerOffsets.isEmpty()) {
+            checkAndBeginTransaction();
+            for (Map.Entry<String, Map<TopicPartition, OffsetAndMetadata>> groupOffsets: consumerOffsets.entrySet()) {
+                if (trace.isEnabledFor (DEBUG_LEVEL)) trace.log (DEBUG_LEVEL, MsgFormatter.format ("sending offsets of {0} partitions of group {1} to transaction",
+                        groupOffsets.getValue().size(), groupOffsets.getKey()));
+                producer.sendOffsetsToTransaction (groupOffsets.getValue(), groupOffsets.getKey());
+            }
+        }
         // check 'transactionInProgress' for true and set atomically to false
         if (transactionInProgress.compareAndSet (true, false)) {
             trace.log (DEBUG_LEVEL, "Committing transaction...");
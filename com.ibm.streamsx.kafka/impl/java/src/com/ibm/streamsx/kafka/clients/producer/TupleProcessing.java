@@ -15,6 +15,7 @@ package com.ibm.streamsx.kafka.clients.producer;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -35,6 +36,8 @@ import com.ibm.streamsx.kafka.clients.producer.ErrorCategorizer.ErrCategory;
 /**
  * This class represents a pending tuple which is being processed.
  * It is associated with the Tuple from the input port, and one or more {@link RecordProduceAttempt} instances (one for each topic).
+ * When the tuple is associated with a single record, which is the common case, the attempt is held in a field
+ * instead of a Map, and the set of failed topics is created only when a record fails.
  * 
  * @author The IBM Kafka toolkit team
  */
@@ -47,31 +50,41 @@ public class TupleProcessing implements RecordProducedHandler, RecordProduceExce
 
     private final ClientCallback client;
     private final Tuple tuple;
+    /** the pending attempts for N records; null for a single record */
     private final Map <Long, RecordProduceAttempt> producerRecordAttempts;
+    /** the attempt for a single record; null for N records */
+    private final RecordProduceAttempt singleRecordAttempt;
+    private boolean singleRecordPending;
     private final int initialNumRecords;
     private int nProducedRecords = 0;
     private final long seqNumber;
     private final int maxProducerGenerationsPerRecord;
     private boolean recoverableExcOccurred = false;
     private Exception lastException = null;
-    private Set<String> failedTopics = new HashSet<>();
+    private Set<String> failedTopics = null;
     private final ErrorCategorizer errorCategorizer;
 
-    private TupleProcessing (final Tuple tuple, int nRecords, ClientCallback client, int maxProducerGenerations, final ErrorCategorizer c) {
+    private TupleProcessing (final Tuple tuple, int nRecords, RecordProduceAttempt singleAttempt, ClientCallback client, int maxProducerGenerations, final ErrorCategorizer c) {
         this.client = client;
         this.tuple = tuple;
         this.maxProducerGenerationsPerRecord = maxProducerGenerations;
         this.initialNumRecords = nRecords;
         this.seqNumber = nextSeqNumber.incrementAndGet();
-        this.producerRecordAttempts = new HashMap<> (nRecords);
+        this.singleRecordAttempt = singleAttempt;
+        this.singleRecordPending = singleAttempt != null;
+        this.producerRecordAttempts = singleAttempt == null? new HashMap<> (nRecords): null;
         this.errorCategorizer = c == null? new RecoverAllErrors(): c;
+        if (singleAttempt != null) {
+            singleAttempt.setProducedHandler (this);
+            singleAttempt.setExceptionHandler (this);
+        }
     }
 
     /**
      * Creates a new instance with 1-to-N relation between tuple and producer records.
      */
     public TupleProcessing (final Tuple tuple, List<ProducerRecord<?, ?>> records, int producerGeneration, int maxGenerations, ClientCallback client, ErrorCategorizer cat) {
-        this (tuple, records.size(), client, maxGenerations, cat);
+        this (tuple, records.size(), null, client, maxGenerations, cat);
         for (ProducerRecord<?, ?> r: records) {
             RecordProduceAttempt p = new RecordProduceAttempt (r, producerGeneration/*, tuple*/);
             p.setProducedHandler (this);
@@ -84,11 +97,7 @@ public class TupleProcessing implements RecordProducedHandler, RecordProduceExce
      * Creates a new instance with 1-to-1 relation between tuple and producer records.
      */
     public TupleProcessing (final Tuple tuple, ProducerRecord<?, ?> record, int producerGeneration, int maxGenerations, ClientCallback client, ErrorCategorizer cat) {
-        this (tuple, 1, client, maxGenerations, cat);
-        RecordProduceAttempt p = new RecordProduceAttempt (record, producerGeneration/*, tuple*/);
-        p.setProducedHandler (this);
-        p.setExceptionHandler (this);
-        producerRecordAttempts.put (p.getProducerRecordSeqNumber(), p);
+        this (tuple, 1, new RecordProduceAttempt (record, producerGeneration/*, tuple*/), client, maxGenerations, cat);
     }
 
     /**
@@ -111,10 +120,53 @@ public class TupleProcessing implements RecordProducedHandler, RecordProduceExce
      * @return a new Collection instance with the pending records
      */
     public synchronized Collection <RecordProduceAttempt> getPendingRecords() {
+        if (producerRecordAttempts == null) {
+            return singleRecordPending? Collections.singletonList (singleRecordAttempt): Collections.emptyList();
+        }
         // create a new collection to avoid ConcurrentModificationException
         return new ArrayList<> (producerRecordAttempts.values());
     }
 
+    /**
+     * Returns the attempt when the tuple is associated with exactly one producer record.
+     * This avoids creating a collection when the records of a new tuple are sent.
+     * @return the attempt for the single record, or null if the tuple has N records.
+     */
+    public RecordProduceAttempt getSingleRecord() {
+        return singleRecordAttempt;
+    }
+
+    /**
+     * Removes a pending attempt. Must be called synchronized.
+     * @param seqNo the sequence number of the attempt
+     * @return the removed attempt or null, if there is no pending attempt with the given sequence number
+     */
+    private RecordProduceAttempt removePendingRecord (long seqNo) {
+        if (producerRecordAttempts != null) {
+            return producerRecordAttempts.remove (seqNo);
+        }
+        if (singleRecordPending && singleRecordAttempt.getProducerRecordSeqNumber() == seqNo) {
+            singleRecordPending = false;
+            return singleRecordAttempt;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of pending attempts. Must be called synchronized.
+     * @return the number of pending attempts
+     */
+    private int numPendingRecords() {
+        if (producerRecordAttempts != null) {
+            return producerRecordAttempts.size();
+        }
+        return singleRecordPending? 1: 0;
+    }
+
+    private Set<String> failedTopics() {
+        return failedTopics == null? Collections.emptySet(): failedTopics;
+    }
+
 
     /**
      * @see com.ibm.streamsx.kafka.clients.producer.RecordProduceExceptionHandler#onRecordProduceException(long, TopicPartition, Exception, int)
@@ -131,25 +183,25 @@ public class TupleProcessing implements RecordProducedHandler, RecordProduceExce
                     seqNo, tp, nProducerGenerations, e));
             synchronized (this) {
                 this.recoverableExcOccurred |= excRecoverable;
-                RecordProduceAttempt r = producerRecordAttempts.remove (seqNo);
-                tupleDone = producerRecordAttempts.isEmpty();
+                RecordProduceAttempt r = removePendingRecord (seqNo);
+                tupleDone = numPendingRecords() == 0;
                 if (r == null) { 
                     trace.warn ("record already removed: " + seqNo);
                 }
                 else {
                     this.lastException = e;
-                    failedTopics.add (tp.topic());
+                    addFailedTopic (tp.topic());
                 }
             }
         }
         if (trace.isEnabledFor(DEBUG_LEVEL)) 
             trace.log (DEBUG_LEVEL, MsgFormatter.format ("nProducerGenerations = {0,number,#}; maxProducerGenerationsPerRecord = {1,number,#}; "
                     + "isRecoverable = {2}; finalFail = {3}; producerRecordAttempts.size = {4,number,#}",
-                    nProducerGenerations, maxProducerGenerationsPerRecord, excRecoverable, recordFinallyFailed, producerRecordAttempts.size()));
+                    nProducerGenerations, maxProducerGenerationsPerRecord, excRecoverable, recordFinallyFailed, numPendingRecords()));
         if (recordFinallyFailed) {
             if (tupleDone) {
                 final boolean tryRecover = this.recoverableExcOccurred && maxProducerGenerationsPerRecord == 1;
-                client.tupleFailedFinally (this.seqNumber, failedTopics, e, tryRecover);
+                client.tupleFailedFinally (this.seqNumber, failedTopics(), e, tryRecover);
             }
         }
         else {
@@ -166,7 +218,7 @@ public class TupleProcessing implements RecordProducedHandler, RecordProduceExce
         boolean allRecordsSucceeded = false;
         boolean tupleDone = false;
         synchronized (this) {
-            if (producerRecordAttempts.remove (seqNo) == null) {
+            if (removePendingRecord (seqNo) == null) {
                 // produced callback called twice?
                 trace.warn ("record already removed: " + seqNo);
                 return;
@@ -175,7 +227,7 @@ public class TupleProcessing implements RecordProducedHandler, RecordProduceExce
             if (trace.isEnabledFor(DEBUG_LEVEL))
                 trace.log (DEBUG_LEVEL, MsgFormatter.format ("record # {0,number,#} produced @tuple # {1,number,#}. nProducedRecords = {2,number,#}",
                         seqNo, this.seqNumber, nProducedRecords));
-            tupleDone = producerRecordAttempts.isEmpty();
+            tupleDone = numPendingRecords() == 0;
             if (tupleDone) {
                 allRecordsSucceeded = nProducedRecords == initialNumRecords;
                 if (trace.isEnabledFor(DEBUG_LEVEL)) {
@@ -194,7 +246,7 @@ public class TupleProcessing implements RecordProducedHandler, RecordProduceExce
             }
             else {
                 final boolean tryRecover = this.recoverableExcOccurred && maxProducerGenerationsPerRecord == 1;
-                client.tupleFailedFinally (this.seqNumber, this.failedTopics, this.lastException, tryRecover);
+                client.tupleFailedFinally (this.seqNumber, failedTopics(), this.lastException, tryRecover);
             }
         }
     }
@@ -208,6 +260,9 @@ public class TupleProcessing implements RecordProducedHandler, RecordProduceExce
     }
 
     public synchronized void addFailedTopic(String topic) {
+        if (this.failedTopics == null) {
+            this.failedTopics = new HashSet<>();
+        }
         this.failedTopics.add (topic);
     }
 
@@ -215,7 +270,7 @@ public class TupleProcessing implements RecordProducedHandler, RecordProduceExce
         this.lastException = e;
     }
 
-    public FailureDescription getFailure() {
+    public synchronized FailureDescription getFailure() {
         return new FailureDescription (failedTopics, lastException);
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.producer;
+
+import java.util.List;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.log4j.Logger;
+
+import com.ibm.streams.operator.OperatorContext;
+import com.ibm.streams.operator.Tuple;
+import com.ibm.streams.operator.metrics.Metric;
+import com.ibm.streams.operator.state.Checkpoint;
+import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
+
+/**
+ * This producer client sends the producer records without tracking the tuples.
+ * It is used when the operator is not part of a consistent region and has no output port,
+ * so that nobody waits for the outcome of a single tuple.
+ * All records are sent with one shared callback, which only counts and logs failures.
+ * There is no own recovery with a new producer generation; retriable errors are retried by the KafkaProducer itself.
+ * Back pressure is given by the KafkaProducer, which blocks in send() when its buffer memory is exhausted.
+ * 
+ * @author IBM Kafka toolkit team
+ */
+public class UntrackedProducerClient extends AbstractKafkaProducerClient {
+
+    private static final Logger trace = Logger.getLogger (UntrackedProducerClient.class);
+
+    private final Metric nFailedTuples;
+
+    /** shared callback for all records; a tuple produced to N topics is counted for every failed record */
+    private final Callback failureCountingCallback = new Callback() {
+        @Override
+        public void onCompletion (RecordMetadata metadata, Exception exception) {
+            if (exception != null) {
+                nFailedTuples.increment();
+                if (trace.isDebugEnabled())
+                    trace.debug ("record could not be produced: " + exception);
+            }
+        }
+    };
+
+    /**
+     * @param operatorContext
+     * @param keyClass
+     * @param valueClass
+     * @param guaranteeRecordOrder
+     * @param kafkaProperties
+     * @throws Exception
+     */
+    public <K, V> UntrackedProducerClient (OperatorContext operatorContext, Class<K> keyClass, Class<V> valueClass,
+            boolean guaranteeRecordOrder, KafkaOperatorProperties kafkaProperties) throws Exception {
+        super (operatorContext, keyClass, valueClass, guaranteeRecordOrder, kafkaProperties);
+        trace.info ("constructing " + getThisClassName());
+        this.nFailedTuples = operatorContext.getMetrics().getCustomMetric ("nFailedTuples");
+    }
+
+    /**
+     * @see com.ibm.streamsx.kafka.clients.producer.AbstractKafkaProducerClient#processRecord(ProducerRecord, Tuple)
+     */
+    @Override
+    public void processRecord (ProducerRecord<?, ?> producerRecord, Tuple associatedTuple) throws Exception {
+        sendRecord (producerRecord);
+    }
+
+    /**
+     * @see com.ibm.streamsx.kafka.clients.producer.AbstractKafkaProducerClient#processRecords(List, Tuple)
+     */
+    @Override
+    public void processRecords (List<ProducerRecord<?, ?>> records, Tuple associatedTuple) throws Exception {
+        for (ProducerRecord<?, ?> r: serializeOnce (records)) {
+            sendRecord (r);
+        }
+    }
+
+    private void sendRecord (ProducerRecord<?, ?> producerRecord) throws InterruptedException {
+        try {
+            send (producerRecord, failureCountingCallback);
+        }
+        catch (InterruptedException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            nFailedTuples.increment();
+            trace.warn ("Failed sending record for topic '" + producerRecord.topic() + "': " + e);
+        }
+    }
+
+    /**
+     * Does nothing as the Futures of the send requests are not maintained.
+     * @see com.ibm.streamsx.kafka.clients.producer.AbstractKafkaProducerClient#tryCancelOutstandingSendRequests(boolean)
+     */
+    @Override
+    public void tryCancelOutstandingSendRequests (boolean mayInterruptIfRunning) {
+    }
+
+    /**
+     * Flushes the producer.
+     * @see com.ibm.streamsx.kafka.clients.producer.AbstractKafkaProducerClient#drain()
+     */
+    @Override
+    public void drain() throws Exception {
+        if (trace.isEnabledFor (DEBUG_LEVEL)) trace.log (DEBUG_LEVEL, getThisClassName() + " -- DRAIN"); //$NON-NLS-1$
+        flush();
+    }
+
+    /**
+     * @see com.ibm.streamsx.kafka.clients.producer.AbstractKafkaProducerClient#checkpoint(com.ibm.streams.operator.state.Checkpoint)
+     */
+    @Override
+    public void checkpoint (Checkpoint checkpoint) throws Exception {
+        if (trace.isEnabledFor (DEBUG_LEVEL)) trace.log (DEBUG_LEVEL, getThisClassName() + " -- CHECKPOINT id=" + checkpoint.getSequenceId()); //$NON-NLS-1$
+    }
+
+    /**
+     * @see com.ibm.streamsx.kafka.clients.producer.AbstractKafkaProducerClient#reset(com.ibm.streams.operator.state.Checkpoint)
+     */
+    @Override
+    public void reset (Checkpoint checkpoint) throws Exception {
+        if (trace.isEnabledFor (DEBUG_LEVEL)) {
+            trace.log (DEBUG_LEVEL, getThisClassName() + " -- RESET id=" + (checkpoint == null? -1L: checkpoint.getSequenceId())); //$NON-NLS-1$
+        }
+    }
+}
@@ -14,12 +14,18 @@
 package com.ibm.streamsx.kafka.operators;
 
 import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -27,6 +33,7 @@ import java.util.regex.Pattern;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteBufferDeserializer;
 import org.apache.log4j.Logger;
 
 import com.ibm.streams.operator.Attribute;
@@ -46,6 +53,7 @@ import com.ibm.streams.operator.model.CustomMetric;
 import com.ibm.streams.operator.model.Parameter;
 import com.ibm.streams.operator.state.Checkpoint;
 import com.ibm.streams.operator.state.ConsistentRegionContext;
+import com.ibm.streams.operator.types.Blob;
 import com.ibm.streams.operator.types.RString;
 import com.ibm.streams.operator.types.ValueFactory;
 import com.ibm.streamsx.kafka.ControlportJsonParseException;
@@ -53,7 +61,9 @@ import com.ibm.streamsx.kafka.Features;
 import com.ibm.streamsx.kafka.KafkaClientInitializationException;
 import com.ibm.streamsx.kafka.KafkaConfigurationException;
 import com.ibm.streamsx.kafka.KafkaOperatorResetFailedException;
+import com.ibm.streamsx.kafka.KafkaOperatorRuntimeException;
 import com.ibm.streamsx.kafka.MsgFormatter;
+import com.ibm.streamsx.kafka.clients.AbstractKafkaClient;
 import com.ibm.streamsx.kafka.clients.consumer.CommitMode;
 import com.ibm.streamsx.kafka.clients.consumer.ConsumerClient;
 import com.ibm.streamsx.kafka.clients.consumer.ConsumerClientBuilder;
@@ -64,6 +74,7 @@ import com.ibm.streamsx.kafka.clients.consumer.CrKafkaStaticAssignConsumerClient
 import com.ibm.streamsx.kafka.clients.consumer.DummyConsumerClient;
 import com.ibm.streamsx.kafka.clients.consumer.NonCrKafkaConsumerClient;
 import com.ibm.streamsx.kafka.clients.consumer.NonCrKafkaConsumerGroupClient;
+import com.ibm.streamsx.kafka.clients.consumer.RecordSubmitter;
 import com.ibm.streamsx.kafka.clients.consumer.StartPosition;
 import com.ibm.streamsx.kafka.i18n.Messages;
 import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
@@ -100,6 +111,13 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
     public static final String START_OFFSET_PARAM = "startOffset"; //$NON-NLS-1$
     public static final String GROUP_ID_PARAM = "groupId";
     public static final String STATIC_GROUP_MEMBER_PARAM = "staticGroupMember";
+    public static final String SUBMIT_THREADS_PARAM = "submitThreads";
+    public static final String COMMIT_COALESCED_PARAM = "commitCoalesced";
+    public static final String DIRECT_SUBMIT_PARAM = "directSubmit";
+    public static final String MAX_QUEUED_BYTES_PARAM = "maxQueuedBytes";
+    public static final String FAIR_PARTITION_SUBMISSION_PARAM = "fairPartitionSubmission";
+    public static final String COMMIT_IN_PRODUCER_TRANSACTION_PARAM = "commitInProducerTransaction";
+    public static final String INCREMENTAL_REBALANCE_PARAM = "incrementalRebalance";
 
     private static final double DEFAULT_COMMIT_PERIOD = 5.0;
 
@@ -130,6 +148,15 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
     private boolean staticGroupMember = false;
     private boolean groupIdSpecified = false;
     private Long startTime = -1l;
+    private int submitThreads = 1;
+    private boolean commitCoalesced = false;
+    private boolean directSubmit = false;
+    private long maxQueuedBytes = 0L;
+    private boolean fairPartitionSubmission = false;
+    private boolean commitInProducerTransaction = false;
+    private boolean incrementalRebalance = false;
+    /** the additional submitter threads when tuples are submitted by the polling thread */
+    private ExecutorService directSubmitExecutor = null;
 
     private long consumerPollTimeout = DEFAULT_CONSUMER_TIMEOUT;
     private CountDownLatch resettingLatch;
@@ -141,6 +168,8 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
     private int outputTimetampAttrIdx = -1;
     private int outputPartitionAttrIdx = -1;
     private int outputOffsetAttrIdx = -1;
+    /** writers for all mapped output attributes; computed once in initialize() */
+    private RecordAttributeWriter[] recordWriters;
 
     // The number of messages in which the value was malformed and could not be deserialized
     private Metric nMalformedMessages;
@@ -450,6 +479,125 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
         this.commitCount = commitCount;
     }
 
+    @Parameter(optional = true, name = COMMIT_COALESCED_PARAM, description = 
+            "This parameter specifies whether the offsets of all partitions are committed together with a single "
+                    + "asynchronous server request. When set to `true`, the offsets are committed by the thread that polls for messages "
+                    + "between two polls, so that fetching messages is not interrupted for committing offsets. "
+                    + "When set to `false`, the offsets are committed partition by partition, for which fetching messages "
+                    + "is shortly stopped. A value of `true` is recommended when the operator consumes many partitions.\\n"
+                    + "\\n"
+                    + "This parameter is optional and has a default value of `false`.\\n"
+                    + "\\n"
+                    + "This parameter is only used when the "
+                    + "operator is not part of a consistent region. When the operator participates in a "
+                    + "consistent region, offsets are always committed for all partitions together when the region drains.")
+    public void setCommitCoalesced (boolean commitCoalesced) {
+        this.commitCoalesced = commitCoalesced;
+    }
+
+    @Parameter(optional = true, name = DIRECT_SUBMIT_PARAM, description = 
+            "This parameter specifies whether the thread that polls for messages converts the messages into tuples and submits them. "
+                    + "When set to `true`, the messages are not handed over to a separate tuple producer thread, which reduces the latency "
+                    + "between fetching a message and submitting the tuple. Fetching new messages is delayed while the tuples are submitted. "
+                    + "To stay a member of a consumer group, the polling thread stops submitting tuples after half of the "
+                    + "`max.poll.interval.ms` consumer property and polls again, before it continues with the remaining messages. "
+                    + "Offsets are committed as configured with the **commitCount** or **commitPeriod** parameters.\\n"
+                    + "\\n"
+                    + "This parameter is optional and has a default value of `false`.\\n"
+                    + "\\n"
+                    + "This parameter is only used when the "
+                    + "operator is not part of a consistent region. When the operator participates in a "
+                    + "consistent region, tuples are always submitted by a separate thread, which acquires a permit from the consistent region.")
+    public void setDirectSubmit (boolean directSubmit) {
+        this.directSubmit = directSubmit;
+    }
+
+    @Parameter(optional = true, name = MAX_QUEUED_BYTES_PARAM, description = 
+            "This parameter specifies the maximum number of bytes of fetched messages that are queued for tuple submission. "
+                    + "The bytes are accounted as the sum of the serialized key and message sizes. When the queued bytes reach "
+                    + "this value, fetching messages is paused. Fetching is resumed when the queued bytes fall below half of this value. "
+                    + "As the budget is checked before messages are fetched, it can be exceeded by up to the `fetch.max.bytes` consumer property.\\n"
+                    + "\\n"
+                    + "When this parameter is specified, the operator does not pause fetching based on the free memory of the Java VM, "
+                    + "so that backpressure does not depend on garbage collection. The value should be chosen with respect to the "
+                    + "maximum heap size of the Java VM, which can be specified with the `vmArg` parameter.\\n"
+                    + "\\n"
+                    + "This parameter is optional. Valid values are greater than zero. When the parameter is not specified, the number of "
+                    + "queued messages is limited to 100 times the `max.poll.records` consumer property, and fetching is paused when the "
+                    + "free memory of the Java VM is low.")
+    public void setMaxQueuedBytes (long maxQueuedBytes) {
+        this.maxQueuedBytes = maxQueuedBytes;
+    }
+
+    @Parameter(optional = true, name = FAIR_PARTITION_SUBMISSION_PARAM, description = 
+            "This parameter specifies whether the fetched messages of different partitions are submitted as tuples "
+                    + "in round-robin order. When set to `true`, a partition with a large backlog of fetched messages "
+                    + "does not delay the messages of other partitions. The order of messages within a partition is always preserved. "
+                    + "When set to `false`, the messages are submitted in the order they have been fetched.\\n"
+                    + "\\n"
+                    + "Independent of this parameter, fetching is paused for single partitions that occupy more than their "
+                    + "share of the internal message queue when the queue is filled by half or more.\\n"
+                    + "\\n"
+                    + "This parameter is optional and has a default value of `false`.")
+    public void setFairPartitionSubmission (boolean fairPartitionSubmission) {
+        this.fairPartitionSubmission = fairPartitionSubmission;
+    }
+
+    @Parameter(optional = true, name = COMMIT_IN_PRODUCER_TRANSACTION_PARAM, description = 
+            "This parameter specifies whether the consumer offsets are committed within the Kafka transaction of a "
+                    + "KafkaProducer operator with `consistentRegionPolicy: Transactional` in the same consistent region. "
+                    + "When set to `true`, the produced messages and the consumed offsets are committed atomically, "
+                    + "which gives exactly-once semantics for consume-transform-produce applications also for "
+                    + "consumers outside of the Streams application, which read the committed offsets of the consumer group.\\n"
+                    + "\\n"
+                    + "The offsets are handed over to the producer within the Java VM. Therefore, the consumer and the producer "
+                    + "operators must be fused into the same PE. When no transactional producer of the same consistent region "
+                    + "is fused with the consumer, the offsets are committed by the consumer as usual. "
+                    + "As the offsets are not assigned to a particular producer, only one transactional producer may be fused "
+                    + "with the consumers of a consistent region. When more transactional producers of the same consistent region "
+                    + "are fused into the PE, the offsets are also committed by the consumer.\\n"
+                    + "\\n"
+                    + "This parameter is ignored when the operator is not part of a consistent region. "
+                    + "This parameter is optional and has a default value of `false`.")
+    public void setCommitInProducerTransaction (boolean commitInProducerTransaction) {
+        this.commitInProducerTransaction = commitInProducerTransaction;
+    }
+
+    @Parameter(optional = true, name = INCREMENTAL_REBALANCE_PARAM, description = 
+            "This parameter specifies whether a partition rebalance of a consumer group within a consistent region "
+                    + "resets the consistent region only when it is required. When set to `true`, the consumers discard the fetched "
+                    + "records that have not yet been submitted, continue consuming the partitions that remain assigned after the last "
+                    + "submitted message, and start consuming newly assigned partitions at the offsets of the group's last checkpoint. "
+                    + "The consistent region is reset only when a consumer has submitted tuples after the last checkpoint "
+                    + "for a partition that is assigned to another consumer. When members join or leave the group immediately "
+                    + "after a checkpoint, the group can be scaled without reset of the consistent region.\\n"
+                    + "\\n"
+                    + "When set to `false`, every partition rebalance after tuples have been submitted resets the consistent region. "
+                    + "This is also the case when the operator is the trigger of an operator-driven consistent region.\\n"
+                    + "\\n"
+                    + "This parameter is ignored when the operator is not part of a consistent region or does not use group management. "
+                    + "This parameter is optional and has a default value of `false`.")
+    public void setIncrementalRebalance (boolean incrementalRebalance) {
+        this.incrementalRebalance = incrementalRebalance;
+    }
+
+    @Parameter(optional = true, name = SUBMIT_THREADS_PARAM, description = 
+            "This parameter specifies the number of threads that convert the received messages into tuples and submit them. "
+                    + "Messages of the same topic partition are always submitted by the same thread, so that the order of "
+                    + "messages within a partition is preserved. Messages from different partitions can be submitted in "
+                    + "a different order than they have been fetched. A value greater than 1 can increase the throughput of an operator "
+                    + "that consumes many partitions, when the conversion into tuples or the downstream processing within the same PE "
+                    + "is the bottleneck.\\n"
+                    + "\\n"
+                    + "This parameter is optional and has a default value of 1. Valid values are greater than zero.\\n"
+                    + "\\n"
+                    + "This parameter is only used when the "
+                    + "operator is not part of a consistent region. When the operator participates in a "
+                    + "consistent region, tuples are always submitted by one thread.")
+    public void setSubmitThreads (int submitThreads) {
+        this.submitThreads = submitThreads;
+    }
+
     @ContextCheck(compile = true)
     public static void warnInputPortDeprecatedWithConsistentRegion (OperatorContextChecker checker) {
         final OperatorContext operatorContext = checker.getOperatorContext();
@@ -481,6 +629,15 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
             if (parameterNames.contains(COMMIT_PERIOD_PARAM)) {
                 System.err.println (Messages.getString ("PARAM_IGNORED_IN_CONSITENT_REGION", COMMIT_PERIOD_PARAM));
             }
+            if (parameterNames.contains(SUBMIT_THREADS_PARAM)) {
+                System.err.println (Messages.getString ("PARAM_IGNORED_IN_CONSITENT_REGION", SUBMIT_THREADS_PARAM));
+            }
+            if (parameterNames.contains(COMMIT_COALESCED_PARAM)) {
+                System.err.println (Messages.getString ("PARAM_IGNORED_IN_CONSITENT_REGION", COMMIT_COALESCED_PARAM));
+            }
+            if (parameterNames.contains(DIRECT_SUBMIT_PARAM)) {
+                System.err.println (Messages.getString ("PARAM_IGNORED_IN_CONSITENT_REGION", DIRECT_SUBMIT_PARAM));
+            }
             if (crContext.isStartOfRegion()) {
                 if (crContext.isTriggerOperator()) {
                     // 'triggerCount' parameter required
@@ -501,6 +658,12 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
             if (parameterNames.contains(TRIGGER_COUNT_PARAM)) {
                 System.err.println (Messages.getString ("PARAM_IGNORED_NOT_IN_CONSITENT_REGION", TRIGGER_COUNT_PARAM));
             }
+            if (parameterNames.contains(COMMIT_IN_PRODUCER_TRANSACTION_PARAM)) {
+                System.err.println (Messages.getString ("PARAM_IGNORED_NOT_IN_CONSITENT_REGION", COMMIT_IN_PRODUCER_TRANSACTION_PARAM));
+            }
+            if (parameterNames.contains(INCREMENTAL_REBALANCE_PARAM)) {
+                System.err.println (Messages.getString ("PARAM_IGNORED_NOT_IN_CONSITENT_REGION", INCREMENTAL_REBALANCE_PARAM));
+            }
             if (parameterNames.contains(COMMIT_COUNT_PARAM) && parameterNames.contains(COMMIT_PERIOD_PARAM)) {
                 checker.setInvalidContext (Messages.getString ("PARAMETERS_EXCLUDE_EACH_OTHER", COMMIT_COUNT_PARAM, COMMIT_PERIOD_PARAM), new Object[0]); //$NON-NLS-1$
             }
@@ -667,6 +830,8 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
             }
         }
         checkTriggerCountValue (checker);
+        checkSubmitThreadsValue (checker);
+        checkMaxQueuedBytesValue (checker);
     }
 
     private static void checkUserSpecifiedAttributeNameExists(OperatorContextChecker checker, String paramNameToCheck) {
@@ -701,6 +866,29 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
     }
 
 
+    private static void checkMaxQueuedBytesValue (OperatorContextChecker checker) {
+        final OperatorContext opCtx = checker.getOperatorContext();
+        if (opCtx.getParameterNames().contains (MAX_QUEUED_BYTES_PARAM)) {
+            final long n = Long.valueOf (opCtx.getParameterValues (MAX_QUEUED_BYTES_PARAM).get(0));
+            if (n <= 0L) {
+                checker.setInvalidContext(Messages.getString("INVALID_PARAMETER_VALUE_GT", MAX_QUEUED_BYTES_PARAM, "" + n, "0"), //$NON-NLS-1$
+                        new Object[0]);
+            }
+        }
+    }
+
+    private static void checkSubmitThreadsValue (OperatorContextChecker checker) {
+        final OperatorContext opCtx = checker.getOperatorContext();
+        if (opCtx.getParameterNames().contains (SUBMIT_THREADS_PARAM)) {
+            final int n = Integer.valueOf (opCtx.getParameterValues (SUBMIT_THREADS_PARAM).get(0));
+            if (n <= 0) {
+                checker.setInvalidContext(Messages.getString("INVALID_PARAMETER_VALUE_GT", SUBMIT_THREADS_PARAM, "" + n, "0"), //$NON-NLS-1$
+                        new Object[0]);
+            }
+        }
+    }
+
+
     @Override
     public void initialize(OperatorContext context) throws Exception {
         synchronized (monitor) {
@@ -722,6 +910,7 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
                     : String.class; // default to String.class for key type
             Class<?> valueClass = getAttributeType(context.getStreamingOutputs().get(0), outputMessageAttrName);
             KafkaOperatorProperties kafkaProperties = getKafkaProperties();
+            this.recordWriters = createRecordWriters (keyClass, valueClass, kafkaProperties);
 
             // set the group ID property if the groupId parameter is specified
             if (groupId != null && !groupId.isEmpty()) {
@@ -734,6 +923,8 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
 
             if (crContext != null) {
                 commitMode = CommitMode.ConsistentRegionDrain;
+                this.submitThreads = 1;
+                this.directSubmit = false;
             }
             else {
                 final Set <String> parameterNames = context.getParameterNames();
@@ -759,10 +950,14 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
                         .setValueClass(valueClass)
                         .setSingleTopic (this.topics != null && this.topics.size() == 1)
                         .setPollTimeout(this.consumerPollTimeout)
+                        .setMaxQueuedBytes (this.maxQueuedBytes)
+                        .setFairPartitionSubmission (this.fairPartitionSubmission)
                         .setInitialStartPosition (this.startPosition)
                         .setCommitMode (commitMode)
                         .setCommitPeriod (commitPeriod)
-                        .setCommitCount(commitCount);
+                        .setCommitCount(commitCount)
+                        .setCommitCoalesced (commitCoalesced)
+                        .setDirectSubmitter (directSubmit? this::submitDirect: null);
 
                 this.staticAssignClientBuilder = new NonCrKafkaConsumerClient.Builder()
                         .setOperatorContext(context)
@@ -770,10 +965,14 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
                         .setKeyClass(keyClass)
                         .setValueClass(valueClass)
                         .setPollTimeout(this.consumerPollTimeout)
+                        .setMaxQueuedBytes (this.maxQueuedBytes)
+                        .setFairPartitionSubmission (this.fairPartitionSubmission)
                         .setInitialStartPosition (this.startPosition)
                         .setCommitMode (commitMode)
                         .setCommitPeriod (commitPeriod)
-                        .setCommitCount(commitCount);
+                        .setCommitCount(commitCount)
+                        .setCommitCoalesced (commitCoalesced)
+                        .setDirectSubmitter (directSubmit? this::submitDirect: null);
             }
             else {
                 // CR
@@ -783,10 +982,14 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
                         .setKeyClass (keyClass)
                         .setValueClass (valueClass)
                         .setPollTimeout (this.consumerPollTimeout)
+                        .setMaxQueuedBytes (this.maxQueuedBytes)
+                        .setFairPartitionSubmission (this.fairPartitionSubmission)
                         .setSingleTopic (this.topics != null && this.topics.size() == 1)
                         .setTriggerCount (this.triggerCount)
                         .setInitialStartPosition (this.startPosition)
-                        .setInitialStartTimestamp (this.startTime);
+                        .setInitialStartTimestamp (this.startTime)
+                        .setCommitInProducerTransaction (this.commitInProducerTransaction)
+                        .setIncrementalRebalance (this.incrementalRebalance);
 
                 this.staticAssignClientBuilder = new CrKafkaStaticAssignConsumerClient.Builder()
                         .setOperatorContext(context)
@@ -794,7 +997,10 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
                         .setKeyClass(keyClass)
                         .setValueClass(valueClass)
                         .setPollTimeout(this.consumerPollTimeout)
-                        .setTriggerCount(this.triggerCount);
+                        .setMaxQueuedBytes (this.maxQueuedBytes)
+                        .setFairPartitionSubmission (this.fairPartitionSubmission)
+                        .setTriggerCount(this.triggerCount)
+                        .setCommitInProducerTransaction (this.commitInProducerTransaction);
             }
             magics.put (this.staticAssignClientBuilder.getImplementationMagic(), this.staticAssignClientBuilder);
             magics.put (this.groupEnabledClientBuilder.getImplementationMagic(), this.groupEnabledClientBuilder);
@@ -890,6 +1096,15 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
             if (crContext != null && context.getPE().getRelaunchCount() > 0) {
                 resettingLatch = new CountDownLatch(1);
             }
+            if (this.submitThreads > 1) {
+                logger.info (MsgFormatter.format ("Tuples are submitted by {0} threads", this.submitThreads));
+            }
+            if (this.directSubmit) {
+                logger.info ("Tuples are submitted by the thread that polls for messages");
+                if (this.submitThreads > 1) {
+                    directSubmitExecutor = Executors.newFixedThreadPool (submitThreads -1, context.getThreadFactory());
+                }
+            }
 
             processThread = getOperatorContext().getThreadFactory().newThread(new Runnable() {
 
@@ -943,6 +1158,10 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
         if(consumerInitial.isSubscribedOrAssigned()) {
             consumerInitial.sendStartPollingEvent();
         }
+        if (directSubmit) {
+            // the polling thread of the consumer client submits the tuples
+            return;
+        }
         /*
          * Shutdown implementation:
          * On shutdown, all threads get interrupted and throw InterruptedException, which must be caught and handled.
@@ -951,6 +1170,22 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
          * the while-loop, we run into `consumer.sendStopPollingEvent();`, which contains a wait, that another thread processes
          * the event. This will most likely not happen because this thread also has been interrupted and finished working.
          */
+        // The thread running this method submits tuples as well. Additional threads are only required for more than one submitter thread.
+        final ExecutorService submitExecutor = submitThreads > 1? Executors.newFixedThreadPool (submitThreads -1, getOperatorContext().getThreadFactory()): null;
+        try {
+            runSubmitLoop (submitExecutor);
+        }
+        finally {
+            if (submitExecutor != null) submitExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Fetches batches of consumer records from the consumer client and submits them as tuples until the operator is shut down.
+     * @param submitExecutor An executor for parallel submission or null, when tuples are submitted by the calling thread only.
+     * @throws Exception
+     */
+    private void runSubmitLoop (ExecutorService submitExecutor) throws Exception {
         while (!shutdown.get()) {
             if (crContext != null) {
                 try {
@@ -965,11 +1200,15 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
             try {
                 ConsumerClient consumer = consumerRef.get();
                 // Any exceptions except InterruptedException thrown here are propagated to the caller
-                // Make timeout for 'getNextRecord' not too high as it influences the granularity of time based offset commit
-                ConsumerRecord<?, ?> record = consumer.getNextRecord (100, TimeUnit.MILLISECONDS);
-                if (record != null) {
-                    submitRecord(record);
-                    consumer.postSubmit(record);
+                // Make timeout for 'getNextBatch' not too high as it influences the granularity of time based offset commit
+                List<ConsumerRecord<?, ?>> batch = consumer.getNextBatch (100, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    if (submitExecutor == null) {
+                        submitBatch (consumer, batch);
+                    }
+                    else {
+                        submitBatchParallel (consumer, batch, submitExecutor);
+                    }
                 }
             }
             catch (InterruptedException ie) {
@@ -992,6 +1231,108 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
         }
     }
 
+    /**
+     * Submits a batch of records on behalf of the polling thread of the consumer client.
+     * @param consumer the consumer client
+     * @param batch    the records
+     * @throws Exception
+     * @see RecordSubmitter#submit(ConsumerClient, List)
+     */
+    private void submitDirect (final ConsumerClient consumer, final List<ConsumerRecord<?, ?>> batch) throws Exception {
+        if (directSubmitExecutor == null) {
+            submitBatch (consumer, batch);
+        }
+        else {
+            submitBatchParallel (consumer, batch, directSubmitExecutor);
+        }
+    }
+
+    /**
+     * Submits the records of a batch in the order of the list and calls {@link ConsumerClient#postSubmit(ConsumerRecord)} for each record.
+     * @param consumer the consumer client
+     * @param batch    the records
+     * @throws Exception
+     */
+    private void submitBatch (final ConsumerClient consumer, final List<ConsumerRecord<?, ?>> batch) throws Exception {
+        for (ConsumerRecord<?, ?> record: batch) {
+            // the batch becomes invalid when the client discards pending records, for example on reset
+            if (!consumer.isBatchValid() || shutdown.get()) {
+                if (logger.isDebugEnabled()) logger.debug ("remaining records of the batch discarded"); //$NON-NLS-1$
+                break;
+            }
+            submitRecord(record);
+            consumer.postSubmit(record);
+        }
+    }
+
+    /**
+     * Splits a batch into shards by topic partition and submits the shards in parallel.
+     * All records of a topic partition go into the same shard, so that the order within a partition is preserved.
+     * The calling thread submits one shard itself. The method returns when all shards are submitted, also when the submission of a shard failed.
+     * In this case, the first exception is thrown after all submitter threads have finished.
+     * @param consumer the consumer client
+     * @param batch    the records
+     * @param executor the executor for the additional submitter threads
+     * @throws Exception
+     */
+    private void submitBatchParallel (final ConsumerClient consumer, final List<ConsumerRecord<?, ?>> batch, final ExecutorService executor) throws Exception {
+        final int nShards = submitThreads;
+        final List<List<ConsumerRecord<?, ?>>> shards = new ArrayList<> (Collections.nCopies (nShards, null));
+        final int shardCapacity = batch.size() / nShards + 1;
+        for (ConsumerRecord<?, ?> record: batch) {
+            final int i = Math.floorMod (31 * record.topic().hashCode() + record.partition(), nShards);
+            if (shards.get (i) == null) shards.set (i, new ArrayList<> (shardCapacity));
+            shards.get (i).add (record);
+        }
+        List<ConsumerRecord<?, ?>> ownShard = null;
+        final List<Future<?>> futures = new ArrayList<> (nShards);
+        Exception failure = null;
+        try {
+            for (final List<ConsumerRecord<?, ?>> shard: shards) {
+                if (shard == null) continue;
+                if (ownShard == null) {
+                    ownShard = shard;
+                }
+                else {
+                    futures.add (executor.submit (() -> {
+                        submitBatch (consumer, shard);
+                        return null;
+                    }));
+                }
+            }
+            if (ownShard != null) {
+                submitBatch (consumer, ownShard);
+            }
+        }
+        catch (Exception e) {
+            failure = e;
+        }
+        finally {
+            // never return while submitter threads are still submitting tuples of this batch
+            boolean interrupted = false;
+            for (Future<?> f: futures) {
+                while (true) {
+                    try {
+                        f.get();
+                        break;
+                    }
+                    catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                    catch (ExecutionException e) {
+                        if (failure == null) {
+                            final Throwable cause = e.getCause();
+                            failure = cause instanceof Exception? (Exception) cause: new KafkaOperatorRuntimeException ("tuple submission failed: " + cause, cause);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw failure;
+    }
+
     private void submitRecord(ConsumerRecord<?, ?> record) throws Exception {
         if (logger.isTraceEnabled()) {
             logger.trace("Preparing to submit record: " + record.topic() + "-" + record.partition() + "[" + record.offset() + "]"); //$NON-NLS-1$
@@ -1007,42 +1348,112 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
         }
         final StreamingOutput<OutputTuple> out = getOutput(0);
         OutputTuple tuple = out.newTuple();
-        setTuple(tuple, outputMessageAttrName, outputMessageAttrIdx, record.value());
+        for (RecordAttributeWriter w: recordWriters) {
+            w.write (tuple, record);
+        }
+        out.submit(tuple);
+    }
 
-        if (outputKeyAttrIdx >= 0) {
+    /**
+     * Writes one or more attributes of an output tuple from a consumer record.
+     */
+    @FunctionalInterface
+    private static interface RecordAttributeWriter {
+        void write (OutputTuple tuple, ConsumerRecord<?, ?> record) throws Exception;
+    }
+
+    /**
+     * Creates the writers for the mapped attributes of the output port.
+     * Key and message attributes get a writer that is specialized for the attribute type when the deserializer
+     * is the default deserializer for that type, so that no type dispatch is required per tuple.
+     * With a user configured deserializer, the type of the deserialized objects is determined per tuple.
+     * 
+     * @param keyClass        the object type of the key attribute
+     * @param valueClass      the object type of the message attribute
+     * @param kafkaProperties the kafka properties with the optionally configured deserializers
+     * @return an array with the writers, which must be called in order for every tuple
+     */
+    private RecordAttributeWriter[] createRecordWriters (Class<?> keyClass, Class<?> valueClass, KafkaOperatorProperties kafkaProperties) {
+        final List<RecordAttributeWriter> writers = new ArrayList<>(6);
+        final int msgIdx = outputMessageAttrIdx;
+        final String msgAttrName = outputMessageAttrName;
+        if (msgIdx >= 0) {
+            // record.value() is never null here; records with null values are dropped before
+            switch (specializedWriterType (valueClass, kafkaProperties.getProperty (ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG))) {
+            case STRING: writers.add ((t, r) -> t.setString (msgIdx, (String) r.value())); break;
+            case INT: writers.add ((t, r) -> t.setInt (msgIdx, (Integer) r.value())); break;
+            case LONG: writers.add ((t, r) -> t.setLong (msgIdx, (Long) r.value())); break;
+            case FLOAT: writers.add ((t, r) -> t.setFloat (msgIdx, (Float) r.value())); break;
+            case DOUBLE: writers.add ((t, r) -> t.setDouble (msgIdx, (Double) r.value())); break;
+            case BLOB: writers.add ((t, r) -> t.setBlob (msgIdx, ValueFactory.newBlob ((byte[]) r.value()))); break;
+            case BLOB_FROM_BUFFER: writers.add ((t, r) -> t.setBlob (msgIdx, newBlob ((ByteBuffer) r.value()))); break;
+            default: writers.add ((t, r) -> setTuple (t, msgAttrName, msgIdx, r.value()));
+            }
+        }
+        final int keyIdx = outputKeyAttrIdx;
+        final String keyAttrName = outputKeyAttrName;
+        if (keyIdx >= 0) {
             // if record.key() is null, we have no evidence that this happend really by a malformed key.
             // It can also be an unkeyed message. So, dropping the message seems not appropriate in this case.
-            // 
-            // key = null would be mapped to
-            // * empty rstring
-            // * 0 for Integer, or float64
-            // 
-            // in the key attribute of the outgoing tuple. 
-            //            if (record.key() == null) {
-            //                logger.warn("dropping message with malformed key from topic = "
-            //                        + record.topic() + ", partition = " + record.partition() + ", offset = " + record.offset());
-            //                nMalformedMessages.increment();
-            //                return;
-            //            }
-            setTuple(tuple, outputKeyAttrName, outputKeyAttrIdx, record.key());
+            // key = null leaves the default value of the attribute type in the tuple.
+            switch (specializedWriterType (keyClass, kafkaProperties.getProperty (ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG))) {
+            case STRING: writers.add ((t, r) -> { if (r.key() != null) t.setString (keyIdx, (String) r.key()); }); break;
+            case INT: writers.add ((t, r) -> { if (r.key() != null) t.setInt (keyIdx, (Integer) r.key()); }); break;
+            case LONG: writers.add ((t, r) -> { if (r.key() != null) t.setLong (keyIdx, (Long) r.key()); }); break;
+            case FLOAT: writers.add ((t, r) -> { if (r.key() != null) t.setFloat (keyIdx, (Float) r.key()); }); break;
+            case DOUBLE: writers.add ((t, r) -> { if (r.key() != null) t.setDouble (keyIdx, (Double) r.key()); }); break;
+            case BLOB: writers.add ((t, r) -> { if (r.key() != null) t.setBlob (keyIdx, ValueFactory.newBlob ((byte[]) r.key())); }); break;
+            case BLOB_FROM_BUFFER: writers.add ((t, r) -> { if (r.key() != null) t.setBlob (keyIdx, newBlob ((ByteBuffer) r.key())); }); break;
+            default: writers.add ((t, r) -> setTuple (t, keyAttrName, keyIdx, r.key()));
+            }
         }
-
-        if (outputTopicAttrIdx >= 0) {
-            tuple.setString(outputTopicAttrIdx, record.topic());
+        final int topicIdx = outputTopicAttrIdx;
+        if (topicIdx >= 0) {
+            writers.add ((t, r) -> t.setString (topicIdx, r.topic()));
         }
-
-        if (outputOffsetAttrIdx >= 0) {
-            tuple.setLong(outputOffsetAttrIdx, record.offset());
+        final int offsetIdx = outputOffsetAttrIdx;
+        if (offsetIdx >= 0) {
+            writers.add ((t, r) -> t.setLong (offsetIdx, r.offset()));
         }
-
-        if (outputPartitionAttrIdx >= 0) {
-            tuple.setInt(outputPartitionAttrIdx, record.partition());
+        final int partitionIdx = outputPartitionAttrIdx;
+        if (partitionIdx >= 0) {
+            writers.add ((t, r) -> t.setInt (partitionIdx, r.partition()));
+        }
+        final int timestampIdx = outputTimetampAttrIdx;
+        if (timestampIdx >= 0) {
+            writers.add ((t, r) -> t.setLong (timestampIdx, r.timestamp()));
         }
+        return writers.toArray (new RecordAttributeWriter[writers.size()]);
+    }
+
+    private static enum WriterType {STRING, INT, LONG, FLOAT, DOUBLE, BLOB, BLOB_FROM_BUFFER, GENERIC}
 
-        if (outputTimetampAttrIdx >= 0) {
-            tuple.setLong(outputTimetampAttrIdx, record.timestamp());
+    /**
+     * Determines the type of the attribute writer for a key or message attribute.
+     * @param attrClass    the object type of the attribute
+     * @param deserializer the configured deserializer class name or null if not configured
+     * @return the writer type. GENERIC is returned when the deserializer is not the default deserializer for the attribute type.
+     */
+    private static WriterType specializedWriterType (Class<?> attrClass, String deserializer) {
+        final String defaultDeserializer;
+        try {
+            defaultDeserializer = AbstractKafkaClient.getDeserializer (attrClass);
+        } catch (KafkaConfigurationException e) {
+            return WriterType.GENERIC;
         }
-        out.submit(tuple);
+        if (deserializer != null && !deserializer.trim().equals (defaultDeserializer)) {
+            if (attrClass.equals (Blob.class) && deserializer.trim().equals (ByteBufferDeserializer.class.getCanonicalName())) {
+                return WriterType.BLOB_FROM_BUFFER;
+            }
+            return WriterType.GENERIC;
+        }
+        if (attrClass.equals (String.class) || attrClass.equals (RString.class)) return WriterType.STRING;
+        if (attrClass.equals (Integer.class)) return WriterType.INT;
+        if (attrClass.equals (Long.class)) return WriterType.LONG;
+        if (attrClass.equals (Float.class)) return WriterType.FLOAT;
+        if (attrClass.equals (Double.class)) return WriterType.DOUBLE;
+        if (attrClass.equals (Blob.class)) return WriterType.BLOB;
+        return WriterType.GENERIC;
     }
 
     private void setTuple(OutputTuple tuple, final String attrName, final int attrIndex, final Object attrValue) throws Exception {
@@ -1063,10 +1474,25 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
             tuple.setByte(attrIndex, (Byte) attrValue);
         else if (attrValue instanceof byte[])
             tuple.setBlob(attrIndex, ValueFactory.newBlob((byte[]) attrValue));
+        else if (attrValue instanceof ByteBuffer)
+            tuple.setBlob(attrIndex, newBlob((ByteBuffer) attrValue));
         else
             throw new Exception(Messages.getString("UNSUPPORTED_TYPE_EXCEPTION", (attrValue.getClass().getTypeName()), attrName)); //$NON-NLS-1$
     }
 
+    /**
+     * Creates a Blob from the remaining bytes of a ByteBuffer without changing the position of the buffer.
+     * The backing array of a heap buffer is used directly as source, so that the data is not copied twice.
+     * @param buffer the buffer
+     * @return a new Blob
+     */
+    private static Blob newBlob (ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return ValueFactory.newBlob (buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return ValueFactory.readBlob (buffer.duplicate());
+    }
+
     /**
      * @see com.ibm.streams.operator.AbstractOperator#processPunctuation(com.ibm.streams.operator.StreamingInput, com.ibm.streams.operator.StreamingData.Punctuation)
      */
@@ -1203,6 +1629,9 @@ public abstract class AbstractKafkaConsumerOperator extends AbstractKafkaOperato
             if (consumer.isProcessing()) {
                 consumer.onShutdown (SHUTDOWN_TIMEOUT, SHUTDOWN_TIMEOUT_TIMEUNIT);
             }
+            if (directSubmitExecutor != null) {
+                directSubmitExecutor.shutdownNow();
+            }
             logger.info ("Operator " + context.getName() + ": shutdown done");
             // Must call super.shutdown()
             super.shutdown();
@@ -296,10 +296,22 @@ public abstract class AbstractKafkaOperator extends AbstractOperator implements
      * @return        The corresponding Java primitive
      */
     protected Object toJavaPrimitveObject(Class<?> type, Object attrObj) {
+        return toJavaPrimitveObject (attrObj, false);
+    }
+
+    /**
+     * converts an attribute object to the Java primitive object.
+     * @param attrObj          the attribute value as object
+     * @param blobAsByteBuffer when true, a Blob is converted into a ByteBuffer instead of a byte array.
+     *                         The ByteBuffer must be serialized with the
+     *                         `org.apache.kafka.common.serialization.ByteBufferSerializer`.
+     * @return        The corresponding Java primitive
+     */
+    protected Object toJavaPrimitveObject (Object attrObj, boolean blobAsByteBuffer) {
         if(attrObj instanceof RString) {
             attrObj = ((RString)attrObj).getString();
         } else if(attrObj instanceof Blob) {
-            attrObj = ((Blob)attrObj).getData();
+            attrObj = blobAsByteBuffer? ((Blob)attrObj).getByteBuffer(): ((Blob)attrObj).getData();
         }
 
         return attrObj;
@@ -20,7 +20,9 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.lang3.time.StopWatch;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
 import org.apache.log4j.Logger;
 
 import com.ibm.streams.operator.Attribute;
@@ -42,11 +44,13 @@ import com.ibm.streams.operator.model.DefaultAttribute;
 import com.ibm.streams.operator.model.Parameter;
 import com.ibm.streams.operator.state.Checkpoint;
 import com.ibm.streams.operator.state.ConsistentRegionContext;
+import com.ibm.streams.operator.types.Blob;
 import com.ibm.streamsx.kafka.PerformanceLevel;
 import com.ibm.streamsx.kafka.clients.producer.AbstractKafkaProducerClient;
 import com.ibm.streamsx.kafka.clients.producer.ConsistentRegionPolicy;
 import com.ibm.streamsx.kafka.clients.producer.TrackingProducerClient;
 import com.ibm.streamsx.kafka.clients.producer.TransactionalCrProducerClient;
+import com.ibm.streamsx.kafka.clients.producer.UntrackedProducerClient;
 import com.ibm.streamsx.kafka.i18n.Messages;
 import com.ibm.streamsx.kafka.properties.KafkaOperatorProperties;
 
@@ -66,11 +70,13 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
     protected static final String TIMESTAMPATTR_PARAM_NAME = "timestampAttribute"; //$NON-NLS-1$
     protected static final String CONSISTENT_REGION_POLICY_PARAM_NAME = "consistentRegionPolicy";
     protected static final String FLUSH_PARAM_NAME = "flush";
+    protected static final String PRODUCER_INSTANCES_PARAM_NAME = "producerInstances";
+    protected static final String MAX_TRANSACTION_RECORDS_PARAM_NAME = "maxTransactionRecords";
+    protected static final String ALLOW_INTERMEDIATE_TRANSACTION_COMMITS_PARAM_NAME = "allowIntermediateTransactionCommits";
     protected static final String OUTPUT_ERRORS_ONLY_PARM_NAME = "outputErrorsOnly";
 
     protected static final int I_PORT_MAX_PENDING_TUPLES = 5000;
     protected static final int O_PORT_DEFAULT_QUEUE_CAPACITY = 5000;
-    protected static final long O_PORT_QUEUE_OFFER_TIMEOUT_MS = 15000;
     protected static final boolean O_PORT_SUBMIT_ONLY_ERRORS = true;
 
     private static final Logger logger = Logger.getLogger(KafkaProducerOperator.class);
@@ -92,31 +98,84 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
     private int partitionAttributeIndex = -1;
     private int timestampAttributeIndex = -1;
     private int topicAttributeIndex = -1;
+    private boolean keyBlobAsByteBuffer = false;
+    private boolean messageBlobAsByteBuffer = false;
 
     // AtLeastOnce as default in order to support also Kafka 0.10 out of the box in Consistent Region.
     private ConsistentRegionPolicy consistentRegionPolicy = ConsistentRegionPolicy.NonTransactional;
     private boolean guaranteeOrdering = false;
     private boolean outputErrorsOnly = O_PORT_SUBMIT_ONLY_ERRORS;
     private int flush = 0;
+    private int producerInstances = 1;
+    private int maxTransactionRecords = 0;
+    private boolean allowIntermediateTransactionCommits = false;
     private OutputPortSubmitter errorPortSubmitter = null;
 
     @Parameter (optional = true, name = FLUSH_PARAM_NAME,
             description = "Specifies the number of tuples, after which the producer is flushed. When not specified, "
-                    + "or when the parameter value is not positive, "
-                    + "the flush interval is adaptively  calculated to avoid queing times significantly over five seconds.\\n"
+                    + "or when the parameter value is not positive, the producer is not flushed. Instead, the number of bytes "
+                    + "that are sent, but not yet acknowledged, is adaptively limited to avoid queing times significantly over five seconds. "
+                    + "The tuple processing waits only until enough records are acknowledged to get below this limit.\\n"
                     + "\\n"
                     + "Flushing the producer makes all buffered records immediately available to send to the server "
                     + "(even if `linger.ms` is greater than 0) and blocks on the completion of the requests "
                     + "associated with the buffered records. When a small value is specified, the batching of tuples to server "
                     + "requests and compression (if used) may get inefficient.\\n"
                     + "\\n"
-                    + "Under normal circumstances, this parameter should be used only when the adaptive flush control gives not "
+                    + "Under normal circumstances, this parameter should be used only when the adaptive control gives not "
                     + "the desired results, for example when the custom metrics **buffer-available-bytes** goes very small and "
                     + "**record-queue-time-max** or **record-queue-time-avg** gets too high.")
     public void setFlush (int value) {
         this.flush = value;
     }
 
+    @Parameter (optional = true, name = PRODUCER_INSTANCES_PARAM_NAME,
+            description = "Specifies the number of Kafka producer instances within the operator. The default value is 1.\\n"
+                    + "\\n"
+                    + "With more than one instance, the records are distributed to the instances by the partition when "
+                    + "a partition is specified, otherwise by the hash of the key. Records with the same key or for the same partition "
+                    + "are always sent by the same instance. "
+                    + "Records without key and partition are distributed round-robin, so that their order can change. "
+                    + "Flush and drain apply to all instances, and the Kafka metrics of all instances are exposed as aggregated custom metrics. "
+                    + "The instances share the memory configured with the `buffer.memory` producer property.\\n"
+                    + "\\n"
+                    + "Multiple instances can increase the throughput of operators with a very high tuple rate "
+                    + "as each instance has its own record accumulator and sender thread. "
+                    + "When the operator is used in a consistent region with `Transactional` policy, this parameter is ignored "
+                    + "because a transaction cannot span multiple producers. This parameter is also ignored when **guaranteeOrdering** "
+                    + "is `true`, because records for the same partition, for example with and without key, could be sent by different instances.")
+    public void setProducerInstances (int value) {
+        this.producerInstances = value;
+    }
+
+    @Parameter (optional = true, name = MAX_TRANSACTION_RECORDS_PARAM_NAME,
+            description = "Specifies the maximum number of records that are produced within one Kafka transaction. "
+                    + "This parameter can only be used when the operator is part of a consistent region, the **consistentRegionPolicy** "
+                    + "parameter is `Transactional`, and the **" + ALLOW_INTERMEDIATE_TRANSACTION_COMMITS_PARAM_NAME + "** parameter "
+                    + "is `true`. When not specified, or when the value is not positive, the transaction "
+                    + "is committed only when the consistent region is checkpointed.\\n"
+                    + "\\n"
+                    + "When the number of records is reached, the transaction is committed, so that consumers with isolation level "
+                    + "`read_committed` see the data before the next checkpoint. The next record begins a new transaction.\\n"
+                    + "\\n"
+                    + "**Note:** A committed transaction cannot be aborted anymore. When the consistent region is reset, the tuples "
+                    + "since the last checkpoint are replayed, so that the records of intermediately committed transactions are "
+                    + "produced again. With this parameter, records are produced at least once instead of exactly once.")
+    public void setMaxTransactionRecords (int value) {
+        this.maxTransactionRecords = value;
+    }
+
+    @Parameter (optional = true, name = ALLOW_INTERMEDIATE_TRANSACTION_COMMITS_PARAM_NAME,
+            description = "Specifies whether the Kafka transaction may be committed before the consistent region is checkpointed. "
+                    + "This parameter must be set to `true` to use the **" + MAX_TRANSACTION_RECORDS_PARAM_NAME + "** parameter. "
+                    + "It confirms that the delivery guarantee of the `Transactional` consistent region policy is downgraded "
+                    + "from exactly once to at least once for `read_committed` consumers.\\n"
+                    + "\\n"
+                    + "This parameter is optional and has a default value of `false`.")
+    public void setAllowIntermediateTransactionCommits (boolean value) {
+        this.allowIntermediateTransactionCommits = value;
+    }
+
     @Parameter(optional = true, name=CONSISTENT_REGION_POLICY_PARAM_NAME,
             description="Specifies the policy to use when in a consistent region.\\n"
                     + "\\n"
@@ -293,7 +352,15 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
 
         StreamSchema inPortSchema = opCtx.getStreamingInputs().get(0).getStreamSchema();
         StreamSchema outSchema = opCtx.getStreamingOutputs().get(0).getStreamSchema();
-        if (outSchema.getAttributeCount() > 2) {
+        // with the failedTopics list attribute, the structured failure attributes are allowed in addition
+        final boolean structuredMode = OutputPortSubmitter.hasStructuredFailureAttributes (outSchema);
+        int nStructuredAttrs = 0;
+        if (structuredMode) {
+            for (String outAttrName: outSchema.getAttributeNames()) {
+                if (OutputPortSubmitter.isStructuredFailureAttribute (outSchema.getAttribute (outAttrName))) ++nStructuredAttrs;
+            }
+        }
+        if (outSchema.getAttributeCount() - nStructuredAttrs > 2) {
             checker.setInvalidContext (Messages.getString("PRODUCER_INVALID_OPORT_SCHEMA", opCtx.getKind()), new Object[0]); //$NON-NLS-1$
         }
         // check attribute types
@@ -301,6 +368,9 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
         int nStringAttrs = 0;
         for (String outAttrName: outSchema.getAttributeNames()) {
             Attribute attr = outSchema.getAttribute (outAttrName);
+            if (structuredMode && OutputPortSubmitter.isStructuredFailureAttribute (attr)) {
+                continue;
+            }
             Type attrType = attr.getType();
             MetaType metaType = attrType.getMetaType();
             switch (metaType) {
@@ -335,6 +405,42 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
             checker.setInvalidContext (Messages.getString("PRODUCER_INVALID_OPORT_SCHEMA", opCtx.getKind()), new Object[0]); //$NON-NLS-1$
     }
 
+    @ContextCheck(runtime = true, compile = false)
+    public static void checkMaxTransactionRecords (OperatorContextChecker checker) {
+        final OperatorContext opCtx = checker.getOperatorContext();
+        if (!opCtx.getParameterNames().contains (MAX_TRANSACTION_RECORDS_PARAM_NAME)) return;
+        if (opCtx.getOptionalContext (ConsistentRegionContext.class) == null) return;
+        final String maxRecords = opCtx.getParameterValues (MAX_TRANSACTION_RECORDS_PARAM_NAME).get(0);
+        String policy = ConsistentRegionPolicy.NonTransactional.name();
+        if (opCtx.getParameterNames().contains (CONSISTENT_REGION_POLICY_PARAM_NAME)) {
+            // enum values can be qualified by the enum type
+            policy = opCtx.getParameterValues (CONSISTENT_REGION_POLICY_PARAM_NAME).get(0).replaceAll (".*\\.", "");
+        }
+        if (!ConsistentRegionPolicy.Transactional.name().equals (policy)) {
+            checker.setInvalidContext (Messages.getString ("PARAM_INCOMPATIBLE_WITH_OTHER_PARAM_VAL", //$NON-NLS-1$
+                    MAX_TRANSACTION_RECORDS_PARAM_NAME, CONSISTENT_REGION_POLICY_PARAM_NAME, policy), new Object[0]);
+            return;
+        }
+        final boolean allowed = opCtx.getParameterNames().contains (ALLOW_INTERMEDIATE_TRANSACTION_COMMITS_PARAM_NAME)
+                && Boolean.parseBoolean (opCtx.getParameterValues (ALLOW_INTERMEDIATE_TRANSACTION_COMMITS_PARAM_NAME).get(0));
+        if (!allowed) {
+            checker.setInvalidContext (Messages.getString ("PARAM_VAL_INCOMPATIBLE_WITH_OTHER_PARAM_VAL", //$NON-NLS-1$
+                    ALLOW_INTERMEDIATE_TRANSACTION_COMMITS_PARAM_NAME, "false", MAX_TRANSACTION_RECORDS_PARAM_NAME, maxRecords), new Object[0]);
+        }
+    }
+
+    @ContextCheck(runtime = true, compile = false)
+    public static void checkProducerInstancesValue (OperatorContextChecker checker) {
+        final OperatorContext opCtx = checker.getOperatorContext();
+        if (opCtx.getParameterNames().contains (PRODUCER_INSTANCES_PARAM_NAME)) {
+            final int n = Integer.valueOf (opCtx.getParameterValues (PRODUCER_INSTANCES_PARAM_NAME).get(0));
+            if (n <= 0) {
+                checker.setInvalidContext (Messages.getString ("INVALID_PARAMETER_VALUE_GT", PRODUCER_INSTANCES_PARAM_NAME, "" + n, "0"), //$NON-NLS-1$
+                        new Object[0]);
+            }
+        }
+    }
+
     @ContextCheck(runtime = true, compile = false)
     public static void checkAttributes(OperatorContextChecker checker) {
         StreamSchema streamSchema = checker.getOperatorContext().getStreamingInputs().get(0).getStreamSchema();
@@ -411,6 +517,9 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
                 checker.setInvalidContext(Messages.getString("OPERATOR_NOT_START_OF_CONSISTENT_REGION", opContext.getKind()), new Object[0]); ////$NON-NLS-1$ 
             }
         }
+        else if (opContext.getParameterNames().contains (MAX_TRANSACTION_RECORDS_PARAM_NAME)) {
+            System.err.println (Messages.getString ("PARAM_IGNORED_NOT_IN_CONSITENT_REGION", MAX_TRANSACTION_RECORDS_PARAM_NAME));
+        }
     }
 
     /**
@@ -482,7 +591,6 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
         if (getOperatorContext().getNumberOfStreamingOutputs() > 0) {
             this.errorPortSubmitter = new OutputPortSubmitter (context, 
                     O_PORT_DEFAULT_QUEUE_CAPACITY, 
-                    O_PORT_QUEUE_OFFER_TIMEOUT_MS,
                     outputErrorsOnly);
         }
         initProducer();
@@ -495,6 +603,34 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
     private void initProducer() throws Exception {
         // configure producer
         KafkaOperatorProperties props = getKafkaProperties();
+        if (crContext == null && this.errorPortSubmitter == null) {
+            // nobody is interested in the outcome of a single tuple; no need to track tuples
+            producer = new UntrackedProducerClient (getOperatorContext(), keyType, messageType, guaranteeOrdering, props);
+        }
+        else {
+            producer = createTrackingProducer (props);
+        }
+        producer.setFlushAfter (flush);
+        if (producerInstances > 1) {
+            if (crContext != null && consistentRegionPolicy == ConsistentRegionPolicy.Transactional) {
+                logger.warn ("parameter '" + PRODUCER_INSTANCES_PARAM_NAME + "' is ignored for consistent region policy " + consistentRegionPolicy);
+            }
+            else if (guaranteeOrdering) {
+                // records of the same partition could be sent by different instances, for example records with and without key
+                logger.warn ("parameter '" + PRODUCER_INSTANCES_PARAM_NAME + "' is ignored when '" + GUARANTEE_ORDERING_PARAM_NAME + "' is true");
+            }
+            else {
+                producer.setProducerInstances (producerInstances);
+            }
+        }
+        // the client has set the default serializers into the properties when they were not configured
+        final String byteBufferSerializer = ByteBufferSerializer.class.getCanonicalName();
+        keyBlobAsByteBuffer = Blob.class.equals (keyType) && byteBufferSerializer.equals (props.getProperty (ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG));
+        messageBlobAsByteBuffer = Blob.class.equals (messageType) && byteBufferSerializer.equals (props.getProperty (ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG));
+        logger.info ("producer client " + producer.getThisClassName() + " created");
+    }
+
+    private TrackingProducerClient createTrackingProducer (KafkaOperatorProperties props) throws Exception {
         TrackingProducerClient pClient;
         if(crContext == null) {
             pClient = new TrackingProducerClient (getOperatorContext(), keyType, messageType, guaranteeOrdering, props);
@@ -505,7 +641,13 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
                 pClient = new TrackingProducerClient (getOperatorContext(), keyType, messageType, guaranteeOrdering, props);
                 break;
             case Transactional:
-                pClient = new TransactionalCrProducerClient(getOperatorContext(), keyType, messageType, guaranteeOrdering, props);
+                TransactionalCrProducerClient tClient = new TransactionalCrProducerClient(getOperatorContext(), keyType, messageType, guaranteeOrdering, props);
+                if (allowIntermediateTransactionCommits && maxTransactionRecords > 0) {
+                    logger.warn ("transactions are committed after " + maxTransactionRecords + " records within a consistent interval; "
+                            + "records are delivered at least once, not exactly once");
+                    tClient.setMaxTransactionRecords (maxTransactionRecords);
+                }
+                pClient = tClient;
                 break;
             default:
                 throw new RuntimeException("Unrecognized ConsistentRegionPolicy: " + consistentRegionPolicy);
@@ -515,9 +657,7 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
         pClient.setTupleProcessedHook (this.errorPortSubmitter);
         pClient.setMaxPendingTuples (I_PORT_MAX_PENDING_TUPLES);
         pClient.setMaxProducerGenerations (2);  // retry tuples only once
-        producer = pClient;
-        producer.setFlushAfter (flush);
-        logger.info ("producer client " + producer.getThisClassName() + " created");
+        return pClient;
     }
 
     /**
@@ -542,10 +682,14 @@ public abstract class AbstractKafkaProducerOperator extends AbstractKafkaOperato
             logger.debug("Operator is in the middle of resetting...skipping tuple processing!"); //$NON-NLS-1$
             return;
         }
+        // do not let the output port queue grow without limit when tuple submission is slower than producing
+        if (this.errorPortSubmitter != null) {
+            this.errorPortSubmitter.awaitQueueCapacity();
+        }
 
         List<String> topicList = getTopics(tuple);
-        Object key = keyAttributeIndex >=0? toJavaPrimitveObject(keyType, tuple.getObject(keyAttributeIndex)): null;
-        Object value = toJavaPrimitveObject(messageType, messageAttr.getValue(tuple));
+        Object key = keyAttributeIndex >=0? toJavaPrimitveObject(tuple.getObject(keyAttributeIndex), keyBlobAsByteBuffer): null;
+        Object value = toJavaPrimitveObject(messageAttr.getValue(tuple), messageBlobAsByteBuffer);
         Integer partition = partitionAttributeIndex >= 0? tuple.getInt(partitionAttributeIndex): null;
         Long timestamp = timestampAttributeIndex >= 0? tuple.getLong(timestampAttributeIndex): null;
 
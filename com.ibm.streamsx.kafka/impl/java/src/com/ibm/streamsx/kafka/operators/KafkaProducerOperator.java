@@ -35,7 +35,9 @@ import com.ibm.streams.operator.model.PrimitiveOperator;
             + "ones and failed tuples.\\n"
             + "\\n"
             + "The output port is asynchronous to the input port of the operator. The sequence of the submitted tuples "
-            + "may also differ from the sequence of the input tuples. Window punctuations from the input stream are not forwarded.\\n"
+            + "may also differ from the sequence of the input tuples. Window punctuations from the input stream are not forwarded. "
+            + "Output tuples are never discarded. When the output tuples cannot be submitted as fast as they are created, "
+            + "the processing of input tuples is paused.\\n"
             + "\\n"
             + "The schema of the output port must consist of one optional attribute of tuple type with the same schema "
             + "as the input port and one optional attribute of type `rstring`, `ustring`, `optional<rstring>`, or `optional<ustring>`, "
@@ -44,6 +46,18 @@ import com.ibm.streams.operator.model.PrimitiveOperator;
             + "string with zero length when declared as `rstring` or `ustring`, and an empty optional (optional without a value) when declared as optional. "
             + "Both attributes can have any names and can be declared in any order in the schema.\\n"
             + "\\n"
+            + "Instead of, or in addition to the JSON formatted string, the failure can be described by following attributes, "
+            + "which are recognized by their names and types. They are not filled for successfully produced tuples. "
+            + "The attributes are only recognized when the schema contains the `" + OutputPortSubmitter.FAILED_TOPICS_ATTR_NAME + "` attribute. "
+            + "Otherwise, a string attribute is always assigned with the JSON formatted description, also when it has one of the names below:\\n"
+            + "\\n"
+            + "* `list<rstring> " + OutputPortSubmitter.FAILED_TOPICS_ATTR_NAME + "` or `list<ustring> " + OutputPortSubmitter.FAILED_TOPICS_ATTR_NAME + "` - the topics, to which the tuple could not be produced\\n"
+            + "* `rstring " + OutputPortSubmitter.EXCEPTION_TYPE_ATTR_NAME + "` or `ustring " + OutputPortSubmitter.EXCEPTION_TYPE_ATTR_NAME + "` - the class name of the last exception\\n"
+            + "* `rstring " + OutputPortSubmitter.FAILURE_ATTR_NAME + "` or `ustring " + OutputPortSubmitter.FAILURE_ATTR_NAME + "` - the message of the last exception\\n"
+            + "* `boolean " + OutputPortSubmitter.RETRIABLE_ATTR_NAME + "` - `true` when the last exception is retriable, for example when a broker was not available\\n"
+            + "\\n"
+            + "These structured attributes avoid the creation of JSON for every failed tuple.\\n"
+            + "\\n"
             + "**Example for declaring the output stream as error output:**\\n"
             + "\\n"
             + "    stream <Inp failedTuple, rstring failure> Errors = KafkaProducer (Data as Inp) {\\n"
@@ -61,6 +75,12 @@ import com.ibm.streams.operator.model.PrimitiveOperator;
             + "Please note that the generated JSON does not contain line breaks as in the example above, where the JSON has "
             + "been broken into multiple lines to better show its structure.\\n"
             + "\\n"
+            + "**Example for declaring the output stream with structured failure attributes:**\\n"
+            + "\\n"
+            + "    stream <Inp failedTuple, list<rstring> failedTopics, rstring lastExceptionType, boolean retriable> Errors = KafkaProducer (Data as Inp) {\\n"
+            + "        ...\\n"
+            + "    }\\n"
+            + ""
             + "**Example for declaring the output stream for both successfully produced input tuples and failures:**\\n"
             + "\\n"
             + "    stream <Inp inTuple, optional<rstring> failure> ProduceStatus = KafkaProducer (Data as Inp) {\\n"
@@ -134,6 +154,11 @@ public class KafkaProducerOperator extends AbstractKafkaProducerOperator {
             + "Records that fail two producer generations are considered being finally failed. The corresponding tuple is counted in the "
             + "custom metric `nFailedTuples`, and, if the operator is configured with an output port, an output tuple is submitted.\\n"
             + "\\n"
+            + "When the operator is neither used within a consistent region nor configured with an output port, the tuples are not "
+            + "tracked until they are acknowledged. The records are handed over to the Kafka producer, which retries retriable errors itself, "
+            + "and every record that finally fails is counted in the custom metric `nFailedTuples`. "
+            + "In this configuration, the operator does not instantiate a new Kafka producer for recovery.\\n"
+            + "\\n"
             + "In the event that Kafka throws a **non-retriable exception**, the tuple that caused the exception is counted in the "
             + "custom metric `nFailedTuples`, and, if the operator is configured with an output port, an output tuple is submitted.\\n"
             + "\\n"
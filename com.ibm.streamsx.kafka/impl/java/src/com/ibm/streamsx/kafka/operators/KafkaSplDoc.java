@@ -232,6 +232,9 @@ public class KafkaSplDoc {
             + "| org.apache.kafka.common.serialization.ByteArrayDeserializer | blob | \\n"
             + "---\\n"
             + "\\n"
+            + "For blob attributes, also the `org.apache.kafka.common.serialization.ByteBufferDeserializer` "
+            + "can be configured. The blob is then created from the remaining bytes of the buffer.\\n"
+            + "\\n"
             + "These deserializers are wrapped by extensions that catch exceptions of type "
             + "`org.apache.kafka.common.errors.SerializationException` to allow the operator to skip "
             + "over malformed messages. The used extensions do not modify the actual deserialization "
@@ -412,6 +415,8 @@ public class KafkaSplDoc {
             + "|---|\\n"
             + "| batch.size | `32768` |\\n"
             + "|---|\\n"
+            + "| partitioner.class | `com.ibm.streamsx.kafka.clients.producer.StickyPartitioner`, which partitions records with key like the Kafka default partitioner, and sticks to a partition until a batch is filled for records without key |\\n"
+            + "|---|\\n"
             + "| max.in.flight.requests.per.connection | Limited to `5` when **guaranteeOrdering** parameter is `true`, or when **consistentRegionPolicy** parameter is `Transactional` in consistent region. `10` in all other cases when unset. |\\n"
             + "|---|\\n"
             + "| enable.idempotence | `true` when **guaranteeOrdering** parameter is `true`, or when in consistent region and the **consistentRegionPolicy** parameter is `Transactional`. |\\n"
@@ -509,6 +514,9 @@ public class KafkaSplDoc {
             + "|---|\\n"
             + "| org.apache.kafka.common.serialization.ByteArraySerializer | blob |\\n"
             + "---\\n"
+            + "\\n"
+            + "For blob attributes, also the `org.apache.kafka.common.serialization.ByteBufferSerializer` "
+            + "can be configured. The operator then passes the blob data as `java.nio.ByteBuffer` to the serializer.\\n"
             ;
 
     public static final String PRODUCER_CONSISTENT_REGION_SUPPORT = ""
@@ -13,9 +13,10 @@
  */
 package com.ibm.streamsx.kafka.operators;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -33,56 +34,99 @@ import com.ibm.streams.operator.Type;
 import com.ibm.streams.operator.Type.MetaType;
 import com.ibm.streams.operator.meta.OptionalType;
 import com.ibm.streams.operator.meta.TupleType;
+import com.ibm.streams.operator.types.RString;
 import com.ibm.streamsx.kafka.KafkaOperatorException;
 import com.ibm.streamsx.kafka.clients.producer.FailureDescription;
 import com.ibm.streamsx.kafka.clients.producer.TupleProcessedHook;
 
 /**
  * This class represents a Hook that submits tuples to an output port.
+ * <p>
+ * The hook methods are called by the threads of the Kafka producer, which invoke the send callbacks.
+ * They only queue the input tuple and the failure description. The output tuples are created and submitted
+ * in batches by a separate submitter thread. The queue is not bounded, so that no output is discarded. Instead,
+ * the thread that processes input tuples waits in {@link #awaitQueueCapacity()} while the queue is filled up to its capacity.
+ * 
  * @author The IBM Kafka toolkit team
  */
 public class OutputPortSubmitter implements TupleProcessedHook {
 
     private static final Logger trace = Logger.getLogger (OutputPortSubmitter.class);
 
+    /** attribute name for the failed topics, type list&lt;rstring&gt; or list&lt;ustring&gt; */
+    public static final String FAILED_TOPICS_ATTR_NAME = "failedTopics";
+    /** attribute name for the class name of the last exception, type rstring or ustring */
+    public static final String EXCEPTION_TYPE_ATTR_NAME = "lastExceptionType";
+    /** attribute name for the message of the last exception, type rstring or ustring */
+    public static final String FAILURE_ATTR_NAME = "lastFailure";
+    /** attribute name for the retriable flag of the last exception, type boolean */
+    public static final String RETRIABLE_ATTR_NAME = "retriable";
+
+    /** maximum number of tuples that are taken from the queue at once */
+    private static final int MAX_SUBMIT_BATCH_SIZE = 500;
+
     private final StreamingOutput<OutputTuple> out;
     private final boolean submitOnlyErrors;
-    private final Gson gson;
+    private Gson gson = null;
     private int tupleAttrIndex = -1;
     private int stringAttrIndex = -1;
     private boolean stringAttrIsOptional = false;
+    private int failedTopicsAttrIndex = -1;
+    private boolean failedTopicsAsRString = true;
+    private int exceptionTypeAttrIndex = -1;
+    private int failureAttrIndex = -1;
+    private int retriableAttrIndex = -1;
     private final int outQueueCapacity;
-    private final long outQueueOfferTimeoutMillis;
-    private final BlockingQueue<OutputTuple> outQueue;
-    private boolean isRunning = false;
+    private final BlockingQueue<OutputEntry> outQueue;
+    private volatile boolean isRunning = false;
     private Thread tupleSubmitter;
     private final OperatorContext opCtxt;
     private final Object queueMonitor = new Object();
     private final AtomicInteger nQt = new AtomicInteger();
     private final AtomicBoolean reset = new AtomicBoolean (false);
 
+    /**
+     * A queued input tuple with its failure description, which is null for successfully produced tuples.
+     */
+    private static class OutputEntry {
+        private final Tuple inTuple;
+        private final FailureDescription failure;
+
+        OutputEntry (Tuple inTuple, FailureDescription failure) {
+            this.inTuple = inTuple;
+            this.failure = failure;
+        }
+    }
+
     /**
      * Runnable target for the tuple submission.
      */
     private class TupleSubmitter implements Runnable {
         @Override
         public void run() {
+            final List<OutputEntry> batch = new ArrayList<> (MAX_SUBMIT_BATCH_SIZE);
             while (isRunning) {
-                OutputTuple oTuple;
                 try {
-                    oTuple = outQueue.take();
+                    batch.add (outQueue.take());
                 } catch (InterruptedException e) {
                     continue;
                 }
-                // here we have taken a tuple and MUST decrement nQt.
+                outQueue.drainTo (batch, MAX_SUBMIT_BATCH_SIZE - 1);
+                // here we have taken tuples and MUST decrement nQt.
                 try {
-                    if (!reset.get()) out.submit(oTuple);
-                } catch (Exception e) {
-                    trace.error ("Failed to submit tuple: " + e);
-                    continue;
+                    for (OutputEntry entry: batch) {
+                        if (reset.get()) break;
+                        try {
+                            out.submit (createOTuple (entry));
+                        } catch (Exception e) {
+                            trace.error ("Failed to submit tuple: " + e);
+                        }
+                    }
                 }
                 finally {
-                    if (nQt.decrementAndGet() == 0) {
+                    final int nNotQueued = nQt.addAndGet (-batch.size());
+                    batch.clear();
+                    if (nNotQueued < outQueueCapacity) {
                         synchronized (queueMonitor) {
                             queueMonitor.notifyAll();
                         }
@@ -96,23 +140,27 @@ public class OutputPortSubmitter implements TupleProcessedHook {
     /**
      * Constructs a new ErrorPortSubmitter.
      * @param opContext the operator context
-     * @param outQueueCapacity the capacity of the output queue.
-     * @param outQueueOfferTimeoutMs the timeout in milliseconds for placing output tuples into the queue when the queue is full.
+     * @param outQueueCapacity the capacity of the output queue. When the queue is filled up to the capacity, {@link #awaitQueueCapacity()} blocks.
+     * @param submitOnlyErrors true, when only tuples for failed input tuples are submitted, false otherwise
      * @throws KafkaOperatorException unsupported output port schema
      */
-    public OutputPortSubmitter (OperatorContext opContext, int outQueueCapacity, long outQueueOfferTimeoutMs, boolean submitOnlyErrors) throws KafkaOperatorException {
+    public OutputPortSubmitter (OperatorContext opContext, int outQueueCapacity, boolean submitOnlyErrors) throws KafkaOperatorException {
         if (opContext.getNumberOfStreamingOutputs() == 0) {
             throw new KafkaOperatorException ("Missing output port for operator " + opContext.getKind());
         }
         this.submitOnlyErrors = submitOnlyErrors;
-        this.outQueueOfferTimeoutMillis = outQueueOfferTimeoutMs;
         this.outQueueCapacity = outQueueCapacity;
         this.out = opContext.getStreamingOutputs().get(0);
-        this.gson = (new GsonBuilder()).enableComplexMapKeySerialization().create();
-        this.outQueue = new LinkedBlockingQueue<> (outQueueCapacity);
+        this.outQueue = new LinkedBlockingQueue<>();
         this.opCtxt = opContext;
         StreamSchema inPortSchema = opContext.getStreamingInputs().get(0).getStreamSchema();
         StreamSchema outSchema = out.getStreamSchema();
+        // the structured failure attributes are only recognized when the list attribute for the failed topics is present,
+        // so that string attributes of existing schemas, which happen to have the names of structured attributes, keep the JSON.
+        final boolean structuredMode = hasStructuredFailureAttributes (outSchema);
+        if (structuredMode) {
+            trace.info ("structured failure attributes enabled by the output attribute '" + FAILED_TOPICS_ATTR_NAME + "'");
+        }
         // find the output attributes, we can assign to
         int nTupleAttrs = 0;
         int nStringAttrs = 0;
@@ -120,6 +168,12 @@ public class OutputPortSubmitter implements TupleProcessedHook {
             Attribute attr = outSchema.getAttribute (outAttrName);
             final Type attrType = attr.getType();
             final MetaType metaType = attrType.getMetaType();
+            if (structuredMode && assignStructuredAttribute (attr)) {
+                if (!outAttrName.equals (FAILED_TOPICS_ATTR_NAME) && metaType != MetaType.BOOLEAN) {
+                    trace.info ("output attribute '" + outAttrName + "' is assigned as structured failure attribute, not with the JSON formatted failure description");
+                }
+                continue;
+            }
             switch (metaType) {
             case TUPLE:
                 ++nTupleAttrs;
@@ -152,6 +206,68 @@ public class OutputPortSubmitter implements TupleProcessedHook {
         }
         if (nTupleAttrs > 1 || nStringAttrs > 1)
             throw new KafkaOperatorException ("Unsupported output port schema: " + outSchema);
+        if (stringAttrIndex >= 0) {
+            this.gson = (new GsonBuilder()).enableComplexMapKeySerialization().create();
+        }
+    }
+
+    /**
+     * Tests whether the structured failure attributes are enabled for an output port schema.
+     * This is the case when the schema contains the {@value #FAILED_TOPICS_ATTR_NAME} attribute of type list&lt;rstring&gt; or list&lt;ustring&gt;.
+     * @param outSchema the schema of the output port
+     * @return true, if the structured failure attributes are recognized, false otherwise.
+     */
+    public static boolean hasStructuredFailureAttributes (StreamSchema outSchema) {
+        final Attribute failedTopicsAttr = outSchema.getAttribute (FAILED_TOPICS_ATTR_NAME);
+        return failedTopicsAttr != null && isStructuredFailureAttribute (failedTopicsAttr);
+    }
+
+    /**
+     * Tests whether an attribute is one of the structured failure attributes with matching name and type.
+     * @param attr the attribute of the output port
+     * @return true, if the attribute is a structured failure attribute, false otherwise.
+     */
+    public static boolean isStructuredFailureAttribute (Attribute attr) {
+        final MetaType metaType = attr.getType().getMetaType();
+        switch (attr.getName()) {
+        case FAILED_TOPICS_ATTR_NAME:
+            final String languageType = attr.getType().getLanguageType().replaceAll ("\\s", "");
+            return languageType.equals ("list<rstring>") || languageType.equals ("list<ustring>");
+        case EXCEPTION_TYPE_ATTR_NAME:
+        case FAILURE_ATTR_NAME:
+            return metaType == MetaType.RSTRING || metaType == MetaType.USTRING;
+        case RETRIABLE_ATTR_NAME:
+            return metaType == MetaType.BOOLEAN;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Assigns the attribute index when the attribute is one of the structured failure attributes with matching type.
+     * The structured failure attributes are only assigned when the output port has the {@value #FAILED_TOPICS_ATTR_NAME} list attribute.
+     * @param attr the attribute of the output port
+     * @return true, if the attribute is a structured failure attribute, false otherwise.
+     */
+    private boolean assignStructuredAttribute (Attribute attr) {
+        if (!isStructuredFailureAttribute (attr)) return false;
+        switch (attr.getName()) {
+        case FAILED_TOPICS_ATTR_NAME:
+            this.failedTopicsAttrIndex = attr.getIndex();
+            this.failedTopicsAsRString = attr.getType().getLanguageType().replaceAll ("\\s", "").equals ("list<rstring>");
+            break;
+        case EXCEPTION_TYPE_ATTR_NAME:
+            this.exceptionTypeAttrIndex = attr.getIndex();
+            break;
+        case FAILURE_ATTR_NAME:
+            this.failureAttrIndex = attr.getIndex();
+            break;
+        case RETRIABLE_ATTR_NAME:
+            this.retriableAttrIndex = attr.getIndex();
+            break;
+        default:
+        }
+        return true;
     }
 
     /**
@@ -159,6 +275,7 @@ public class OutputPortSubmitter implements TupleProcessedHook {
      */
     public void stop() {
         isRunning = false;
+        if (tupleSubmitter != null) tupleSubmitter.interrupt();
     }
 
     /**
@@ -177,20 +294,31 @@ public class OutputPortSubmitter implements TupleProcessedHook {
     @Override
     public void onTupleProduced (Tuple tuple) {
         if (submitOnlyErrors) return;
-        enqueueOTuple (tuple, null);
+        enqueue (new OutputEntry (tuple, null));
     }
 
     /**
-     * Creates the error output tuple and places it into a queue.
+     * Places the input tuple and the failure into a queue. The output tuple is created by the submitter thread.
      * 
      * @see com.ibm.streamsx.kafka.clients.producer.TupleProcessedHook#onTupleFailed(com.ibm.streams.operator.Tuple, com.ibm.streamsx.kafka.clients.producer.FailureDescription)
      */
     @Override
     public void onTupleFailed (Tuple inTuple, FailureDescription failure) {
-        if (stringAttrIndex >= 0)
-            enqueueOTuple (inTuple, gson.toJson (failure));
-        else
-            enqueueOTuple (inTuple, null);
+        enqueue (new OutputEntry (inTuple, failure));
+    }
+
+    /**
+     * Waits until the number of queued tuples is below the queue capacity.
+     * This method is called by the thread that processes the input tuples.
+     * @throws InterruptedException The thread has been interrupted waiting.
+     */
+    public void awaitQueueCapacity() throws InterruptedException {
+        if (this.nQt.get() < outQueueCapacity) return;
+        synchronized (queueMonitor) {
+            while (isRunning && this.nQt.get() >= outQueueCapacity) {
+                queueMonitor.wait (1000L);
+            }
+        }
     }
 
     /**
@@ -216,15 +344,26 @@ public class OutputPortSubmitter implements TupleProcessedHook {
     }
 
     /**
-     * Creates an output tuple and offers it to the output queue
-     * @param inTuple
-     * @param failure
+     * Places an entry into the unbounded output queue.
+     * @param entry the entry
+     */
+    private void enqueue (OutputEntry entry) {
+        this.nQt.incrementAndGet();
+        outQueue.add (entry);
+    }
+
+    /**
+     * Creates an output tuple.
+     * @param entry the queued input tuple and failure
+     * @return the output tuple
      */
-    private void enqueueOTuple (Tuple inTuple, String stringAttrVal) {
+    private OutputTuple createOTuple (OutputEntry entry) {
+        final FailureDescription failure = entry.failure;
         OutputTuple outTuple = out.newTuple();
         if (tupleAttrIndex >= 0)
-            outTuple.assignTuple (tupleAttrIndex, inTuple);
+            outTuple.assignTuple (tupleAttrIndex, entry.inTuple);
         if (stringAttrIndex >= 0) {
+            final String stringAttrVal = failure == null? null: gson.toJson (failure);
             if (stringAttrIsOptional) {
                 outTuple.setString (stringAttrIndex, stringAttrVal);
             }
@@ -232,19 +371,27 @@ public class OutputPortSubmitter implements TupleProcessedHook {
                 outTuple.setString (stringAttrIndex, stringAttrVal == null? "": stringAttrVal);
             }
         }
-        try {
-            this.nQt.incrementAndGet();
-            if (!outQueue.offer (outTuple, outQueueOfferTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                trace.error ("Output port queue congested (qsize = " + outQueueCapacity + "). Output tuple discarded.");
-                // tuple NOT offered. revert the previous increment
-                if (this.nQt.decrementAndGet() == 0) {
-                    synchronized (queueMonitor) {
-                        queueMonitor.notifyAll();
-                    }
-                }
+        if (failure == null) {
+            // default values of the structured attributes
+            return outTuple;
+        }
+        if (failedTopicsAttrIndex >= 0) {
+            final List<String> failedTopics = failure.getFailedTopics();
+            if (failedTopicsAsRString) {
+                List<RString> topics = new ArrayList<> (failedTopics.size());
+                for (String t: failedTopics) topics.add (new RString (t));
+                outTuple.setList (failedTopicsAttrIndex, topics);
+            }
+            else {
+                outTuple.setList (failedTopicsAttrIndex, failedTopics);
             }
-        } catch (InterruptedException e) {
-            trace.info ("Interrupted inserting output tuple into output queue. Output tuple discarded.");
         }
+        if (exceptionTypeAttrIndex >= 0)
+            outTuple.setString (exceptionTypeAttrIndex, failure.getLastExceptionType());
+        if (failureAttrIndex >= 0)
+            outTuple.setString (failureAttrIndex, failure.getLastFailure());
+        if (retriableAttrIndex >= 0)
+            outTuple.setBoolean (retriableAttrIndex, failure.isRetriable());
+        return outTuple;
     }
 }
@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+import com.ibm.streamsx.kafka.clients.OffsetsCodec.TopicOffsets;
+
+/**
+ * Tests delta creation, application and encoding of {@link OffsetSnapshot}.
+ */
+public class OffsetSnapshotTest {
+
+    private static OffsetSnapshot snapshot (Object... topicPartitionOffset) {
+        Map<String, Map<Integer, Long>> m = new HashMap<>();
+        for (int i = 0; i < topicPartitionOffset.length; i += 3) {
+            m.computeIfAbsent ((String) topicPartitionOffset[i], t -> new HashMap<>())
+            .put ((Integer) topicPartitionOffset[i +1], (Long) topicPartitionOffset[i +2]);
+        }
+        SortedMap<String, TopicOffsets> topics = new TreeMap<>();
+        m.forEach ((topic, offsets) -> topics.put (topic, TopicOffsets.of (topic, offsets)));
+        return new OffsetSnapshot (topics);
+    }
+
+    private static Map<String, Map<Integer, Long>> toMap (OffsetSnapshot s) {
+        Map<String, Map<Integer, Long>> m = new HashMap<>();
+        s.getTopicOffsets().forEach ((topic, t) -> m.put (topic, t.toMap()));
+        return m;
+    }
+
+    private static void assertSnapshotEquals (OffsetSnapshot expected, OffsetSnapshot actual) {
+        assertEquals (toMap (expected), toMap (actual));
+    }
+
+    @Test
+    public void deltaOfEqualSnapshotsIsEmpty() {
+        final OffsetSnapshot s = snapshot ("t", 0, 10L, "t", 1, 20L);
+        final OffsetSnapshot delta = s.delta (snapshot ("t", 0, 10L, "t", 1, 20L));
+        assertEquals (0, delta.size());
+        assertTrue (delta.getTopicOffsets().isEmpty());
+    }
+
+    @Test
+    public void deltaContainsChangedAndNewPartitions() {
+        final OffsetSnapshot base = snapshot ("t", 0, 10L, "t", 2, 20L);
+        final OffsetSnapshot current = snapshot ("t", 0, 10L, "t", 1, 5L, "t", 2, 25L, "u", 0, 1L);
+        final OffsetSnapshot delta = current.delta (base);
+        assertSnapshotEquals (snapshot ("t", 1, 5L, "t", 2, 25L, "u", 0, 1L), delta);
+        assertSnapshotEquals (current, base.apply (delta));
+    }
+
+    @Test
+    public void deltaMarksRemovedPartitions() {
+        final OffsetSnapshot base = snapshot ("t", 0, 10L, "t", 1, 11L, "t", 2, 12L);
+        final OffsetSnapshot current = snapshot ("t", 1, 11L);
+        final OffsetSnapshot delta = current.delta (base);
+        assertSnapshotEquals (snapshot ("t", 0, OffsetSnapshot.REMOVED, "t", 2, OffsetSnapshot.REMOVED), delta);
+        assertSnapshotEquals (current, base.apply (delta));
+    }
+
+    @Test
+    public void deltaMarksRemovedTopic() {
+        final OffsetSnapshot base = snapshot ("t", 0, 10L, "u", 0, 1L, "u", 3, 3L);
+        final OffsetSnapshot current = snapshot ("t", 0, 10L);
+        final OffsetSnapshot delta = current.delta (base);
+        assertSnapshotEquals (snapshot ("u", 0, OffsetSnapshot.REMOVED, "u", 3, OffsetSnapshot.REMOVED), delta);
+        final OffsetSnapshot applied = base.apply (delta);
+        assertSnapshotEquals (current, applied);
+        assertTrue (!applied.getTopicOffsets().containsKey ("u"));
+    }
+
+    @Test
+    public void deltaToEmptyBase() {
+        final OffsetSnapshot current = snapshot ("t", 0, 10L, "u", 5, 1L);
+        final OffsetSnapshot delta = current.delta (OffsetSnapshot.empty());
+        assertSnapshotEquals (current, delta);
+        assertSnapshotEquals (current, OffsetSnapshot.empty().apply (delta));
+    }
+
+    @Test
+    public void applyDeltaToBaseLackingPartition() {
+        // the base does not contain partition 1; removing it must not fail and must not create a mapping
+        final OffsetSnapshot base = snapshot ("t", 0, 10L, "t", 2, 12L);
+        final OffsetSnapshot delta = snapshot ("t", 1, OffsetSnapshot.REMOVED, "t", 3, 13L, "v", 0, OffsetSnapshot.REMOVED);
+        assertSnapshotEquals (snapshot ("t", 0, 10L, "t", 2, 12L, "t", 3, 13L), base.apply (delta));
+    }
+
+    @Test
+    public void encodeDecodeRoundTrip() throws IOException {
+        final OffsetSnapshot s = snapshot ("t", 0, 10L, "t", 1, OffsetSnapshot.REMOVED, "u", 9, 0L);
+        assertSnapshotEquals (s, OffsetSnapshot.decode (s.encode()));
+        assertSnapshotEquals (s, OffsetSnapshot.fromControlVariableValue (s.toControlVariableValue()));
+    }
+
+    @Test
+    public void decodeLegacyControlVariableValue() throws Exception {
+        OffsetManager legacy = new OffsetManager();
+        legacy.savePosition ("t", 0, 10L, true);
+        legacy.savePosition ("t", 4, 40L, true);
+        final String value = Base64.getEncoder().encodeToString (SerializationUtils.serialize (legacy));
+        assertSnapshotEquals (snapshot ("t", 0, 10L, "t", 4, 40L), OffsetSnapshot.fromControlVariableValue (value));
+    }
+
+    @Test (expected = IOException.class)
+    public void decodeInvalidControlVariableValue() throws IOException {
+        OffsetSnapshot.fromControlVariableValue ("not base64 !");
+    }
+
+    @Test (expected = IOException.class)
+    public void decodeGarbageControlVariableValue() throws IOException {
+        OffsetSnapshot.fromControlVariableValue (Base64.getEncoder().encodeToString (new byte[] {1, 2, 3, 4}));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.ibm.streamsx.kafka.clients.OffsetsCodec.TopicOffsets;
+
+/**
+ * Tests the binary encoding of {@link OffsetsCodec}.
+ */
+public class OffsetsCodecTest {
+
+    private static Map<String, Map<Integer, Long>> offsets (Object... topicPartitionOffset) {
+        Map<String, Map<Integer, Long>> m = new HashMap<>();
+        for (int i = 0; i < topicPartitionOffset.length; i += 3) {
+            m.computeIfAbsent ((String) topicPartitionOffset[i], t -> new HashMap<>())
+            .put ((Integer) topicPartitionOffset[i +1], (Long) topicPartitionOffset[i +2]);
+        }
+        return m;
+    }
+
+    private static byte[] sample() {
+        return OffsetsCodec.encode (offsets ("t1", 0, 100L, "t1", 7, 5L, "t1", 3, 1_000_000_000_000L, "tööpic", 2, 0L));
+    }
+
+    @Test
+    public void encodeDecodeRoundTrip() throws IOException {
+        final Map<String, Map<Integer, Long>> expected = offsets ("t1", 0, 100L, "t1", 7, 5L, "t1", 3, 1_000_000_000_000L, "tööpic", 2, 0L);
+        assertEquals (expected, OffsetsCodec.decode (OffsetsCodec.encode (expected)));
+    }
+
+    @Test
+    public void encodeDecodeExtremeOffsets() throws IOException {
+        // REMOVED marker and the largest offset result in overflowing differences
+        final Map<String, Map<Integer, Long>> expected = offsets ("t", 0, Long.MAX_VALUE, "t", 1, OffsetSnapshot.REMOVED,
+                "t", 2, Long.MAX_VALUE, "t", Integer.MAX_VALUE, -1L);
+        assertEquals (expected, OffsetsCodec.decode (OffsetsCodec.encode (expected)));
+    }
+
+    @Test
+    public void encodeDecodeEmpty() throws IOException {
+        final byte[] data = OffsetsCodec.encode (Collections.emptyMap());
+        assertEquals (3, data.length);
+        assertTrue (OffsetsCodec.decode (data).isEmpty());
+    }
+
+    @Test
+    public void decodeTopicsKeepsPartitionOrder() throws IOException {
+        final List<TopicOffsets> topics = OffsetsCodec.decodeTopics (sample());
+        assertEquals (2, topics.size());
+        assertEquals ("t1", topics.get (0).getTopic());
+        assertArrayEquals (new int[] {0, 3, 7}, topics.get (0).getPartitions());
+        assertArrayEquals (new long[] {100L, 1_000_000_000_000L, 5L}, topics.get (0).getOffsets());
+        assertEquals ("tööpic", topics.get (1).getTopic());
+    }
+
+    @Test
+    public void encodePartitions() throws IOException {
+        Map<String, List<Integer>> partitions = new HashMap<>();
+        partitions.put ("a", Arrays.asList (4, 1));
+        partitions.put ("b", Collections.emptyList());
+        final Map<String, Map<Integer, Long>> decoded = OffsetsCodec.decode (OffsetsCodec.encodePartitions (partitions));
+        assertEquals (new HashSet<> (Arrays.asList (1, 4)), decoded.get ("a").keySet());
+        assertEquals (Long.valueOf (0L), decoded.get ("a").get (4));
+        assertTrue (decoded.get ("b").isEmpty());
+    }
+
+    @Test
+    public void isEncoded() {
+        assertTrue (OffsetsCodec.isEncoded (sample()));
+        assertFalse (OffsetsCodec.isEncoded (null));
+        assertFalse (OffsetsCodec.isEncoded (new byte[] {OffsetsCodec.MAGIC}));
+        assertFalse (OffsetsCodec.isEncoded (new byte[] {(byte) 0xAC, (byte) 0xED, 0, 5}));
+    }
+
+    @Test
+    public void decodeTruncatedData() {
+        final byte[] data = sample();
+        for (int len = 0; len < data.length; ++len) {
+            try {
+                OffsetsCodec.decode (Arrays.copyOf (data, len));
+                fail ("IOException expected for truncated data of length " + len);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test (expected = IOException.class)
+    public void decodeWrongMagic() throws IOException {
+        final byte[] data = sample();
+        data[0] = 0;
+        OffsetsCodec.decode (data);
+    }
+
+    @Test (expected = IOException.class)
+    public void decodeUnsupportedVersion() throws IOException {
+        final byte[] data = sample();
+        data[1] = OffsetsCodec.VERSION + 1;
+        OffsetsCodec.decode (data);
+    }
+
+    @Test (expected = IOException.class)
+    public void decodeMalformedVarint() throws IOException {
+        final byte[] data = new byte[12];
+        Arrays.fill (data, (byte) 0xFF);
+        data[0] = OffsetsCodec.MAGIC;
+        data[1] = OffsetsCodec.VERSION;
+        OffsetsCodec.decode (data);
+    }
+
+    @Test (expected = IOException.class)
+    public void decodeTooManyPartitions() throws IOException {
+        // one topic "t" with 1000 partitions, but no partition data
+        OffsetsCodec.decode (new byte[] {OffsetsCodec.MAGIC, OffsetsCodec.VERSION, 1, 1, 't', (byte) 0xE8, 0x07});
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void topicOffsetsLengthMismatch() {
+        new TopicOffsets ("t", new int[] {0, 1}, new long[] {0L});
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+/**
+ * Tests the registration and the transfer of offsets of {@link PartitionOffsetTracker}.
+ */
+public class PartitionOffsetTrackerTest {
+
+    @Test
+    public void transferRegisteredOffsets() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker (false);
+        tracker.register (Arrays.asList (new TopicPartition ("t", 0), new TopicPartition ("t", 3)));
+        assertTrue (tracker.set ("t", 0, 10L));
+        assertTrue (tracker.set ("t", 3, 30L));
+        assertTrue (tracker.set ("t", 3, 31L));
+        OffsetManager offsetManager = new OffsetManager();
+        tracker.transferTo (offsetManager);
+        assertEquals (10L, offsetManager.getOffset ("t", 0));
+        assertEquals (31L, offsetManager.getOffset ("t", 3));
+        assertEquals (2, offsetManager.size());
+    }
+
+    @Test
+    public void transferRemovesPendingOffsets() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker (true);
+        tracker.set ("t", 0, 10L);
+        OffsetManager offsetManager = new OffsetManager();
+        tracker.transferTo (offsetManager);
+        // an offset, which has been transferred, must not overwrite a newer offset in the offset manager
+        offsetManager.setOffset ("t", 0, 20L);
+        tracker.transferTo (offsetManager);
+        assertEquals (20L, offsetManager.getOffset ("t", 0));
+    }
+
+    @Test
+    public void unregisteredPartitionsWithoutAutoRegister() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker (false);
+        tracker.register (Collections.singletonList (new TopicPartition ("t", 1)));
+        assertFalse (tracker.set ("t", 0, 10L));
+        assertFalse (tracker.set ("t", 2, 10L));
+        assertFalse (tracker.set ("u", 1, 10L));
+        OffsetManager offsetManager = new OffsetManager();
+        tracker.transferTo (offsetManager);
+        assertTrue (offsetManager.isEmpty());
+    }
+
+    @Test
+    public void autoRegister() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker (true);
+        assertTrue (tracker.set ("t", 5, 50L));
+        assertTrue (tracker.set ("t", 1, 10L));
+        assertTrue (tracker.set ("u", 0, 1L));
+        OffsetManager offsetManager = new OffsetManager();
+        tracker.transferTo (offsetManager);
+        assertEquals (50L, offsetManager.getOffset ("t", 5));
+        assertEquals (10L, offsetManager.getOffset ("t", 1));
+        assertEquals (1L, offsetManager.getOffset ("u", 0));
+        assertEquals (3, offsetManager.size());
+    }
+
+    @Test
+    public void registerKeepsPendingOffsets() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker (false);
+        tracker.register (Collections.singletonList (new TopicPartition ("t", 0)));
+        tracker.set ("t", 0, 10L);
+        // re-creates the partition array of the topic
+        tracker.register (Arrays.asList (new TopicPartition ("t", 0), new TopicPartition ("t", 7)));
+        OffsetManager offsetManager = new OffsetManager();
+        tracker.transferTo (offsetManager);
+        assertEquals (10L, offsetManager.getOffset ("t", 0));
+        assertEquals (1, offsetManager.size());
+    }
+
+    @Test
+    public void unregisterDiscardsPendingOffsets() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker (false);
+        tracker.register (Arrays.asList (new TopicPartition ("t", 0), new TopicPartition ("t", 1)));
+        tracker.set ("t", 0, 10L);
+        tracker.set ("t", 1, 11L);
+        tracker.unregister (Arrays.asList (new TopicPartition ("t", 1), new TopicPartition ("t", 9), new TopicPartition ("u", 0)));
+        assertFalse (tracker.set ("t", 1, 12L));
+        OffsetManager offsetManager = new OffsetManager();
+        tracker.transferTo (offsetManager);
+        assertEquals (10L, offsetManager.getOffset ("t", 0));
+        assertEquals (-1L, offsetManager.getOffset ("t", 1));
+    }
+
+    @Test
+    public void clearDiscardsAllOffsets() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker (true);
+        tracker.set ("t", 0, 10L);
+        tracker.clear();
+        OffsetManager offsetManager = new OffsetManager();
+        tracker.transferTo (offsetManager);
+        assertTrue (offsetManager.isEmpty());
+    }
+
+    @Test
+    public void concurrentSetOfDifferentPartitions() throws InterruptedException {
+        final int nThreads = 4;
+        final long nOffsets = 10000L;
+        final PartitionOffsetTracker tracker = new PartitionOffsetTracker (true);
+        final CountDownLatch start = new CountDownLatch (1);
+        Thread[] threads = new Thread[nThreads];
+        for (int i = 0; i < nThreads; ++i) {
+            final int partition = i;
+            threads[i] = new Thread (() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long o = 1; o <= nOffsets; ++o) tracker.set ("t", partition, o);
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread t: threads) t.join();
+        OffsetManager offsetManager = new OffsetManager();
+        tracker.transferTo (offsetManager);
+        for (int i = 0; i < nThreads; ++i) {
+            assertEquals (nOffsets, offsetManager.getOffset ("t", i));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+/**
+ * Tests publishing, claiming, and withdrawing offsets with {@link TransactionOffsetsExchange}.
+ * The exchange is a VM-wide registry; every test uses its own consistent region index.
+ */
+public class TransactionOffsetsExchangeTest {
+
+    private static Map<TopicPartition, OffsetAndMetadata> offsets (long offset) {
+        Map<TopicPartition, OffsetAndMetadata> m = new HashMap<>();
+        m.put (new TopicPartition ("t", 0), new OffsetAndMetadata (offset));
+        return m;
+    }
+
+    @Test
+    public void producerRegistration() {
+        final int cr = 100;
+        assertEquals (0, TransactionOffsetsExchange.getNumProducers (cr));
+        TransactionOffsetsExchange.registerProducer (cr);
+        TransactionOffsetsExchange.registerProducer (cr);
+        assertEquals (2, TransactionOffsetsExchange.getNumProducers (cr));
+        assertEquals (0, TransactionOffsetsExchange.getNumProducers (cr +1));
+        TransactionOffsetsExchange.unregisterProducer (cr);
+        assertEquals (1, TransactionOffsetsExchange.getNumProducers (cr));
+        TransactionOffsetsExchange.unregisterProducer (cr);
+        TransactionOffsetsExchange.unregisterProducer (cr);
+        assertEquals (0, TransactionOffsetsExchange.getNumProducers (cr));
+    }
+
+    @Test
+    public void claimRemovesPublishedOffsets() {
+        final int cr = 101;
+        TransactionOffsetsExchange.registerProducer (cr);
+        try {
+            TransactionOffsetsExchange.publish (cr, "g1", offsets (10L));
+            TransactionOffsetsExchange.publish (cr, "g2", offsets (20L));
+            // replaces the unclaimed offsets of group g1
+            TransactionOffsetsExchange.publish (cr, "g1", offsets (11L));
+            final Map<String, Map<TopicPartition, OffsetAndMetadata>> claimed = TransactionOffsetsExchange.claim (cr);
+            assertEquals (2, claimed.size());
+            assertEquals (offsets (11L), claimed.get ("g1"));
+            assertEquals (offsets (20L), claimed.get ("g2"));
+            assertTrue (TransactionOffsetsExchange.claim (cr).isEmpty());
+            assertNull (TransactionOffsetsExchange.withdraw (cr, "g1"));
+        }
+        finally {
+            TransactionOffsetsExchange.unregisterProducer (cr);
+        }
+    }
+
+    @Test
+    public void publishCopiesOffsets() {
+        final int cr = 102;
+        Map<TopicPartition, OffsetAndMetadata> published = offsets (10L);
+        TransactionOffsetsExchange.publish (cr, "g", published);
+        published.clear();
+        assertEquals (offsets (10L), TransactionOffsetsExchange.withdraw (cr, "g"));
+    }
+
+    @Test
+    public void withdrawUnclaimedOffsets() {
+        final int cr = 103;
+        TransactionOffsetsExchange.publish (cr, "g1", offsets (10L));
+        TransactionOffsetsExchange.publish (cr, "g2", offsets (20L));
+        assertEquals (offsets (10L), TransactionOffsetsExchange.withdraw (cr, "g1"));
+        assertNull (TransactionOffsetsExchange.withdraw (cr, "g1"));
+        assertNull (TransactionOffsetsExchange.withdraw (cr, "unknown"));
+        final Map<String, Map<TopicPartition, OffsetAndMetadata>> claimed = TransactionOffsetsExchange.claim (cr);
+        assertEquals (1, claimed.size());
+        assertEquals (offsets (20L), claimed.get ("g2"));
+    }
+
+    @Test
+    public void noClaimWithMultipleProducers() {
+        final int cr = 104;
+        TransactionOffsetsExchange.registerProducer (cr);
+        TransactionOffsetsExchange.registerProducer (cr);
+        try {
+            TransactionOffsetsExchange.publish (cr, "g", offsets (10L));
+            assertTrue (TransactionOffsetsExchange.claim (cr).isEmpty());
+            // the consumer commits the offsets by itself
+            assertEquals (offsets (10L), TransactionOffsetsExchange.withdraw (cr, "g"));
+        }
+        finally {
+            TransactionOffsetsExchange.unregisterProducer (cr);
+            TransactionOffsetsExchange.unregisterProducer (cr);
+        }
+    }
+
+    @Test
+    public void regionsAreSeparated() {
+        TransactionOffsetsExchange.publish (105, "g", offsets (10L));
+        TransactionOffsetsExchange.publish (106, "g", offsets (20L));
+        assertEquals (offsets (20L), TransactionOffsetsExchange.claim (106).get ("g"));
+        assertEquals (offsets (10L), TransactionOffsetsExchange.withdraw (105, "g"));
+    }
+}
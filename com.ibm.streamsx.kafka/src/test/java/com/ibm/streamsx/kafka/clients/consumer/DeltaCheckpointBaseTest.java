@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.ibm.streamsx.kafka.clients.OffsetSnapshot;
+
+/**
+ * Tests the full checkpoint interval and the alternation of the control variable slots of {@link DeltaCheckpointBase}.
+ */
+public class DeltaCheckpointBaseTest {
+
+    private static final OffsetSnapshot SNAPSHOT = OffsetSnapshot.empty();
+
+    /**
+     * Takes a checkpoint like CrKafkaStaticAssignConsumerClient does.
+     * @return the slot of a full checkpoint or -1 for a delta checkpoint
+     */
+    private static int checkpoint (DeltaCheckpointBase b, long seqId) {
+        if (b.isFullCheckpointDue()) {
+            final int slot = b.getNextSlot();
+            b.fullCheckpointTaken (seqId, slot, SNAPSHOT);
+            return slot;
+        }
+        b.deltaCheckpointTaken();
+        return -1;
+    }
+
+    @Test
+    public void firstCheckpointIsFull() {
+        DeltaCheckpointBase b = new DeltaCheckpointBase (10);
+        assertNull (b.getBase());
+        assertTrue (b.isFullCheckpointDue());
+        assertEquals (0, checkpoint (b, 1L));
+        assertSame (SNAPSHOT, b.getBase());
+        assertEquals (1L, b.getBaseSeqId());
+        assertEquals (0, b.getBaseSlot());
+    }
+
+    @Test
+    public void fullCheckpointsAlternateSlots() {
+        DeltaCheckpointBase b = new DeltaCheckpointBase (3);
+        final int[] expectedSlots = {0, -1, -1, 1, -1, -1, 0, -1, -1, 1};
+        for (int i = 0; i < expectedSlots.length; ++i) {
+            assertEquals ("checkpoint " + (i +1), expectedSlots[i], checkpoint (b, i +1));
+        }
+        assertEquals (10L, b.getBaseSeqId());
+    }
+
+    @Test
+    public void intervalOneTakesOnlyFullCheckpoints() {
+        DeltaCheckpointBase b = new DeltaCheckpointBase (1);
+        assertEquals (0, checkpoint (b, 1L));
+        assertEquals (1, checkpoint (b, 2L));
+        assertEquals (0, checkpoint (b, 3L));
+    }
+
+    @Test
+    public void resetToDeltaCheckpointKeepsItsBaseSlot() {
+        DeltaCheckpointBase b = new DeltaCheckpointBase (3);
+        for (long seqId = 1; seqId <= 5; ++seqId) checkpoint (b, seqId);
+        // checkpoint 5 is a delta to checkpoint 4 in slot 1; reset to checkpoint 2, which is a delta to checkpoint 1 in slot 0
+        b.reset (SNAPSHOT, 1L, 0);
+        assertEquals (1L, b.getBaseSeqId());
+        assertEquals (0, b.getBaseSlot());
+        // the delta count restarts after reset
+        assertEquals (-1, checkpoint (b, 6L));
+        assertEquals (-1, checkpoint (b, 7L));
+        // the next full checkpoint must not overwrite slot 0, which contains the base of the restored checkpoint
+        assertEquals (1, checkpoint (b, 8L));
+    }
+
+    @Test
+    public void invalidateForcesFullCheckpointInOtherSlot() {
+        DeltaCheckpointBase b = new DeltaCheckpointBase (10);
+        checkpoint (b, 1L);
+        checkpoint (b, 2L);
+        b.invalidate();
+        assertNull (b.getBase());
+        assertTrue (b.isFullCheckpointDue());
+        assertEquals (1, checkpoint (b, 3L));
+        assertFalse (b.isFullCheckpointDue());
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.Test;
+
+/**
+ * Tests the batch hand-over and the accounting of {@link RecordBatchQueue} in non-fair and fair mode.
+ */
+public class RecordBatchQueueTest {
+
+    private static final TopicPartition TP0 = new TopicPartition ("t", 0);
+    private static final TopicPartition TP1 = new TopicPartition ("t", 1);
+
+    /**
+     * Creates a record with 10 bytes key and 100 bytes value.
+     */
+    private static ConsumerRecord<?, ?> record (TopicPartition tp, long offset) {
+        return new ConsumerRecord<> (tp.topic(), tp.partition(), offset, 0L, TimestampType.CREATE_TIME, 0L, 10, 100, "k", "v");
+    }
+
+    private static List<ConsumerRecord<?, ?>> records (TopicPartition tp, long firstOffset, int n) {
+        List<ConsumerRecord<?, ?>> l = new ArrayList<> (n);
+        for (int i = 0; i < n; ++i) l.add (record (tp, firstOffset + i));
+        return l;
+    }
+
+    private static List<ConsumerRecord<?, ?>> concat (List<ConsumerRecord<?, ?>> a, List<ConsumerRecord<?, ?>> b) {
+        List<ConsumerRecord<?, ?>> l = new ArrayList<> (a);
+        l.addAll (b);
+        return l;
+    }
+
+    private static Map<TopicPartition, Long> sizes (long tp0, long tp1) {
+        Map<TopicPartition, Long> m = new HashMap<>();
+        if (tp0 > 0) m.put (TP0, tp0);
+        if (tp1 > 0) m.put (TP1, tp1);
+        return m;
+    }
+
+    private static void assertAccounting (RecordBatchQueue q, int tp0, int tp1) {
+        assertEquals (tp0 + tp1, q.size());
+        assertEquals (110L * (tp0 + tp1), q.sizeInBytes());
+        assertEquals (sizes (tp0, tp1), q.getPartitionSizes (false));
+        assertEquals (sizes (110L * tp0, 110L * tp1), q.getPartitionSizes (true));
+    }
+
+    private static void assertOffsets (List<ConsumerRecord<?, ?>> batch, TopicPartition tp, long... offsets) {
+        assertEquals (offsets.length, batch.size());
+        for (int i = 0; i < offsets.length; ++i) {
+            assertEquals (tp.partition(), batch.get (i).partition());
+            assertEquals (offsets[i], batch.get (i).offset());
+        }
+    }
+
+    @Test
+    public void nonFairBatchesInOrderOfArrival() throws InterruptedException {
+        RecordBatchQueue q = new RecordBatchQueue (100);
+        final List<ConsumerRecord<?, ?>> b1 = concat (records (TP0, 0, 3), records (TP1, 0, 2));
+        q.addBatch (b1);
+        q.addBatch (records (TP0, 3, 4));
+        assertAccounting (q, 7, 2);
+        assertEquals (91, q.remainingCapacity());
+        assertEquals (b1, q.pollBatch (0, TimeUnit.MILLISECONDS));
+        assertAccounting (q, 4, 0);
+        assertOffsets (q.pollBatch (0, TimeUnit.MILLISECONDS), TP0, 3, 4, 5, 6);
+        assertAccounting (q, 0, 0);
+        assertTrue (q.isEmpty());
+        assertNull (q.pollBatch (1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void nonFairSingleRecordsAndRemainder() throws InterruptedException {
+        RecordBatchQueue q = new RecordBatchQueue (100);
+        q.addBatch (concat (records (TP0, 0, 2), records (TP1, 0, 2)));
+        assertEquals (0L, q.poll (0, TimeUnit.MILLISECONDS).offset());
+        assertEquals (1L, q.poll (0, TimeUnit.MILLISECONDS).offset());
+        assertAccounting (q, 0, 2);
+        assertOffsets (q.pollBatch (0, TimeUnit.MILLISECONDS), TP1, 0, 1);
+        assertAccounting (q, 0, 0);
+    }
+
+    @Test
+    public void batchExceedingCapacityIsRejected() {
+        RecordBatchQueue q = new RecordBatchQueue (5);
+        q.addBatch (records (TP0, 0, 3));
+        try {
+            q.addBatch (records (TP1, 0, 3));
+            fail ("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+        assertAccounting (q, 3, 0);
+    }
+
+    @Test
+    public void fairBatchesRoundRobin() throws InterruptedException {
+        RecordBatchQueue q = new RecordBatchQueue (100, 4);
+        assertTrue (q.isFair());
+        q.addBatch (records (TP0, 0, 6));
+        q.addBatch (records (TP1, 0, 1));
+        assertAccounting (q, 6, 1);
+        // quantum is 2 records per partition
+        List<ConsumerRecord<?, ?>> batch = q.pollBatch (0, TimeUnit.MILLISECONDS);
+        assertOffsets (batch.subList (0, 2), TP0, 0, 1);
+        assertOffsets (batch.subList (2, 3), TP1, 0);
+        assertAccounting (q, 4, 0);
+        // only partition 0 is left; the quantum is 4
+        assertOffsets (q.pollBatch (0, TimeUnit.MILLISECONDS), TP0, 2, 3, 4, 5);
+        assertAccounting (q, 0, 0);
+    }
+
+    @Test
+    public void fairSingleRecordsRoundRobin() throws InterruptedException {
+        RecordBatchQueue q = new RecordBatchQueue (100, 10);
+        q.addBatch (concat (records (TP0, 0, 2), records (TP1, 0, 2)));
+        assertEquals (TP0.partition(), q.poll (0, TimeUnit.MILLISECONDS).partition());
+        assertEquals (TP1.partition(), q.poll (0, TimeUnit.MILLISECONDS).partition());
+        assertEquals (TP0.partition(), q.poll (0, TimeUnit.MILLISECONDS).partition());
+        assertAccounting (q, 0, 1);
+    }
+
+    @Test
+    public void removeIfAfterPartialPoll() throws InterruptedException {
+        for (int fairBatchSize: new int[] {0, 10}) {
+            RecordBatchQueue q = new RecordBatchQueue (100, fairBatchSize);
+            q.addBatch (concat (records (TP0, 0, 3), records (TP1, 0, 3)));
+            q.addBatch (records (TP1, 3, 2));
+            q.poll (0, TimeUnit.MILLISECONDS);
+            assertTrue (q.removeIf (r -> r.partition() == TP1.partition() && r.offset() % 2 == 0));
+            assertFalse (q.removeIf (r -> r.offset() > 100));
+            assertAccounting (q, 2, 2);
+            List<ConsumerRecord<?, ?>> taken = new ArrayList<>();
+            List<ConsumerRecord<?, ?>> batch;
+            while ((batch = q.pollBatch (0, TimeUnit.MILLISECONDS)) != null) taken.addAll (batch);
+            assertEquals ("fairBatchSize = " + fairBatchSize, 4, taken.size());
+            assertAccounting (q, 0, 0);
+        }
+    }
+
+    @Test
+    public void drainToAfterPartialPoll() throws InterruptedException {
+        for (int fairBatchSize: new int[] {0, 10}) {
+            RecordBatchQueue q = new RecordBatchQueue (100, fairBatchSize);
+            q.addBatch (records (TP0, 0, 3));
+            q.addBatch (records (TP1, 0, 2));
+            q.poll (0, TimeUnit.MILLISECONDS);
+            final long generation = q.getGeneration();
+            List<ConsumerRecord<?, ?>> drained = new ArrayList<>();
+            assertEquals (4, q.drainTo (drained));
+            assertEquals (4, drained.size());
+            assertAccounting (q, 0, 0);
+            assertEquals (generation, q.getGeneration());
+        }
+    }
+
+    @Test
+    public void clearInvalidatesTakenBatch() throws InterruptedException {
+        RecordBatchQueue q = new RecordBatchQueue (100);
+        q.addBatch (records (TP0, 0, 3));
+        q.pollBatch (0, TimeUnit.MILLISECONDS);
+        assertTrue (q.isTakenBatchValid());
+        q.addBatch (records (TP0, 3, 3));
+        q.clear();
+        assertFalse (q.isTakenBatchValid());
+        assertEquals (1L, q.getGeneration());
+        assertAccounting (q, 0, 0);
+        q.add (record (TP1, 0));
+        q.pollBatch (0, TimeUnit.MILLISECONDS);
+        assertTrue (q.isTakenBatchValid());
+    }
+
+    @Test
+    public void nullKeyAndValueCountZeroBytes() {
+        RecordBatchQueue q = new RecordBatchQueue (10);
+        q.add (new ConsumerRecord<> ("t", 0, 0L, 0L, TimestampType.CREATE_TIME, 0L, -1, -1, null, null));
+        assertEquals (1, q.size());
+        assertEquals (0L, q.sizeInBytes());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void invalidCapacity() {
+        new RecordBatchQueue (0);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.Test;
+
+/**
+ * Tests the aggregation of the metrics of multiple clients with {@link MetricsAggregator}.
+ */
+public class MetricsAggregatorTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static class FixedMetric implements Metric {
+        private final MetricName metricName;
+        private final Object value;
+
+        FixedMetric (MetricName metricName, Object value) {
+            this.metricName = metricName;
+            this.value = value;
+        }
+
+        @Override
+        public MetricName metricName() {
+            return metricName;
+        }
+
+        @Override
+        @Deprecated
+        public double value() {
+            return ((Number) value).doubleValue();
+        }
+
+        @Override
+        public Object metricValue() {
+            return value;
+        }
+    }
+
+    private static MetricName name (String name, String clientId, String... tags) {
+        Map<String, String> t = new HashMap<>();
+        t.put ("client-id", clientId);
+        for (int i = 0; i < tags.length; i += 2) t.put (tags[i], tags[i +1]);
+        return new MetricName (name, "producer-metrics", "", t);
+    }
+
+    private static Map<MetricName, ? extends Metric> client (String clientId, Object... nameValue) {
+        Map<MetricName, Metric> m = new HashMap<>();
+        for (int i = 0; i < nameValue.length; i += 2) {
+            final MetricName n = name ((String) nameValue[i], clientId);
+            m.put (n, new FixedMetric (n, nameValue[i +1]));
+        }
+        return m;
+    }
+
+    private static double value (Map<MetricName, ? extends Metric> metrics, String name, String clientId) {
+        return ((Number) metrics.get (name (name, clientId)).metricValue()).doubleValue();
+    }
+
+    @Test
+    public void singleClientIsUnchanged() {
+        final Map<MetricName, ? extends Metric> metrics = client ("p", "record-send-total", 5.0);
+        assertSame (metrics, MetricsAggregator.aggregate (Collections.singletonList (metrics)));
+    }
+
+    @Test
+    public void aggregationBySuffix() {
+        final List<Map<MetricName, ? extends Metric>> clients = Arrays.asList (
+                client ("p", "record-send-total", 5.0, "record-queue-time-max", 20.0, "batch-size-avg", 100.0, "compression-rate-avg", 0.5),
+                client ("p-1", "record-send-total", 7.0, "record-queue-time-max", 30.0, "batch-size-avg", 300.0, "compression-rate-avg", 0.7));
+        final Map<MetricName, ? extends Metric> aggregated = MetricsAggregator.aggregate (clients);
+        assertEquals (4, aggregated.size());
+        // the names of the first client are used
+        assertEquals (12.0, value (aggregated, "record-send-total", "p"), DELTA);
+        assertEquals (30.0, value (aggregated, "record-queue-time-max", "p"), DELTA);
+        assertEquals (200.0, value (aggregated, "batch-size-avg", "p"), DELTA);
+        assertEquals (0.6, value (aggregated, "compression-rate-avg", "p"), DELTA);
+    }
+
+    @Test
+    public void metricsWithDifferentTagsAreNotAggregated() {
+        Map<MetricName, Metric> m1 = new HashMap<>();
+        Map<MetricName, Metric> m2 = new HashMap<>();
+        final MetricName n1 = name ("record-send-total", "p", "topic", "a");
+        final MetricName n2 = name ("record-send-total", "p-1", "topic", "b");
+        m1.put (n1, new FixedMetric (n1, 1.0));
+        m2.put (n2, new FixedMetric (n2, 2.0));
+        final Map<MetricName, ? extends Metric> aggregated = MetricsAggregator.aggregate (Arrays.asList (m1, m2));
+        assertEquals (2, aggregated.size());
+        assertEquals (1.0, ((Number) aggregated.get (n1).metricValue()).doubleValue(), DELTA);
+        assertEquals (2.0, ((Number) aggregated.get (n2).metricValue()).doubleValue(), DELTA);
+    }
+
+    @Test
+    public void metricOfOneClientOnly() {
+        final Map<MetricName, ? extends Metric> aggregated = MetricsAggregator.aggregate (Arrays.asList (
+                client ("p", "record-send-total", 5.0), client ("p-1", "request-total", 3.0)));
+        assertEquals (5.0, value (aggregated, "record-send-total", "p"), DELTA);
+        assertEquals (3.0, value (aggregated, "request-total", "p-1"), DELTA);
+    }
+
+    @Test
+    public void invalidValuesAreIgnored() {
+        final Map<MetricName, ? extends Metric> aggregated = MetricsAggregator.aggregate (Arrays.asList (
+                client ("p", "batch-size-avg", Double.NaN, "record-queue-time-max", Double.NEGATIVE_INFINITY, "record-send-total", "n/a"),
+                client ("p-1", "batch-size-avg", 50.0, "record-queue-time-max", Double.NaN, "record-send-total", "n/a")));
+        assertEquals (50.0, value (aggregated, "batch-size-avg", "p"), DELTA);
+        assertTrue (Double.isNaN (value (aggregated, "record-queue-time-max", "p")));
+        assertTrue (Double.isNaN (value (aggregated, "record-send-total", "p")));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ibm.streamsx.kafka.clients.producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.internals.DefaultPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.Test;
+
+/**
+ * Tests the partitioning of records with and without key by {@link StickyPartitioner}.
+ */
+public class StickyPartitionerTest {
+
+    private static final String TOPIC = "t";
+    private static final Node NODE = new Node (0, "localhost", 9092);
+
+    /**
+     * Creates the cluster metadata of a topic.
+     * @param nPartitions the number of partitions
+     * @param available the partitions with leader
+     */
+    private static Cluster cluster (int nPartitions, int... available) {
+        List<PartitionInfo> partitions = new ArrayList<> (nPartitions);
+        for (int p = 0; p < nPartitions; ++p) {
+            Node leader = null;
+            for (int a: available) if (a == p) leader = NODE;
+            partitions.add (new PartitionInfo (TOPIC, p, leader, new Node[] {NODE}, new Node[] {NODE}));
+        }
+        return new Cluster ("cluster", Collections.singletonList (NODE), partitions, Collections.emptySet(), Collections.emptySet());
+    }
+
+    private static StickyPartitioner partitioner (Object batchSize) {
+        StickyPartitioner partitioner = new StickyPartitioner();
+        Map<String, Object> configs = new HashMap<>();
+        configs.put (ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        partitioner.configure (configs);
+        return partitioner;
+    }
+
+    @Test
+    public void keyedRecordsLikeDefaultPartitioner() {
+        final Cluster cluster = cluster (7, 0, 1, 2, 3, 4, 5, 6);
+        StickyPartitioner partitioner = partitioner (100);
+        DefaultPartitioner defaultPartitioner = new DefaultPartitioner();
+        for (int i = 0; i < 100; ++i) {
+            final String key = "key" + i;
+            final byte[] keyBytes = key.getBytes (StandardCharsets.UTF_8);
+            assertEquals (defaultPartitioner.partition (TOPIC, key, keyBytes, null, null, cluster),
+                    partitioner.partition (TOPIC, key, keyBytes, null, null, cluster));
+        }
+        defaultPartitioner.close();
+        partitioner.close();
+    }
+
+    @Test
+    public void keylessRecordsStickUntilBatchIsFull() {
+        final Cluster cluster = cluster (4, 0, 1, 2, 3);
+        StickyPartitioner partitioner = partitioner ("100");
+        final byte[] value = new byte[30];
+        final int first = partitioner.partition (TOPIC, null, null, value, value, cluster);
+        // 30, 60, 90 bytes
+        assertEquals (first, partitioner.partition (TOPIC, null, null, value, value, cluster));
+        assertEquals (first, partitioner.partition (TOPIC, null, null, value, value, cluster));
+        assertEquals (first, partitioner.partition (TOPIC, null, null, value, value, cluster));
+        // 120 bytes >= batch size
+        final int second = partitioner.partition (TOPIC, null, null, value, value, cluster);
+        assertNotEquals (first, second);
+        assertEquals (second, partitioner.partition (TOPIC, null, null, value, value, cluster));
+        partitioner.close();
+    }
+
+    @Test
+    public void keylessRecordsOnlyToAvailablePartitions() {
+        final Cluster cluster = cluster (5, 1, 3);
+        StickyPartitioner partitioner = partitioner (1);
+        final byte[] value = new byte[1];
+        int previous = -1;
+        for (int i = 0; i < 50; ++i) {
+            final int p = partitioner.partition (TOPIC, null, null, value, value, cluster);
+            assertTrue ("partition " + p, p == 1 || p == 3);
+            assertNotEquals (previous, p);
+            previous = p;
+        }
+        partitioner.close();
+    }
+
+    @Test
+    public void keylessRecordsWithSingleAvailablePartition() {
+        final Cluster cluster = cluster (3, 2);
+        StickyPartitioner partitioner = partitioner (1);
+        final byte[] value = new byte[1];
+        for (int i = 0; i < 10; ++i) {
+            assertEquals (2, partitioner.partition (TOPIC, null, null, value, value, cluster));
+        }
+        partitioner.close();
+    }
+
+    @Test
+    public void keylessRecordsWithoutAvailablePartition() {
+        final Cluster cluster = cluster (3);
+        StickyPartitioner partitioner = partitioner (1);
+        for (int i = 0; i < 20; ++i) {
+            final int p = partitioner.partition (TOPIC, null, null, null, null, cluster);
+            assertTrue ("partition " + p, p >= 0 && p < 3);
+        }
+        partitioner.close();
+    }
+}
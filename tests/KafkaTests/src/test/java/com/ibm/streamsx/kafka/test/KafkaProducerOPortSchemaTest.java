@@ -114,6 +114,24 @@ public class KafkaProducerOPortSchemaTest extends AbstractKafkaTest {
         doTestWithSPLSchema (oSchema);
     }
 
+    @Test
+    public void kafkaProducerOPortStructuredTest() throws Exception {
+        final StreamSchema oSchema = com.ibm.streams.operator.Type.Factory.getStreamSchema(
+                "tuple<tuple<int32 key, rstring message> failedTuple, list<rstring> failedTopics, rstring lastExceptionType, boolean retriable>"
+                );
+        doTestWithSPLSchema (oSchema);
+    }
+
+    @Test
+    public void kafkaProducerOPortStructuredAndJsonTest() throws Exception {
+        final StreamSchema oSchema = com.ibm.streams.operator.Type.Factory.getStreamSchema(
+                "tuple<tuple<int32 key, rstring message> inTuple, optional<rstring> failureDescription, list<ustring> failedTopics, "
+                + "ustring lastExceptionType, ustring lastFailure, boolean retriable>"
+                );
+        doTestWithSPLSchema (oSchema);
+    }
+
+
 
     protected void doTestWithSPLSchema (StreamSchema splOutSchema) throws Exception {
         Topology topo = createTopology (getTestName());